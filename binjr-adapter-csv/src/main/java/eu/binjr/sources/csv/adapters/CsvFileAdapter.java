@@ -37,6 +37,7 @@ import org.eclipse.fx.ui.controls.tree.FilterableTreeItem;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -44,6 +45,7 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -56,6 +58,7 @@ import java.util.concurrent.ConcurrentSkipListMap;
  */
 public class CsvFileAdapter extends BaseDataAdapter<Double> {
     private static final Logger logger = Logger.create(CsvFileAdapter.class);
+    private final CsvFileAdapterPreferences prefs = (CsvFileAdapterPreferences) getAdapterInfo().getPreferences();
     private String dateTimePattern;
     private Path csvPath;
     private ZoneId zoneId;
@@ -64,6 +67,8 @@ public class CsvFileAdapter extends BaseDataAdapter<Double> {
     private CsvDecoder csvDecoder;
     private ConcurrentNavigableMap<Long, DataSample> sortedDataStore;
     private List<String> headers;
+    private MappedCsvIndex mappedIndex;
+    private boolean mappedIndexUnavailable = false;
 
     /**
      * Initializes a new instance of the {@link CsvFileAdapter} class with a set of default values.
@@ -138,6 +143,10 @@ public class CsvFileAdapter extends BaseDataAdapter<Double> {
         if (this.isClosed()) {
             throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
         }
+        var index = getMappedIndex();
+        if (index != null && index.getRecordCount() > 0) {
+            return TimeRange.of(index.getFirstTimestamp(), index.getLastTimestamp());
+        }
         return TimeRange.of(getDataStore().get(getDataStore().firstKey()).getTimeStamp(),
                 getDataStore().get(getDataStore().lastKey()).getTimeStamp());
     }
@@ -147,6 +156,15 @@ public class CsvFileAdapter extends BaseDataAdapter<Double> {
         if (this.isClosed()) {
             throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
         }
+        var index = getMappedIndex();
+        if (index != null) {
+            try {
+                return fetchMappedData(index, begin, end, seriesInfo);
+            } catch (MappedCsvIndex.UnsortedRecordsException e) {
+                logger.info("Falling back to in-memory data store for " + csvPath + ": " + e.getMessage());
+                discardMappedIndex();
+            }
+        }
         Map<TimeSeriesInfo<Double>, TimeSeriesProcessor<Double>> series = new HashMap<>();
         Map<String, List<TimeSeriesInfo<Double>>> rDict = new HashMap<>();
         for (TimeSeriesInfo<Double> info : seriesInfo) {
@@ -229,9 +247,102 @@ public class CsvFileAdapter extends BaseDataAdapter<Double> {
         if (sortedDataStore != null) {
             sortedDataStore.clear();
         }
+        discardMappedIndex();
         super.close();
     }
 
+    private Map<TimeSeriesInfo<Double>, TimeSeriesProcessor<Double>> fetchMappedData(MappedCsvIndex index,
+                                                                                     Instant begin,
+                                                                                     Instant end,
+                                                                                     List<TimeSeriesInfo<Double>> seriesInfo)
+            throws DataAdapterException, MappedCsvIndex.UnsortedRecordsException {
+        // Series are bound to columns by their index in the file, the first column being the time stamp.
+        int[] columns = new int[seriesInfo.size()];
+        for (int i = 0; i < columns.length; i++) {
+            try {
+                columns[i] = Integer.parseInt(seriesInfo.get(i).getBinding().getLabel());
+            } catch (NumberFormatException e) {
+                throw new DataAdapterException("Invalid column index: " + seriesInfo.get(i).getBinding().getLabel(), e);
+            }
+        }
+        try (Profiler ignored = Profiler.start("Reading " + columns.length + " column(s) from mapped csv file", logger::perf)) {
+            var data = index.read(begin, end, columns);
+            Map<TimeSeriesInfo<Double>, TimeSeriesProcessor<Double>> series = new HashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                var processor = new DoubleTimeSeriesProcessor();
+                processor.setColumns(data.get(columns[i]));
+                series.put(seriesInfo.get(i), processor);
+            }
+            return series;
+        } catch (DateTimeParseException e) {
+            throw new DataAdapterException("Failed to parse time stamp in " + csvPath + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            // The file may have changed while being read: have it indexed again on the next attempt
+            resetMappedIndex(index);
+            throw new DataAdapterException("Error reading csv file " + csvPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized MappedCsvIndex getMappedIndex() throws DataAdapterException {
+        try {
+            if (mappedIndex != null && mappedIndex.isStale()) {
+                logger.debug(() -> csvPath + " changed since it was indexed: indexing it again");
+                resetMappedIndex(mappedIndex);
+            }
+        } catch (IOException e) {
+            throw new DataAdapterException(e);
+        }
+        if (mappedIndex == null && !mappedIndexUnavailable) {
+            mappedIndexUnavailable = true;
+            if (!prefs.memoryMappedIndexEnabled.get()) {
+                return null;
+            }
+            Charset charset = Charset.forName(encoding);
+            if (!MappedCsvIndex.isSupported(charset, delimiter)) {
+                logger.debug(() -> "Cannot use a mapped index for " + csvPath + " with encoding " + encoding +
+                        " and delimiter '" + delimiter + "'");
+                return null;
+            }
+            try (Profiler ignored = Profiler.start("Building sparse index for csv file " + csvPath, logger::perf)) {
+                mappedIndex = MappedCsvIndex.build(csvPath, charset, delimiter,
+                        DateTimeFormatter.ofPattern(dateTimePattern).withZone(zoneId),
+                        prefs.indexStride.get().intValue());
+                mappedIndexUnavailable = false;
+            } catch (MappedCsvIndex.UnsortedRecordsException e) {
+                logger.info("Falling back to in-memory data store for " + csvPath + ": " + e.getMessage());
+            } catch (DateTimeParseException e) {
+                throw new DataAdapterException("Failed to parse time stamp in " + csvPath + ": " + e.getMessage(), e);
+            } catch (IOException e) {
+                throw new DataAdapterException(e);
+            }
+        }
+        return mappedIndex;
+    }
+
+    private synchronized void discardMappedIndex() {
+        closeMappedIndex();
+        mappedIndexUnavailable = true;
+    }
+
+    private synchronized void resetMappedIndex(MappedCsvIndex index) {
+        // Another thread may already have replaced the index
+        if (mappedIndex == index) {
+            closeMappedIndex();
+            mappedIndexUnavailable = false;
+        }
+    }
+
+    private synchronized void closeMappedIndex() {
+        if (mappedIndex != null) {
+            try {
+                mappedIndex.close();
+            } catch (IOException e) {
+                logger.debug(() -> "Error closing mapped csv file", e);
+            }
+            mappedIndex = null;
+        }
+    }
+
     protected ConcurrentNavigableMap<Long, DataSample> getDataStore() throws DataAdapterException {
         if (sortedDataStore == null) {
             try (InputStream in = Files.newInputStream(csvPath)) {
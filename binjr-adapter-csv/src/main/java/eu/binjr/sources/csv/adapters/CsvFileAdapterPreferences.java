@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.sources.csv.adapters;
+
+import eu.binjr.common.preferences.ObservablePreference;
+import eu.binjr.core.data.adapters.DataAdapter;
+import eu.binjr.core.data.adapters.DataAdapterPreferences;
+
+/**
+ * Defines the preferences associated with the CSV file adapter.
+ *
+ * @author Frederic Thevenet
+ */
+public class CsvFileAdapterPreferences extends DataAdapterPreferences {
+
+    /**
+     * True if CSV files sorted in time order should be memory-mapped and parsed on demand, using a sparse index of
+     * record offsets, rather than being fully loaded in memory.
+     */
+    public final ObservablePreference<Boolean> memoryMappedIndexEnabled =
+            booleanPreference("memoryMappedIndexEnabled", true);
+
+    /**
+     * The number of records between two consecutive entries of the sparse index.
+     */
+    public final ObservablePreference<Number> indexStride =
+            integerPreference("indexStride", 64);
+
+    public CsvFileAdapterPreferences(Class<? extends DataAdapter<?>> dataAdapterClass) {
+        super(dataAdapterClass);
+    }
+}
@@ -35,6 +35,7 @@ import eu.binjr.core.preferences.AppEnvironment;
         siteUrl = AppEnvironment.HTTP_WWW_BINJR_EU,
         adapterClass = CsvFileAdapter.class,
         dialogClass = CsvFileAdapterDialog.class,
+        preferencesClass = CsvFileAdapterPreferences.class,
         sourceLocality = SourceLocality.LOCAL,
         apiLevel = AppEnvironment.PLUGIN_API_LEVEL
 )
@@ -0,0 +1,512 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.sources.csv.adapters;
+
+import eu.binjr.common.logging.Logger;
+import eu.binjr.common.text.DoubleParser;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only view over a CSV file whose records are sorted in time order, which locates records by their time
+ * stamp using a sparse index of record offsets and only parses the columns requested for the records that fall
+ * within a given time interval.
+ * <p>
+ * The file is read through positional reads into a page buffer rather than mapped in memory, so that a file which is
+ * truncated or rewritten while indexed results in an {@link IOException} rather than a fault, and so that closing the
+ * index releases the file immediately. An index whose file has changed since it was built should be discarded
+ * (see {@link #isStale()}).
+ * </p>
+ * <p>
+ * The index is built by a single scan of the file, which only splits it into records and parses the time stamp
+ * of one record every {@code stride} records; as such, the memory it requires is proportional to the number of
+ * records divided by the stride, rather than to the size of the file.
+ * </p>
+ * <p>
+ * Records are expected to be ordered by time stamp. Out of order time stamps found between index entries are
+ * only detected when the corresponding records are read, at which point an {@link UnsortedRecordsException} is
+ * thrown; callers are then expected to fall back to an approach that does not make that assumption.
+ * </p>
+ * <p>
+ * Only encodings in which the delimiter, quote and line break characters are encoded as single bytes that cannot
+ * appear as part of a multi-byte sequence are supported (see {@link #isSupported(Charset, char)}).
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+final class MappedCsvIndex implements Closeable {
+    private static final Logger logger = Logger.create(MappedCsvIndex.class);
+    private static final int PAGE_SIZE = 64 * 1024;
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private final Path path;
+    private final Charset charset;
+    private final byte delimiter;
+    private final DateTimeFormatter formatter;
+    private final int stride;
+    private final FileChannel channel;
+    private final long length;
+    private final FileTime lastModified;
+    private final byte[] page = new byte[PAGE_SIZE];
+    private final ByteBuffer pageBuffer = ByteBuffer.wrap(page);
+    private long pageStart = 0;
+    private int pageLength = 0;
+    private long[] indexTimestamps = new long[1024];
+    private long[] indexOffsets = new long[1024];
+    private int indexSize = 0;
+    private long recordCount = 0;
+    private ZonedDateTime firstTimestamp;
+    private ZonedDateTime lastTimestamp;
+
+    /**
+     * Thrown when records are found not to be sorted by time stamp.
+     */
+    static class UnsortedRecordsException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsortedRecordsException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Returns true if files in the specified encoding and using the specified delimiter can be indexed.
+     *
+     * @param charset   the encoding of the file.
+     * @param delimiter the character used to separate fields in a record.
+     * @return true if files in the specified encoding and using the specified delimiter can be indexed.
+     */
+    static boolean isSupported(Charset charset, char delimiter) {
+        if (delimiter > 0x7F || delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            return false;
+        }
+        return charset.equals(StandardCharsets.UTF_8) ||
+                (charset.newEncoder().maxBytesPerChar() == 1.0f &&
+                        Arrays.equals(new String(new char[]{delimiter, '"', '\r', '\n', '0', '.', '-', 'e'}).getBytes(charset),
+                                new byte[]{(byte) delimiter, '"', '\r', '\n', '0', '.', '-', 'e'}));
+    }
+
+    /**
+     * Opens the specified file and builds its index.
+     *
+     * @param path      the path of the file to index.
+     * @param charset   the encoding of the file.
+     * @param delimiter the character used to separate fields in a record.
+     * @param formatter the formatter used to parse the time stamps found in the first column.
+     * @param stride    the number of records between two consecutive index entries.
+     * @return a {@link MappedCsvIndex} instance for the specified file.
+     * @throws IOException              if an I/O error occurs while indexing the file.
+     * @throws UnsortedRecordsException if the records in the file are found not to be sorted by time stamp.
+     * @throws DateTimeParseException   if a time stamp cannot be parsed.
+     */
+    static MappedCsvIndex build(Path path, Charset charset, char delimiter, DateTimeFormatter formatter, int stride)
+            throws IOException, UnsortedRecordsException {
+        MappedCsvIndex index = new MappedCsvIndex(path, charset, delimiter, formatter, stride);
+        try {
+            index.buildIndex();
+            return index;
+        } catch (IOException | UnsortedRecordsException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+    }
+
+    private MappedCsvIndex(Path path, Charset charset, char delimiter, DateTimeFormatter formatter, int stride) throws IOException {
+        this.path = path;
+        this.charset = charset;
+        this.delimiter = (byte) delimiter;
+        this.formatter = formatter;
+        this.stride = Math.max(1, stride);
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.lastModified = Files.getLastModifiedTime(path);
+            this.length = channel.size();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the time stamp of the first record in the file.
+     *
+     * @return the time stamp of the first record in the file, or null if it contains no record.
+     */
+    ZonedDateTime getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    /**
+     * Returns the time stamp of the last record in the file.
+     *
+     * @return the time stamp of the last record in the file, or null if it contains no record.
+     */
+    ZonedDateTime getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Returns the number of records in the file, excluding the header.
+     *
+     * @return the number of records in the file, excluding the header.
+     */
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns true if the size or the last modification time of the file changed since it was indexed.
+     *
+     * @return true if the file changed since it was indexed, false otherwise.
+     * @throws IOException if an I/O error occurs while accessing the file's attributes.
+     */
+    boolean isStale() throws IOException {
+        return channel.size() != length || !Files.getLastModifiedTime(path).equals(lastModified);
+    }
+
+    /**
+     * Reads the values from the specified columns, for the records within the specified interval, as well as the
+     * last record before it and the first one after it.
+     * <p>
+     * Records that share the same time stamp, at a millisecond precision, are collapsed into the last one of them.
+     * Values that cannot be parsed as a number are returned as {@link Double#NaN}.
+     * </p>
+     *
+     * @param begin   the start of the interval.
+     * @param end     the end of the interval.
+     * @param columns the indexes of the columns to read.
+     * @return the values read from each of the requested columns, keyed by their index.
+     * @throws IOException              if an I/O error occurs while reading the file, including if it was truncated.
+     * @throws UnsortedRecordsException if the records read are found not to be sorted by time stamp.
+     * @throws DateTimeParseException   if a time stamp cannot be parsed.
+     */
+    synchronized Map<Integer, DoubleTimeSeriesColumns> read(Instant begin, Instant end, int[] columns)
+            throws IOException, UnsortedRecordsException {
+        long beginMs = begin.toEpochMilli();
+        long endMs = end.toEpochMilli();
+        int[] distinctColumns = Arrays.stream(columns).distinct().toArray();
+        DoubleTimeSeriesColumns[] data = new DoubleTimeSeriesColumns[distinctColumns.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new DoubleTimeSeriesColumns();
+        }
+        // The last index entry at or before the beginning of the interval precedes the record to start from.
+        int entry = Math.max(0, upperBound(beginMs) - 1);
+        long position = indexSize > 0 ? indexOffsets[entry] : length;
+        RecordFields fields = new RecordFields();
+        char[] chars = new char[64];
+        long previousMs = Long.MIN_VALUE;
+        long ceilingMs = Long.MAX_VALUE;
+        int floorRow = -1;
+        int rows = 0;
+        ZoneId zoneId = null;
+        while ((position = readRecord(position, fields)) >= 0) {
+            ZonedDateTime timestamp = parseTimestamp(fields, 0);
+            long ms = timestamp.toInstant().toEpochMilli();
+            if (ms < previousMs) {
+                throw new UnsortedRecordsException("Record at offset " + fields.start(0) + " in " + path +
+                        " is out of time order");
+            }
+            if (ms > ceilingMs) {
+                break;
+            }
+            if (ceilingMs == Long.MAX_VALUE && ms >= endMs) {
+                ceilingMs = ms;
+            }
+            boolean sameMillisecond = ms == previousMs;
+            if (!sameMillisecond) {
+                if (ms <= beginMs) {
+                    floorRow = rows;
+                }
+                rows++;
+            }
+            long epochNanos = DoubleTimeSeriesColumns.toEpochNanos(timestamp);
+            for (int i = 0; i < distinctColumns.length; i++) {
+                if (sameMillisecond) {
+                    data[i].truncate(data[i].size() - 1);
+                }
+                chars = ensureCapacity(chars, fields, distinctColumns[i]);
+                data[i].add(epochNanos, parseValue(fields, distinctColumns[i], chars));
+            }
+            zoneId = timestamp.getZone();
+            previousMs = ms;
+        }
+        Map<Integer, DoubleTimeSeriesColumns> result = new HashMap<>();
+        for (int i = 0; i < distinctColumns.length; i++) {
+            if (floorRow > 0) {
+                data[i].removeRange(0, floorRow);
+            }
+            if (zoneId != null) {
+                data[i].setZoneId(zoneId);
+            }
+            result.put(distinctColumns[i], data[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private synchronized void buildIndex() throws IOException, UnsortedRecordsException {
+        long position = 0;
+        if (length >= UTF8_BOM.length && byteAt(0) == UTF8_BOM[0] && byteAt(1) == UTF8_BOM[1] && byteAt(2) == UTF8_BOM[2]) {
+            position = UTF8_BOM.length;
+        }
+        // Skip header
+        position = readRecord(position, null);
+        if (position < 0) {
+            throw new IOException("CSV file " + path + " does not contain a header");
+        }
+        RecordFields fields = new RecordFields();
+        long lastRecordStart = -1;
+        while (true) {
+            long recordStart = skipLineBreaks(position);
+            if (recordStart >= length) {
+                break;
+            }
+            if (recordCount % stride == 0) {
+                position = readRecord(recordStart, fields);
+                ZonedDateTime timestamp = parseTimestamp(fields, 0);
+                long ms = timestamp.toInstant().toEpochMilli();
+                if (indexSize == 0) {
+                    firstTimestamp = timestamp;
+                } else if (ms < indexTimestamps[indexSize - 1]) {
+                    throw new UnsortedRecordsException("Records in " + path + " are not sorted by time stamp");
+                }
+                addEntry(ms, recordStart);
+            } else {
+                position = readRecord(recordStart, null);
+            }
+            lastRecordStart = recordStart;
+            recordCount++;
+        }
+        if (lastRecordStart >= 0) {
+            readRecord(lastRecordStart, fields);
+            lastTimestamp = parseTimestamp(fields, 0);
+            if (lastTimestamp.toInstant().toEpochMilli() < indexTimestamps[indexSize - 1]) {
+                throw new UnsortedRecordsException("Records in " + path + " are not sorted by time stamp");
+            }
+        }
+        logger.debug(() -> String.format("Indexed %d records from %s with %d index entries", recordCount, path, indexSize));
+    }
+
+    private void addEntry(long timestamp, long offset) {
+        if (indexSize == indexTimestamps.length) {
+            indexTimestamps = Arrays.copyOf(indexTimestamps, indexSize * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+        }
+        indexTimestamps[indexSize] = timestamp;
+        indexOffsets[indexSize] = offset;
+        indexSize++;
+    }
+
+    /**
+     * Returns the index of the first entry whose time stamp is strictly greater than the specified one.
+     */
+    private int upperBound(long timestamp) {
+        int low = 0;
+        int high = indexSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (indexTimestamps[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private byte byteAt(long position) throws IOException {
+        if (position < pageStart || position >= pageStart + pageLength) {
+            loadPage(position);
+        }
+        return page[(int) (position - pageStart)];
+    }
+
+    private void loadPage(long position) throws IOException {
+        pageBuffer.clear();
+        while (pageBuffer.hasRemaining()) {
+            if (channel.read(pageBuffer, position + pageBuffer.position()) < 0) {
+                break;
+            }
+        }
+        pageStart = position;
+        pageLength = pageBuffer.position();
+        if (pageLength == 0) {
+            throw new IOException("Unexpected end of file at offset " + position + " in " + path +
+                    ": the file was modified after it was indexed");
+        }
+    }
+
+    private long skipLineBreaks(long position) throws IOException {
+        while (position < length) {
+            byte b = byteAt(position);
+            if (b != CR && b != LF) {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Reads the record that starts at or after the specified position, skipping empty lines.
+     *
+     * @return the position following the record, or -1 if the end of the file was reached before a record was found.
+     */
+    private long readRecord(long position, RecordFields fields) throws IOException {
+        position = skipLineBreaks(position);
+        if (position >= length) {
+            return -1;
+        }
+        if (fields != null) {
+            fields.clear();
+        }
+        while (true) {
+            long fieldStart = position;
+            long fieldEnd;
+            if (position < length && byteAt(position) == QUOTE) {
+                fieldStart = ++position;
+                while (position < length) {
+                    if (byteAt(position) == QUOTE) {
+                        if (position + 1 < length && byteAt(position + 1) == QUOTE) {
+                            position++;
+                        } else {
+                            break;
+                        }
+                    }
+                    position++;
+                }
+                fieldEnd = position;
+                position = skipToFieldEnd(Math.min(position + 1, length));
+            } else {
+                position = skipToFieldEnd(position);
+                fieldEnd = position;
+            }
+            if (fields != null) {
+                fields.add(fieldStart, fieldEnd);
+            }
+            if (position < length && byteAt(position) == delimiter) {
+                position++;
+            } else {
+                return position;
+            }
+        }
+    }
+
+    private long skipToFieldEnd(long position) throws IOException {
+        while (position < length) {
+            byte b = byteAt(position);
+            if (b == delimiter || b == CR || b == LF) {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private ZonedDateTime parseTimestamp(RecordFields fields, int column) throws IOException {
+        if (column >= fields.count) {
+            throw new DateTimeParseException("Missing time stamp column", "", 0);
+        }
+        long start = fields.start(column);
+        byte[] bytes = new byte[(int) (fields.end(column) - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteAt(start + i);
+        }
+        return ZonedDateTime.parse(new String(bytes, charset), formatter);
+    }
+
+    private static char[] ensureCapacity(char[] chars, RecordFields fields, int column) {
+        if (column < fields.count) {
+            int len = (int) (fields.end(column) - fields.start(column));
+            if (len > chars.length) {
+                return new char[Math.max(len, chars.length * 2)];
+            }
+        }
+        return chars;
+    }
+
+    private double parseValue(RecordFields fields, int column, char[] chars) throws IOException {
+        if (column >= fields.count) {
+            return Double.NaN;
+        }
+        long start = fields.start(column);
+        int len = (int) (fields.end(column) - start);
+        for (int i = 0; i < len; i++) {
+            // Any non ASCII character makes the field unparsable as a number anyway
+            chars[i] = (char) (byteAt(start + i) & 0xFF);
+        }
+        try {
+            return DoubleParser.parse(chars, 0, len);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Holds the boundaries, in the file, of the fields of a record.
+     */
+    private static final class RecordFields {
+        private long[] bounds = new long[32];
+        private int count = 0;
+
+        void clear() {
+            count = 0;
+        }
+
+        void add(long start, long end) {
+            if (count * 2 == bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[count * 2] = start;
+            bounds[count * 2 + 1] = end;
+            count++;
+        }
+
+        long start(int field) {
+            return bounds[field * 2];
+        }
+
+        long end(int field) {
+            return bounds[field * 2 + 1];
+        }
+    }
+}
@@ -157,6 +157,17 @@ public class JrdsDataAdapter extends HttpDataAdapter<Double> {
         );
     }
 
+    @Override
+    protected boolean isChunkCachingSupported() {
+        // RRD consolidation makes the resolution of the returned data depend on the requested interval
+        return false;
+    }
+
+    @Override
+    protected boolean isPersistentCachingSupported() {
+        return false;
+    }
+
     @Override
     public String getSourceName() {
         return new StringBuilder("[JRDS] ")
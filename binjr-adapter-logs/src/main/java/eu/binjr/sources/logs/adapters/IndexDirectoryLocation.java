@@ -19,5 +19,6 @@ package eu.binjr.sources.logs.adapters;
 public enum IndexDirectoryLocation {
     AUTO,
     MEMORY,
-    FILES_SYSTEM
+    FILES_SYSTEM,
+    PERSISTENT
 }
@@ -22,6 +22,8 @@ import eu.binjr.common.preferences.ObservablePreference;
 import eu.binjr.core.data.adapters.DataAdapter;
 import eu.binjr.core.data.adapters.DataAdapterPreferences;
 
+import java.nio.file.Path;
+
 public class LogsAdapterPreferences extends DataAdapterPreferences {
     private static final Gson gson = new Gson();
 
@@ -57,14 +59,27 @@ public class LogsAdapterPreferences extends DataAdapterPreferences {
 
     public ObservablePreference<Number> hitsPerPage = integerPreference("hitsPerPage", 10000);
 
+    public ObservablePreference<Number> timelineMaxBuckets = integerPreference("timelineMaxBuckets", 250);
+
+    public ObservablePreference<Number> searchResultsCacheCapacity = integerPreference("searchResultsCacheCapacity", 16);
+
     public ObservablePreference<IndexDirectoryLocation> indexDirectoryLocation =
             enumPreference(IndexDirectoryLocation.class, "indexDirectoryLocation", IndexDirectoryLocation.MEMORY );
 
+    public ObservablePreference<Path> persistentIndexLocation =
+            pathPreference("persistentIndexLocation", Path.of(System.getProperty("user.home"), ".binjr", "logs-index"));
+
+    public ObservablePreference<Number> persistentIndexMaxSizeMB = integerPreference("persistentIndexMaxSizeMB", 4096);
+
     public ObservablePreference<Number> parsingThreadNumber = integerPreference("parsingThreadNumber", 0);
 
-    public ObservablePreference<Number> blockingQueueCapacity = integerPreference("blockingQueueCapacity", 10000);
+    public ObservablePreference<Number> concurrentIndexedFiles = integerPreference("concurrentIndexedFiles", 4);
+
+    public ObservablePreference<Number> parsingChunkSizeKB = integerPreference("parsingChunkSizeKB", 1024);
+
+    public ObservablePreference<Boolean> followFileChanges = booleanPreference("followFileChanges", true);
 
-    public ObservablePreference<Number> parsingThreadDrainSize = integerPreference("parsingThreadDrainSize", 512);
+    public ObservablePreference<Number> followPollingIntervalMs = integerPreference("followPollingIntervalMs", 1000);
 
     public LogsAdapterPreferences(Class<? extends DataAdapter<?>> dataAdapterClass) {
         super(dataAdapterClass);
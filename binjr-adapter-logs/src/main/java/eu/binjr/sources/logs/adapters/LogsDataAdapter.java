@@ -18,8 +18,9 @@ package eu.binjr.sources.logs.adapters;
 
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import eu.binjr.common.cache.LRUMapCapacityBound;
 import eu.binjr.common.concurrent.ReadWriteLockHelper;
-import eu.binjr.common.function.CheckedLambdas;
 import eu.binjr.common.io.FileSystemBrowser;
 import eu.binjr.common.io.IOUtils;
 import eu.binjr.common.javafx.controls.TimeRange;
@@ -35,6 +36,7 @@ import eu.binjr.core.data.exceptions.CannotInitializeDataAdapterException;
 import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.core.data.timeseries.FacetEntry;
 import eu.binjr.core.data.timeseries.LogEvent;
+import eu.binjr.core.data.timeseries.LogEventsHistogram;
 import eu.binjr.core.data.timeseries.LogEventsProcessor;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
@@ -44,29 +46,31 @@ import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
 import org.apache.lucene.facet.*;
 import org.apache.lucene.facet.taxonomy.TaxonomyReader;
-import org.apache.lucene.facet.taxonomy.TaxonomyWriter;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyReader;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.*;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.eclipse.fx.ui.controls.tree.FilterableTreeItem;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -94,13 +98,14 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
     public static final String LOGGER = "logger";
     public static final String FACET_FIELD = "facets";
     public static final String MESSAGE = "message";
+    private static final int INDEX_SCHEMA_VERSION = 2;
     protected final LogsAdapterPreferences prefs = (LogsAdapterPreferences) getAdapterInfo().getPreferences();
     private LogFileIndex index;
     protected Path rootPath;
     private FileSystemBrowser fileBrowser;
     private String[] folderFilters;
     private String[] fileExtensionsFilters;
-    private final Set<String> indexedFiles = new HashSet<>();
+    private final Map<String, CompletableFuture<Void>> indexingTasks = new ConcurrentHashMap<>();
     private final BinaryPrefixFormatter binaryPrefixFormatter = new BinaryPrefixFormatter("###,###.## ");
 
     /**
@@ -240,18 +245,56 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
         }
     }
 
-    private synchronized void ensureIndexed(List<TimeSeriesInfo<LogEvent>> seriesInfo) throws IOException {
-        var toDo = seriesInfo.stream()
+    private void ensureIndexed(List<TimeSeriesInfo<LogEvent>> seriesInfo) throws IOException {
+        var tasks = new LinkedHashMap<String, CompletableFuture<Void>>();
+        seriesInfo.stream()
                 .map(s -> s.getBinding().getPath())
-                .filter(p -> !indexedFiles.contains(p))
-                .collect(Collectors.toList());
-        for (int i = 0; i < toDo.size(); i++) {
-            String path = toDo.get(i);
-            index.add(path, fileBrowser.getData(path), (i == toDo.size() - 1));
-            indexedFiles.add(path);
+                .distinct()
+                .forEach(path -> tasks.put(path, indexingTasks.computeIfAbsent(path,
+                        p -> CompletableFuture.runAsync(() -> indexFile(p), index.getIndexingThreadPool()))));
+        for (var entry : tasks.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + entry.getKey() + " to be indexed");
+            } catch (ExecutionException e) {
+                // Forget about the failed attempt so that the file can be indexed again later
+                indexingTasks.remove(entry.getKey(), entry.getValue());
+                var cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+                throw new IOException("Error indexing " + entry.getKey() + ": " + cause.getMessage(), cause);
+            }
         }
     }
 
+    private void indexFile(String path) {
+        try {
+            String fingerprint = null;
+            if (index.isPersistent()) {
+                fingerprint = PersistentIndexStore.fingerprint(fileBrowser.resolve(path));
+                if (index.isUpToDate(path, fingerprint)) {
+                    logger.debug(() -> "Reusing persisted index for " + path);
+                    index.follow(path);
+                    return;
+                }
+            }
+            index.add(path, fileBrowser.getData(path), fingerprint);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String getIndexKey() {
+        return String.join("|",
+                Integer.toString(INDEX_SCHEMA_VERSION),
+                rootPath.toAbsolutePath().normalize().toString(),
+                getTimeZoneId().getId(),
+                prefs.timestampPattern.get(),
+                prefs.severityPattern.get(),
+                prefs.threadPattern.get(),
+                prefs.loggerPattern.get());
+    }
+
     @Override
     public Map<TimeSeriesInfo<LogEvent>, TimeSeriesProcessor<LogEvent>> fetchData(String path,
                                                                                   Instant start,
@@ -266,7 +309,7 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
             var params = (LogQueryParameters) gson.fromJson(path, LogQueryParameters.class);
             facets.put(SEVERITY, params.getSeverities());
             var proc = (seriesInfo.size() == 0) ? new LogEventsProcessor() :
-                    index.search(start.toEpochMilli(), end.toEpochMilli(), facets, params.getFilterQuery(), params.getPage());
+                    index.search(start.toEpochMilli(), end.toEpochMilli(), facets, params.getFilterQuery(), params.getPage(), params.getPageCursor(), bypassCache);
             data.put(null, proc);
         } catch (Exception e) {
             throw new DataAdapterException("Error fetching logs from " + path, e);
@@ -367,10 +410,91 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
         }
     }
 
+    /**
+     * The position in a file from which indexing resumes when content is appended to it: the start of the last log
+     * event, which may still be followed by more lines, along with the length of the file when it was last indexed.
+     */
+    private static class TailPosition {
+        private static final TailPosition START = new TailPosition(0, 1, 0);
+        private final long offset;
+        private final int lineNumber;
+        private final long length;
+
+        private TailPosition(long offset, int lineNumber, long length) {
+            this.offset = offset;
+            this.lineNumber = lineNumber;
+            this.length = length;
+        }
+
+        private static TailPosition parse(String value) {
+            var values = value.split(",");
+            return new TailPosition(Long.parseLong(values[0]), Integer.parseInt(values[1]), Long.parseLong(values[2]));
+        }
+
+        @Override
+        public String toString() {
+            return offset + "," + lineNumber + "," + length;
+        }
+    }
+
+    /**
+     * The position of the first hit of a page of search results, from which other pages of the same results can be
+     * reached.
+     */
+    private static class PageCursor {
+        private final String resultsKey;
+        private final int position;
+        private final long timestamp;
+        private final long lineNumber;
+        private final String path;
+
+        private PageCursor(String resultsKey, int position, FieldDoc hit) {
+            this.resultsKey = resultsKey;
+            this.position = position;
+            this.timestamp = (Long) hit.fields[0];
+            this.lineNumber = (Long) hit.fields[1];
+            this.path = ((BytesRef) hit.fields[2]).utf8ToString();
+        }
+
+        private static String makeResultsKey(long start, long end, Map<String, Collection<String>> facets, String query) {
+            return start + "|" + end + "|" + (query == null ? "" : query.strip()) + "|" + facets.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(e -> e.getKey() + "=" + e.getValue().stream().sorted().collect(Collectors.joining(",")))
+                    .collect(Collectors.joining(";"));
+        }
+
+        private static PageCursor decode(String value, String resultsKey) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                var cursor = gson.fromJson(value, PageCursor.class);
+                // A cursor is only relevant to the results it was obtained from
+                return cursor != null && resultsKey.equals(cursor.resultsKey) ? cursor : null;
+            } catch (JsonParseException e) {
+                logger.debug(() -> "Ignoring invalid page cursor: " + value, e);
+                return null;
+            }
+        }
+
+        private String encode() {
+            return gson.toJson(this);
+        }
+
+        /**
+         * Returns a {@link FieldDoc} to collect hits after, whose doc id places it either before or after any hit with
+         * the same sort values, since the sort values of a hit are unique but its doc id might have changed.
+         */
+        private FieldDoc toFieldDoc(boolean inclusive) {
+            return new FieldDoc(inclusive ? -1 : Integer.MAX_VALUE, Float.NaN, new Object[]{timestamp, lineNumber, new BytesRef(path)});
+        }
+    }
+
     private class LogFileIndex implements Closeable {
+        private static final String TAIL_KEY_PREFIX = "#tail#";
         private final Directory indexDirectory;
         private final Directory taxonomyDirectory;
-        private final TaxonomyWriter taxonomyWriter;
+        private final DirectoryTaxonomyWriter taxonomyWriter;
         private TaxonomyReader taxonomyReader;
         private DirectoryReader indexReader;
         private IndexSearcher searcher;
@@ -378,11 +502,21 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
         private final FacetsConfig facetsConfig;
         private final Pattern payloadPattern;
         private final Pattern timestampPattern;
-        private final DateTimeFormatter dateTimeFormatter;
         private final Path indexDirectoryPath;
+        private final boolean persistent;
+        private final Map<String, String> fileFingerprints = new ConcurrentHashMap<>();
+        private final Map<String, TailPosition> tailPositions = new ConcurrentHashMap<>();
+        // Files opened in this session, whose changes are followed
+        private final Set<String> followedPaths = ConcurrentHashMap.newKeySet();
+        // Serializes the indexing of each file, so that content is never indexed twice
+        private final Map<String, Object> pathLocks = new ConcurrentHashMap<>();
         private final ReadWriteLockHelper indexLock = new ReadWriteLockHelper(new ReentrantReadWriteLock());
         private final ExecutorService parsingThreadPool;
+        private final ExecutorService indexingThreadPool;
         private final int parsingThreadsNumber;
+        private final AtomicInteger pendingFiles = new AtomicInteger(0);
+        private final ScheduledExecutorService followExecutor;
+        private final Map<String, LogEventsProcessor> resultsCache;
 
         public LogFileIndex() throws IOException {
             this.parsingThreadsNumber = prefs.parsingThreadNumber.get().intValue() < 1 ?
@@ -394,6 +528,13 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
                 thread.setName("parsing-thread-" + threadNum.incrementAndGet());
                 return thread;
             });
+            AtomicInteger indexingThreadNum = new AtomicInteger(0);
+            this.indexingThreadPool = Executors.newFixedThreadPool(Math.max(1, prefs.concurrentIndexedFiles.get().intValue()), r -> {
+                Thread thread = new Thread(r);
+                thread.setName("indexing-thread-" + indexingThreadNum.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
 
             this.payloadPattern = Pattern.compile(
                     String.format("\\[\\s?(?<severity>%s)\\s?\\]\\s+\\[(?<thread>%s)\\]\\s+\\[(?<logger>%s)\\]",
@@ -403,13 +544,34 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
                     ));
             this.timestampPattern = Pattern.compile(prefs.timestampPattern.get());
             logger.debug(() -> "Log parsing regexp: " + payloadPattern);
-            this.dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy MM dd HH mm ss SSS").withZone(getTimeZoneId());
-            switch (prefs.indexDirectoryLocation.get()) {
+            var indexLocation = prefs.indexDirectoryLocation.get();
+            Path persistentPath = null;
+            if (indexLocation == IndexDirectoryLocation.PERSISTENT) {
+                persistentPath = PersistentIndexStore.resolve(prefs.persistentIndexLocation.get(), getIndexKey());
+                if (PersistentIndexStore.isInUse(persistentPath)) {
+                    logger.warn("Persistent index at " + persistentPath +
+                            " is already in use: falling back to a temporary index on the file system");
+                    indexLocation = IndexDirectoryLocation.FILES_SYSTEM;
+                }
+            }
+            switch (indexLocation) {
                 case MEMORY:
                     indexDirectory = new ByteBuffersDirectory();
                     taxonomyDirectory = new ByteBuffersDirectory();
                     logger.debug("Lucene lucene directory stored on the Java Heap");
                     indexDirectoryPath = null;
+                    persistent = false;
+                    break;
+                case PERSISTENT:
+                    // Mark the index as recently used first, so that enforcing the quota doesn't evict it
+                    PersistentIndexStore.touch(persistentPath, rootPath.toString());
+                    PersistentIndexStore.enforceQuota(prefs.persistentIndexLocation.get(),
+                            prefs.persistentIndexMaxSizeMB.get().longValue() * 1024 * 1024);
+                    indexDirectoryPath = persistentPath;
+                    indexDirectory = FSDirectory.open(indexDirectoryPath.resolve(PersistentIndexStore.INDEX_FOLDER));
+                    taxonomyDirectory = FSDirectory.open(indexDirectoryPath.resolve(PersistentIndexStore.TAXONOMY_FOLDER));
+                    persistent = true;
+                    logger.debug("Lucene lucene directory persisted at " + indexDirectoryPath);
                     break;
                 default:
                 case FILES_SYSTEM:
@@ -419,22 +581,53 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
                     indexDirectoryPath = Files.createTempDirectory("binjr-logs-index_");
                     indexDirectory = FSDirectory.open(indexDirectoryPath.resolve("index"));
                     taxonomyDirectory = FSDirectory.open(indexDirectoryPath.resolve("taxonomy"));
+                    persistent = false;
                     logger.debug("Lucene lucene directory stored at " + indexDirectoryPath);
                     if (indexDirectory instanceof MMapDirectory) {
                         logger.debug("Use unmap:" + ((MMapDirectory) indexDirectory).getUseUnmap());
                     }
             }
             IndexWriterConfig iwc = new IndexWriterConfig(new StandardAnalyzer());
-            iwc.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+            iwc.setOpenMode(persistent ? IndexWriterConfig.OpenMode.CREATE_OR_APPEND : IndexWriterConfig.OpenMode.CREATE);
             this.indexWriter = new IndexWriter(indexDirectory, iwc);
             this.taxonomyWriter = new DirectoryTaxonomyWriter(taxonomyDirectory);
+            if (persistent) {
+                // Fingerprints of the files indexed in previous sessions are stored alongside the last commit
+                var commitData = indexWriter.getLiveCommitData();
+                if (commitData != null) {
+                    commitData.forEach(e -> {
+                        if (e.getKey().startsWith(TAIL_KEY_PREFIX)) {
+                            tailPositions.put(e.getKey().substring(TAIL_KEY_PREFIX.length()), TailPosition.parse(e.getValue()));
+                        } else {
+                            fileFingerprints.put(e.getKey(), e.getValue());
+                        }
+                    });
+                }
+                logger.debug(() -> "Persistent index contains " + fileFingerprints.size() + " file(s)");
+            }
+            this.resultsCache = Collections.synchronizedMap(
+                    new LRUMapCapacityBound<>(Math.max(0, prefs.searchResultsCacheCapacity.get().intValue())));
+            // Readers are opened from the writers, so that they can be refreshed without committing
             indexReader = DirectoryReader.open(indexWriter);
+            taxonomyReader = new DirectoryTaxonomyReader(taxonomyWriter);
             searcher = new IndexSearcher(indexReader);
             facetsConfig = new FacetsConfig();
             facetsConfig.setRequireDimCount(SEVERITY, true);
             facetsConfig.setRequireDimensionDrillDown(PATH, true);
             facetsConfig.setRequireDimCount(PATH, true);
             facetsConfig.setRequireDimensionDrillDown(PATH, true);
+            if (prefs.followFileChanges.get()) {
+                this.followExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r);
+                    thread.setName("log-follow-thread");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long interval = Math.max(100, prefs.followPollingIntervalMs.get().longValue());
+                followExecutor.scheduleWithFixedDelay(this::pollFollowedFiles, interval, interval, TimeUnit.MILLISECONDS);
+            } else {
+                this.followExecutor = null;
+            }
             logger.debug(() -> "New indexer initialized at " + indexDirectoryPath +
                     " using " + parsingThreadsNumber + " parsing indexing threads");
             logger.debug(() -> facetsConfig.getDimConfigs().entrySet().stream()
@@ -447,131 +640,355 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
                     .collect(Collectors.joining("\n")));
         }
 
+        public boolean isPersistent() {
+            return persistent;
+        }
+
+        public boolean isUpToDate(String path, String fingerprint) {
+            return fingerprint.equals(fileFingerprints.get(path));
+        }
+
+        public ExecutorService getIndexingThreadPool() {
+            return indexingThreadPool;
+        }
+
+        /**
+         * Marks a file whose index was recovered from a previous session as opened in the current one, so that
+         * content appended to it is indexed as it comes.
+         *
+         * @param path the path of the file.
+         */
+        public void follow(String path) {
+            followedPaths.add(path);
+        }
+
+        private Object getPathLock(String path) {
+            return pathLocks.computeIfAbsent(path, p -> new Object());
+        }
+
         public void add(String path, InputStream ias) throws IOException {
-            add(path, ias, true);
-        }
-
-        public void add(String path, InputStream ias, boolean commit) throws IOException {
-            try (Profiler ignored = Profiler.start("Indexing " + path, logger::perf)) {
-                var n = new AtomicInteger(0);
-                var builder = new ParsedLogEvent.LogEventBuilder(timestampPattern);
-                try (Profiler p = Profiler.start(e -> logger.perf("Parsed and indexed " + n.get() + " lines: " + e.toMilliString()))) {
-                    final AtomicLong nbLogEvents = new AtomicLong(0);
-                    final AtomicBoolean taskDone = new AtomicBoolean(false);
-                    final AtomicBoolean taskAborted = new AtomicBoolean(false);
-                    final ArrayBlockingQueue<ParsedLogEvent> queue = new ArrayBlockingQueue<>(prefs.blockingQueueCapacity.get().intValue());
-                    final List<Future<Integer>> results = new ArrayList<>();
-                    for (int i = 0; i < parsingThreadsNumber; i++) {
-                        results.add(parsingThreadPool.submit(() -> {
-                            logger.trace(() -> "Starting parsing worker on thread " + Thread.currentThread().getName());
-                            int nbEventProcessed = 0;
-                            do {
-                                List<ParsedLogEvent> todo = new ArrayList<>();
-                                var drained = queue.drainTo(todo, prefs.parsingThreadDrainSize.get().intValue());
-                                if (drained == 0 && queue.size() == 0) {
-                                    // Park the thread for a while before polling again
-                                    // as is it likely that producer is done.
-                                    try {
-                                        Thread.sleep(100);
-                                    } catch (InterruptedException e) {
-                                        Thread.currentThread().interrupt();
-                                    }
-                                }
-                                try {
-                                    for (var logEvent : todo) {
-                                        addLogEvent(path, logEvent);
-                                        nbEventProcessed++;
-                                    }
-                                } catch (Throwable t) {
-                                    // Signal that worker thread was aborted and rethrow
-                                    taskAborted.set(true);
-                                    throw t;
-                                }
-                            } while (!taskDone.get() && !taskAborted.get() && !Thread.currentThread().isInterrupted());
-                            return nbEventProcessed;
-                        }));
+            add(path, ias, null);
+        }
+
+        /**
+         * Indexes the content of a file, which becomes searchable as soon as it is done, while other files may still
+         * be being indexed.
+         * Persistent indexes are committed once no more files are being indexed.
+         *
+         * @param path        the path of the file.
+         * @param ias         the content of the file.
+         * @param fingerprint the fingerprint of the file, recorded in persistent indexes.
+         * @throws IOException if an error occurs while indexing the file.
+         */
+        public void add(String path, InputStream ias, String fingerprint) throws IOException {
+            synchronized (getPathLock(path)) {
+                addInternal(path, ias, fingerprint);
+                followedPaths.add(path);
+            }
+        }
+
+        private void addInternal(String path, InputStream ias, String fingerprint) throws IOException {
+            pendingFiles.incrementAndGet();
+            try (Profiler ignored = Profiler.start("Indexing " + path, logger::perf); InputStream in = ias) {
+                if (persistent) {
+                    // Discard any content previously indexed for an earlier version of the file
+                    fileFingerprints.remove(path);
+                    indexWriter.deleteDocuments(new Term(PATH, path));
+                }
+                tailPositions.remove(path);
+                final AtomicLong nbLogEvents = new AtomicLong(0);
+                TailPosition tail;
+                try (Profiler p = Profiler.start(e -> logger.perf("Parsed and indexed " + nbLogEvents.get() + " log events: " + e.toMilliString()))) {
+                    tail = parseAndIndex(path, in, TailPosition.START, nbLogEvents);
+                }
+                tailPositions.put(path, tail);
+                if (persistent && fingerprint != null) {
+                    fileFingerprints.put(path, fingerprint);
+                }
+                refreshReaders();
+            } finally {
+                if (pendingFiles.decrementAndGet() == 0 && persistent) {
+                    commit();
+                }
+            }
+        }
+
+        /**
+         * Indexes the content appended to a file since it was last indexed.
+         * <p>
+         * Indexing resumes from the start of the last log event previously found in the file, since more lines may
+         * have been appended to it; the documents for that event are replaced. The cost of an update is therefore
+         * proportional to the amount of new content, regardless of the size of the file.
+         * If the file is found to be shorter than when it was last indexed, it is indexed again from the start.
+         * </p>
+         *
+         * @param path the path of the file.
+         * @param file the location of the file on the file system.
+         * @return true if new content was indexed, false otherwise.
+         * @throws IOException if an error occurs while indexing the file.
+         */
+        private boolean update(String path, Path file) throws IOException {
+            synchronized (getPathLock(path)) {
+                return updateInternal(path, file);
+            }
+        }
+
+        private boolean updateInternal(String path, Path file) throws IOException {
+            var tail = tailPositions.get(path);
+            if (tail == null || Files.size(file) == tail.length) {
+                return false;
+            }
+            var fingerprint = persistent ? PersistentIndexStore.fingerprint(file) : null;
+            pendingFiles.incrementAndGet();
+            try (Profiler ignored = Profiler.start("Updating index for " + path, logger::perf);
+                 var channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+                fileFingerprints.remove(path);
+                if (channel.size() < tail.length) {
+                    logger.debug(() -> path + " was truncated: indexing it again");
+                    indexWriter.deleteDocuments(new Term(PATH, path));
+                    tail = TailPosition.START;
+                } else {
+                    indexWriter.deleteDocuments(new BooleanQuery.Builder()
+                            .add(new TermQuery(new Term(PATH, path)), BooleanClause.Occur.FILTER)
+                            .add(LongPoint.newRangeQuery(LINE_NUMBER, tail.lineNumber, Long.MAX_VALUE), BooleanClause.Occur.FILTER)
+                            .build());
+                }
+                channel.position(tail.offset);
+                final AtomicLong nbLogEvents = new AtomicLong(0);
+                tailPositions.put(path, parseAndIndex(path, Channels.newInputStream(channel), tail, nbLogEvents));
+                logger.trace(() -> "Indexed " + nbLogEvents.get() + " log events from " + path);
+                if (fingerprint != null) {
+                    fileFingerprints.put(path, fingerprint);
+                }
+                refreshReaders();
+                return true;
+            } finally {
+                if (pendingFiles.decrementAndGet() == 0 && persistent) {
+                    commit();
+                }
+            }
+        }
+
+        private void pollFollowedFiles() {
+            boolean changed = false;
+            for (var path : followedPaths) {
+                try {
+                    var file = fileBrowser.resolve(path);
+                    // Only files on the default file system (i.e. not within an archive) can grow
+                    if (file.getFileSystem() == FileSystems.getDefault() && Files.exists(file)) {
+                        changed |= update(path, file);
                     }
-                    try (var reader = new BufferedReader(new InputStreamReader(ias, StandardCharsets.UTF_8))) {
-                        String line;
-                        while ((line = reader.readLine()) != null && !taskAborted.get()) {
-                            var optLog = builder.build(n.incrementAndGet(), line);
-                            if (optLog.isPresent()) {
-                                queue.put(optLog.get());
-                            }
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
+                } catch (InterruptedIOException | ClosedByInterruptException e) {
+                    return;
+                } catch (Exception e) {
+                    logger.error("Error updating index for " + path + ": " + e.getMessage());
+                    logger.debug(() -> "Stack trace", e);
+                }
+            }
+            if (changed) {
+                notifyDataChanged();
+            }
+        }
+
+        private synchronized void commit() throws IOException {
+            try (Profiler p = Profiler.start("Commit index", logger::perf)) {
+                taxonomyWriter.commit();
+                var commitData = new HashMap<>(fileFingerprints);
+                tailPositions.forEach((path, tail) -> {
+                    if (commitData.containsKey(path)) {
+                        commitData.put(TAIL_KEY_PREFIX + path, tail.toString());
                     }
-                    while (!taskAborted.get() && queue.size() > 0) {
-                        try {
-                            Thread.sleep(200);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
+                });
+                indexWriter.setLiveCommitData(commitData.entrySet());
+                indexWriter.commit();
+            }
+        }
+
+        private void refreshReaders() throws IOException {
+            indexLock.write().lock(() -> {
+                try (Profiler p = Profiler.start("Refresh index reader and searcher", logger::perf)) {
+                    // Refresh the index reader first, so that the taxonomy is never older than the index.
+                    var updatedReader = DirectoryReader.openIfChanged(indexReader);
+                    if (updatedReader != null) {
+                        this.indexReader.close();
+                        this.indexReader = updatedReader;
+                        this.searcher = new IndexSearcher(indexReader);
+                    }
+                    var updatedTaxoReader = DirectoryTaxonomyReader.openIfChanged(taxonomyReader);
+                    if (updatedTaxoReader != null) {
+                        this.taxonomyReader.close();
+                        this.taxonomyReader = updatedTaxoReader;
+                    }
+                    // Cached results no longer reflect the content of the index
+                    if (updatedReader != null || updatedTaxoReader != null) {
+                        resultsCache.clear();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Splits the content of the provided stream into chunks that start at the beginning of a log event and hands
+         * them over to the parsing threads, which each parse and index their chunk independently.
+         * <p>
+         * The number of chunks in flight is bounded to twice the number of parsing threads, so that reading the stream
+         * never gets too far ahead of parsing.
+         * </p>
+         *
+         * @param path        the path of the file.
+         * @param in          the content of the file, from the provided starting position onward.
+         * @param from        the position in the file at which the stream starts.
+         * @param nbLogEvents the number of log events indexed.
+         * @return the position from which to resume indexing if content is appended to the file.
+         */
+        private TailPosition parseAndIndex(String path, InputStream in, TailPosition from, AtomicLong nbLogEvents) throws IOException {
+            final int chunkSize = Math.max(64, prefs.parsingChunkSizeKB.get().intValue()) * 1024;
+            final Semaphore chunksInFlight = new Semaphore(parsingThreadsNumber * 2);
+            final AtomicBoolean taskAborted = new AtomicBoolean(false);
+            final List<Future<Integer>> results = new ArrayList<>();
+            try {
+                byte[] buffer = new byte[chunkSize];
+                int length = 0;
+                int firstLine = from.lineNumber;
+                long position = from.offset;
+                var tail = new TailPosition(from.offset, from.lineNumber, from.offset);
+                boolean endOfStream = false;
+                while (!endOfStream && !taskAborted.get()) {
+                    int requested = buffer.length - length;
+                    int read = in.readNBytes(buffer, length, requested);
+                    length += read;
+                    endOfStream = read < requested;
+                    int boundary = endOfStream ? length : findChunkBoundary(buffer, length);
+                    if (boundary <= 0) {
+                        if (!endOfStream) {
+                            // A single event is larger than the buffer: grow it until the event fits.
+                            buffer = Arrays.copyOf(buffer, buffer.length * 2);
                         }
+                        continue;
+                    }
+                    if (endOfStream) {
+                        // Remember where the last event starts, since it may be continued by lines appended later.
+                        int lastEvent = Math.max(0, findChunkBoundary(buffer, length));
+                        tail = new TailPosition(position + lastEvent, firstLine + countLines(buffer, lastEvent), position + length);
                     }
-                    taskDone.set(true);
-                    for (Future<Integer> f : results) {
-                        //signal exceptions that may have happened on thread pool
+                    final byte[] chunk = buffer;
+                    final int chunkLength = boundary;
+                    final int chunkFirstLine = firstLine;
+                    chunksInFlight.acquire();
+                    results.add(parsingThreadPool.submit(() -> {
                         try {
-                            logger.trace("Thread added " + f.get() + " log event to index");
-                            nbLogEvents.addAndGet(f.get());
-                        } catch (InterruptedException e) {
-                            logger.error("Getting result from worker was interrupted", e);
-                        } catch (Exception e) {
-                            //rethrow execution exceptions
-                            throw new IOException("Error parsing logEvent", e);
+                            int nbEvents = parseChunk(path, chunk, chunkLength, chunkFirstLine);
+                            nbLogEvents.addAndGet(nbEvents);
+                            return nbEvents;
+                        } catch (Throwable t) {
+                            taskAborted.set(true);
+                            throw t;
+                        } finally {
+                            chunksInFlight.release();
                         }
-                    }
-                    // Don't forget the last log line buffered in the builder
-                    builder.getLast().ifPresent(CheckedLambdas.wrap(line -> {
-                        addLogEvent(path, line);
                     }));
+                    firstLine += countLines(chunk, chunkLength);
+                    position += chunkLength;
+                    buffer = new byte[Math.max(chunkSize, length - boundary)];
+                    System.arraycopy(chunk, boundary, buffer, 0, length - boundary);
+                    length -= boundary;
                 }
-                if (commit) {
-                    indexLock.write().lock(() -> {
-                        try (Profiler p = Profiler.start("Commit index", logger::perf)) {
-                            taxonomyWriter.commit();
-                            indexWriter.commit();
-                        }
-                        try (Profiler p = Profiler.start("Refresh index reader and searcher", logger::perf)) {
-                            var updatedReader = DirectoryReader.openIfChanged(indexReader);
-                            if (updatedReader != null) {
-                                this.indexReader.close();
-                                this.indexReader = updatedReader;
-                                this.searcher = new IndexSearcher(indexReader);
-                            }
-                            if (taxonomyReader == null) {
-                                taxonomyReader = new DirectoryTaxonomyReader(taxonomyDirectory);
-                            } else {
-                                var updatedTaxoReader = DirectoryTaxonomyReader.openIfChanged(taxonomyReader);
-                                if (updatedTaxoReader != null) {
-                                    this.taxonomyReader.close();
-                                    this.taxonomyReader = updatedTaxoReader;
-                                }
-                            }
-                        }
-                    });
+                for (Future<Integer> f : results) {
+                    int nbEvents = f.get();
+                    logger.trace(() -> "Worker added " + nbEvents + " log events to index");
+                }
+                return tail;
+            } catch (InterruptedException e) {
+                results.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Indexing of " + path + " was interrupted");
+            } catch (ExecutionException e) {
+                results.forEach(f -> f.cancel(true));
+                throw new IOException("Error parsing logEvent", e.getCause());
+            }
+        }
+
+        private int parseChunk(String path, byte[] chunk, int length, int firstLine) throws IOException {
+            var builder = new ParsedLogEvent.LogEventBuilder(timestampPattern);
+            var timestampParser = new TimestampParser(getTimeZoneId());
+            int nbEvents = 0;
+            int lineNumber = firstLine;
+            try (var reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(chunk, 0, length), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    var optLog = builder.build(lineNumber++, line);
+                    if (optLog.isPresent()) {
+                        addLogEvent(path, optLog.get(), timestampParser);
+                        nbEvents++;
+                    }
+                }
+            }
+            // Don't forget the last log line buffered in the builder
+            var last = builder.getLast();
+            if (last.isPresent()) {
+                addLogEvent(path, last.get(), timestampParser);
+                nbEvents++;
+            }
+            return nbEvents;
+        }
+
+        /**
+         * Returns the position of the start of the last complete line in the buffer that begins a new log event, or
+         * -1 if there is none past the first line.
+         */
+        private int findChunkBoundary(byte[] buffer, int length) {
+            int lineEnd = lastIndexOf(buffer, (byte) '\n', length - 1);
+            while (lineEnd > 0) {
+                int previousLineEnd = lastIndexOf(buffer, (byte) '\n', lineEnd - 1);
+                int lineStart = previousLineEnd + 1;
+                if (lineStart > 0 &&
+                        timestampPattern.matcher(new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8)).find()) {
+                    return lineStart;
                 }
+                lineEnd = previousLineEnd;
             }
+            return -1;
         }
 
-        private void addLogEvent(String path, ParsedLogEvent event) throws IOException {
+        private int lastIndexOf(byte[] buffer, byte value, int from) {
+            for (int i = from; i >= 0; i--) {
+                if (buffer[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Counts lines the same way {@link BufferedReader#readLine()} splits them.
+         */
+        private int countLines(byte[] buffer, int length) {
+            int nbLines = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n' || (buffer[i] == '\r' && (i + 1 >= length || buffer[i + 1] != '\n'))) {
+                    nbLines++;
+                }
+            }
+            return nbLines;
+        }
+
+        private void addLogEvent(String path, ParsedLogEvent event, TimestampParser timestampParser) throws IOException {
             Document doc = new Document();
             Matcher m = payloadPattern.matcher(event.getText());
             doc.add(new TextField(FIELD_CONTENT, event.getText(), Field.Store.YES));
+            doc.add(new StringField(PATH, path, Field.Store.NO));
             doc.add(new SortedNumericDocValuesField(LINE_NUMBER, event.getLineNumber()));
+            doc.add(new LongPoint(LINE_NUMBER, event.getLineNumber()));
             if (m.find()) {
                 try {
-                    var timeStamp = ZonedDateTime.parse(event.getTimestamp().replaceAll("[/\\-:.,T]", " "), dateTimeFormatter);
-                    var millis = timeStamp.toInstant().toEpochMilli();
+                    var millis = timestampParser.parseEpochMillis(event.getTimestamp());
                     doc.add(new LongPoint(TIMESTAMP, millis));
                     doc.add(new SortedNumericDocValuesField(TIMESTAMP, millis));
-                    doc.add(new StoredField(TIMESTAMP, millis));
                     doc.add(new FacetField(PATH, path));
-                    doc.add(new StoredField(PATH, path));
+                    doc.add(new SortedDocValuesField(PATH, new BytesRef(path)));
                     String severity = (m.group("severity") == null ? "unknown" : m.group("severity")).toLowerCase();
                     doc.add(new FacetField(SEVERITY, severity));
-                    doc.add(new StoredField(SEVERITY, severity));
+                    doc.add(new SortedDocValuesField(SEVERITY, new BytesRef(severity)));
 //                    doc.add(new TextField(THREAD, (m.group("thread") == null ? "unknown" : m.group("thread")), Field.Store.NO));
 //                    doc.add(new TextField(LOGGER, (m.group("logger") == null ? "unknown" : m.group("logger")), Field.Store.NO));
                 } catch (Exception e) {
@@ -583,11 +1000,23 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
 
         @Override
         public void close() throws IOException {
+            try {
+                if (followExecutor != null) {
+                    followExecutor.shutdownNow();
+                    followExecutor.awaitTermination(30, TimeUnit.SECONDS);
+                }
+                indexingThreadPool.shutdownNow();
+                indexingThreadPool.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                logger.error("Termination interrupted", e);
+            }
+            resultsCache.clear();
             IOUtils.close(taxonomyReader);
             IOUtils.close(indexReader);
             IOUtils.close(taxonomyWriter);
             IOUtils.close(indexWriter);
             IOUtils.close(indexDirectory);
+            IOUtils.close(taxonomyDirectory);
             if (parsingThreadPool != null) {
                 try {
                     parsingThreadPool.shutdown();
@@ -596,7 +1025,11 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
                     logger.error("Termination interrupted", e);
                 }
             }
-            if (indexDirectoryPath != null) {
+            if (persistent) {
+                PersistentIndexStore.touch(indexDirectoryPath, rootPath.toString());
+                PersistentIndexStore.enforceQuota(prefs.persistentIndexLocation.get(),
+                        prefs.persistentIndexMaxSizeMB.get().longValue() * 1024 * 1024);
+            } else if (indexDirectoryPath != null) {
                 IOUtils.attemptDeleteTempPath(indexDirectoryPath);
             }
         }
@@ -624,13 +1057,138 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
                         false);
                 if (top.hits.scoreDocs.length > 0) {
                     return ZonedDateTime.ofInstant(
-                            Instant.ofEpochMilli(Long.parseLong(
-                                    searcher.doc(top.hits.scoreDocs[0].doc).get(TIMESTAMP))), getTimeZoneId());
+                            Instant.ofEpochMilli((Long) ((FieldDoc) top.hits.scoreDocs[0]).fields[0]), getTimeZoneId());
                 }
                 return null;
             });
         }
 
+        /**
+         * Returns the values of a single valued string field for the provided hits, looked up segment by segment from
+         * the field's doc values, in increasing doc id order.
+         */
+        private String[] readSortedDocValues(ScoreDoc[] hits, String field) throws IOException {
+            var values = new String[hits.length];
+            var order = new Integer[hits.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> hits[i].doc));
+            var leaves = searcher.getIndexReader().leaves();
+            LeafReaderContext leaf = null;
+            SortedDocValues docValues = null;
+            String[] labels = null;
+            for (int i : order) {
+                int doc = hits[i].doc;
+                if (leaf == null || doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                    leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                    docValues = DocValues.getSorted(leaf.reader(), field);
+                    labels = new String[docValues.getValueCount()];
+                }
+                if (docValues.advanceExact(doc - leaf.docBase)) {
+                    int ord = docValues.ordValue();
+                    if (labels[ord] == null) {
+                        labels[ord] = docValues.lookupOrd(ord).utf8ToString();
+                    }
+                    values[i] = labels[ord];
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Retrieves the content of search hits from the index on demand, a block of consecutive hits at a time.
+         * <p>
+         * Hits are read by document id for as long as the index reader they were found with remains current, and are
+         * located by file path and line number afterward, so that their content can still be retrieved after the
+         * index readers have been refreshed.
+         * </p>
+         */
+        private class HitContents {
+            private static final int BLOCK_SIZE = 256;
+            private final IndexReader reader;
+            private final int[] docIds;
+            private final String[] paths;
+            private final long[] lineNumbers;
+            private final String[] contents;
+
+            private HitContents(String[] paths, ScoreDoc[] hits) {
+                this.reader = searcher.getIndexReader();
+                this.paths = paths;
+                this.docIds = new int[hits.length];
+                this.lineNumbers = new long[hits.length];
+                for (int i = 0; i < hits.length; i++) {
+                    docIds[i] = hits[i].doc;
+                    lineNumbers[i] = (Long) ((FieldDoc) hits[i]).fields[1];
+                }
+                this.contents = new String[hits.length];
+            }
+
+            private synchronized String get(int index) {
+                if (contents[index] == null) {
+                    int from = index - index % BLOCK_SIZE;
+                    try {
+                        loadBlock(from, Math.min(contents.length, from + BLOCK_SIZE));
+                    } catch (Exception e) {
+                        logger.error("Error retrieving log event content: " + e.getMessage());
+                        logger.debug(() -> "Stack trace", e);
+                    }
+                    if (contents[index] == null) {
+                        contents[index] = "";
+                    }
+                }
+                return contents[index];
+            }
+
+            private void loadBlock(int from, int to) throws IOException {
+                var contentField = Set.of(FIELD_CONTENT);
+                boolean loaded = indexLock.read().lock(() -> {
+                    if (searcher.getIndexReader() != reader) {
+                        return false;
+                    }
+                    for (int i = from; i < to; i++) {
+                        contents[i] = reader.document(docIds[i], contentField).get(FIELD_CONTENT) + "\n";
+                    }
+                    return true;
+                });
+                if (loaded) {
+                    return;
+                }
+                var linesByPath = new HashMap<String, Map<Long, Integer>>();
+                for (int i = from; i < to; i++) {
+                    if (paths[i] != null) {
+                        linesByPath.computeIfAbsent(paths[i], k -> new HashMap<>()).put(lineNumbers[i], i);
+                    }
+                }
+                indexLock.read().lock(() -> {
+                    for (var entry : linesByPath.entrySet()) {
+                        var positions = entry.getValue();
+                        var query = new BooleanQuery.Builder()
+                                .add(new TermQuery(new Term(PATH, entry.getKey())), BooleanClause.Occur.FILTER)
+                                .add(LongPoint.newSetQuery(LINE_NUMBER, positions.keySet()), BooleanClause.Occur.FILTER)
+                                .build();
+                        var weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+                        for (var leaf : searcher.getIndexReader().leaves()) {
+                            var scorer = weight.scorer(leaf);
+                            if (scorer == null) {
+                                continue;
+                            }
+                            var lines = DocValues.getSortedNumeric(leaf.reader(), LINE_NUMBER);
+                            var it = scorer.iterator();
+                            for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+                                if (lines.advanceExact(doc)) {
+                                    var position = positions.get(lines.nextValue());
+                                    if (position != null) {
+                                        contents[position] = leaf.reader().document(doc, contentField).get(FIELD_CONTENT) + "\n";
+                                    }
+                                }
+                            }
+                        }
+                    }
+                });
+            }
+        }
+
         private HashMap<String, FacetEntry> makeFacetResult(String facetName, Facets facets, Map<String, Collection<String>> params) throws IOException {
             var facetEntryMap = new HashMap<String, FacetEntry>();
             var synthesis = facets.getTopChildren(100, facetName);
@@ -649,8 +1207,45 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
             return facetEntryMap;
         }
 
-        public LogEventsProcessor search(long start, long end, Map<String, Collection<String>> params, String query, int page) throws Exception {
+        /**
+         * Returns a page of the log events matching the provided query and facets, sorted by timestamp, line number
+         * and path.
+         * <p>
+         * If a cursor to a page of the same results is provided and the requested page is closer to it than to the
+         * first page, hits are collected from the cursor onward (or backward), using the sort values of its first hit,
+         * so that the cost of reaching a page depends on its distance to the cursor rather than on its rank.
+         * </p>
+         *
+         * @param start      the start of the time interval, in milliseconds since the epoch.
+         * @param end        the end of the time interval, in milliseconds since the epoch.
+         * @param params     the labels to drill down into, by facet.
+         * @param query      the query text.
+         * @param page       the index of the page of results to return.
+         * @param pageCursor  the cursor returned along a previous page of the same results, or null.
+         * @param bypassCache true if results should be fetched from the index even if they are cached.
+         * @return a page of the log events matching the provided query and facets.
+         * @throws Exception if an error occurs while executing the query.
+         */
+        public LogEventsProcessor search(long start,
+                                         long end,
+                                         Map<String, Collection<String>> params,
+                                         String query,
+                                         int page,
+                                         String pageCursor,
+                                         boolean bypassCache) throws Exception {
             return indexLock.read().lock(() -> {
+                var pageSize = prefs.hitsPerPage.get().intValue();
+                var maxBuckets = Math.max(1, prefs.timelineMaxBuckets.get().intValue());
+                var resultsKey = PageCursor.makeResultsKey(start, end, params, query);
+                // The cursor only speeds up the retrieval of a page, it has no bearing on its content
+                var cacheKey = resultsKey + "|" + page + "|" + pageSize + "|" + maxBuckets;
+                if (!bypassCache) {
+                    var cached = resultsCache.get(cacheKey);
+                    if (cached != null) {
+                        logger.debug(() -> "Search results retrieved from cache: " + cacheKey);
+                        return cached;
+                    }
+                }
                 Query rangeQuery = LongPoint.newRangeQuery(TIMESTAMP, start, end);
                 Query filterQuery = rangeQuery;
                 if (query != null && !query.isBlank()) {
@@ -669,31 +1264,60 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
                         drillDownQuery.add(facet.getKey(), label);
                     }
                 }
-                var pageSize = prefs.hitsPerPage.get().intValue();
-                var skip = page * pageSize;
+                var pageStart = page * pageSize;
+                var cursor = PageCursor.decode(pageCursor, resultsKey);
+                // Hits are collected from the beginning, unless the page is closer to the cursor
+                FieldDoc after = null;
+                boolean backward = false;
+                int nbCollected = pageStart + pageSize;
+                int skip = pageStart;
+                if (cursor != null && pageStart >= cursor.position && pageStart - cursor.position < pageStart) {
+                    after = cursor.toFieldDoc(true);
+                    skip = pageStart - cursor.position;
+                    nbCollected = skip + pageSize;
+                } else if (cursor != null && pageStart + pageSize <= cursor.position && cursor.position - pageStart < nbCollected) {
+                    // Hits preceding the cursor are collected in reverse order, closest first
+                    after = cursor.toFieldDoc(false);
+                    backward = true;
+                    nbCollected = cursor.position - pageStart;
+                    skip = Math.max(0, nbCollected - pageSize);
+                }
                 DrillSideways.DrillSidewaysResult results;
-                var sort = new Sort(new SortedNumericSortField(TIMESTAMP, SortField.Type.LONG, false),
-                        new SortedNumericSortField(LINE_NUMBER, SortField.Type.LONG, false));
-                TopFieldCollector collector = TopFieldCollector.create(sort, skip + pageSize, Integer.MAX_VALUE);
+                var sort = new Sort(new SortedNumericSortField(TIMESTAMP, SortField.Type.LONG, backward),
+                        new SortedNumericSortField(LINE_NUMBER, SortField.Type.LONG, backward),
+                        new SortField(PATH, SortField.Type.STRING, backward));
+                TopFieldCollector collector = TopFieldCollector.create(sort, nbCollected, after, Integer.MAX_VALUE);
+                // Count events over time in the same pass as collecting the page of hits
+                var histogramCollector = new TimeHistogramCollector(TIMESTAMP, SEVERITY, start, end, maxBuckets);
                 logger.debug(() -> "Query: " + drillDownQuery.toString(FIELD_CONTENT));
                 try (Profiler p = Profiler.start("Executing query", logger::perf)) {
-                    results = drill.search(drillDownQuery, collector);
+                    results = drill.search(drillDownQuery, MultiCollector.wrap(collector, histogramCollector));
                 }
                 var topDocs = collector.topDocs();
                 logger.debug("collector.getTotalHits() = " + collector.getTotalHits());
+                var hits = Arrays.copyOfRange(topDocs.scoreDocs, Math.min(skip, topDocs.scoreDocs.length), topDocs.scoreDocs.length);
+                if (backward) {
+                    Collections.reverse(Arrays.asList(hits));
+                }
                 var severityFacet = new HashMap<String, FacetEntry>();
                 var pathFacet = new HashMap<String, FacetEntry>();
                 try (Profiler p = Profiler.start("Retrieving hits & facets", logger::perf)) {
                     pathFacet = makeFacetResult(PATH, results.facets, params);
                     severityFacet = makeFacetResult(SEVERITY, results.facets, params);
-                    for (int i = skip; i < topDocs.scoreDocs.length; i++) {
-                        var hit = topDocs.scoreDocs[i];
-                        var doc = searcher.doc(hit.doc);
-                        var severity = severityFacet.get(doc.get(SEVERITY));
-                        var path = pathFacet.get(doc.get(PATH));
+                    var paths = new String[hits.length];
+                    for (int i = 0; i < hits.length; i++) {
+                        paths[i] = ((BytesRef) ((FieldDoc) hits[i]).fields[2]).utf8ToString();
+                    }
+                    var severities = readSortedDocValues(hits, SEVERITY);
+                    var contents = new HitContents(paths, hits);
+                    for (int i = 0; i < hits.length; i++) {
+                        var fields = ((FieldDoc) hits[i]).fields;
+                        var severity = severityFacet.get(severities[i]);
+                        var path = pathFacet.get(paths[i]);
+                        final int hitIndex = i;
                         logs.add(new XYChart.Data<>(
-                                ZonedDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(doc.get(TIMESTAMP))), getTimeZoneId()),
-                                new LogEvent(doc.get(FIELD_CONTENT) + "\n",
+                                ZonedDateTime.ofInstant(Instant.ofEpochMilli((Long) fields[0]), getTimeZoneId()),
+                                new LogEvent(() -> contents.get(hitIndex),
                                         severity != null ? severity : new FacetEntry(SEVERITY, "Unknown", 0),
                                         path != null ? path : new FacetEntry(PATH, "Unknown", 0))));
                     }
@@ -712,6 +1336,15 @@ public class LogsDataAdapter extends BaseDataAdapter<LogEvent> {
                                 .collect(Collectors.toList()));
                 proc.setTotalHits(collector.getTotalHits());
                 proc.setHitsPerPage(pageSize);
+                proc.setHistogram(new LogEventsHistogram(
+                        ZonedDateTime.ofInstant(Instant.ofEpochMilli(histogramCollector.getStart()), getTimeZoneId()),
+                        Duration.ofMillis(histogramCollector.getBucketWidth()),
+                        histogramCollector.getNbBuckets(),
+                        histogramCollector.getCountsByCategory()));
+                if (hits.length > 0) {
+                    proc.setPageCursor(new PageCursor(resultsKey, pageStart, (FieldDoc) hits[0]).encode());
+                }
+                resultsCache.put(cacheKey, proc);
                 return proc;
             });
         }
@@ -0,0 +1,200 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.sources.logs.adapters;
+
+import eu.binjr.common.io.IOUtils;
+import eu.binjr.common.logging.Logger;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.Lock;
+import org.apache.lucene.store.LockObtainFailedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Helper methods to manage the Lucene indexes that the {@link LogsDataAdapter} keeps on disk across sessions.
+ * <p>
+ * Each index is stored in a folder of its own, named after a key derived from the source root and the parsing
+ * settings. The folders' last modification time records when they were last used, so that the least recently
+ * used ones can be evicted once the combined size of all indexes exceeds the configured quota.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+final class PersistentIndexStore {
+    private static final Logger logger = Logger.create(PersistentIndexStore.class);
+    private static final String SOURCE_FILE_NAME = "source.txt";
+    private static final int HASH_SAMPLE_SIZE = 64 * 1024;
+    static final String INDEX_FOLDER = "index";
+    static final String TAXONOMY_FOLDER = "taxonomy";
+
+    private PersistentIndexStore() {
+    }
+
+    /**
+     * Returns the folder holding the index for the specified key.
+     *
+     * @param root the root of the persistent index store.
+     * @param key  a string that uniquely identifies the content of the index.
+     * @return the folder holding the index for the specified key.
+     */
+    static Path resolve(Path root, String key) {
+        return root.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString());
+    }
+
+    /**
+     * Returns true if the index in the specified folder is currently opened for writing, by this or another process.
+     *
+     * @param indexPath the folder holding the index.
+     * @return true if the index in the specified folder is currently opened for writing.
+     */
+    static boolean isInUse(Path indexPath) {
+        Path path = indexPath.resolve(INDEX_FOLDER);
+        if (!Files.isDirectory(path)) {
+            return false;
+        }
+        try (Directory dir = FSDirectory.open(path); Lock ignored = dir.obtainLock(IndexWriter.WRITE_LOCK_NAME)) {
+            return false;
+        } catch (LockObtainFailedException e) {
+            return true;
+        } catch (IOException e) {
+            logger.debug(() -> "Error probing lock on " + path, e);
+            return true;
+        }
+    }
+
+    /**
+     * Records the specified folder as the most recently used one and the source it indexes.
+     *
+     * @param indexPath the folder holding the index.
+     * @param source    a description of the indexed source.
+     */
+    static void touch(Path indexPath, String source) {
+        try {
+            Files.createDirectories(indexPath);
+            Files.writeString(indexPath.resolve(SOURCE_FILE_NAME), source);
+            Files.setLastModifiedTime(indexPath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug(() -> "Failed to update last use of " + indexPath, e);
+        }
+    }
+
+    /**
+     * Returns a fingerprint for the specified file, made of its size, its last modification time and a CRC32C checksum
+     * of its first and last 64KB.
+     *
+     * @param file the file to fingerprint.
+     * @return a fingerprint for the specified file.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    static String fingerprint(Path file) throws IOException {
+        var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        var crc = new CRC32C();
+        var buffer = new byte[HASH_SAMPLE_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            crc.update(buffer, 0, in.readNBytes(buffer, 0, buffer.length));
+        }
+        if (attributes.size() > HASH_SAMPLE_SIZE) {
+            try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+                channel.position(Math.max(HASH_SAMPLE_SIZE, attributes.size() - HASH_SAMPLE_SIZE));
+                var tail = ByteBuffer.wrap(buffer);
+                while (tail.hasRemaining()) {
+                    if (channel.read(tail) <= 0) {
+                        break;
+                    }
+                }
+                crc.update(buffer, 0, tail.position());
+            } catch (UnsupportedOperationException e) {
+                // Entries in some file systems (e.g. compressed zip entries) cannot be read from an arbitrary position
+                logger.trace(() -> "Cannot sample the end of " + file + ": " + e.getMessage());
+            }
+        }
+        return String.format("%d|%d|%08x", attributes.size(), attributes.lastModifiedTime().toMillis(), crc.getValue());
+    }
+
+    /**
+     * Deletes the least recently used indexes from the store until its size falls below the specified quota.
+     * Indexes currently in use are never deleted.
+     *
+     * @param root    the root of the persistent index store.
+     * @param maxSize the maximum size of the store, in bytes.
+     */
+    static void enforceQuota(Path root, long maxSize) {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> folders = Files.list(root)) {
+            var candidates = folders.filter(Files::isDirectory)
+                    .sorted(Comparator.comparingLong(PersistentIndexStore::lastModified))
+                    .collect(Collectors.toList());
+            Map<Path, Long> sizes = new HashMap<>();
+            long totalSize = 0;
+            for (var folder : candidates) {
+                long size = sizeOf(folder);
+                sizes.put(folder, size);
+                totalSize += size;
+            }
+            for (var folder : candidates) {
+                if (totalSize <= maxSize) {
+                    break;
+                }
+                if (!isInUse(folder)) {
+                    logger.debug(() -> "Evicting persistent log index " + folder);
+                    IOUtils.attemptDeleteTempPath(folder);
+                    totalSize -= sizes.get(folder);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to enforce quota on persistent log indexes: " + e.getMessage());
+            logger.debug("Stack Trace:", e);
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static long sizeOf(Path folder) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            return files.filter(Files::isRegularFile).mapToLong(p -> {
+                try {
+                    return Files.size(p);
+                } catch (IOException e) {
+                    return 0L;
+                }
+            }).sum();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.sources.logs.adapters;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link org.apache.lucene.search.Collector} that counts the documents it collects per interval of time and per
+ * category, from the doc values of a timestamp field and of a category field.
+ *
+ * @author Frederic Thevenet
+ */
+class TimeHistogramCollector extends SimpleCollector {
+    private static final long[] BUCKET_WIDTHS = {
+            1L, 2L, 5L, 10L, 20L, 50L, 100L, 200L, 500L,
+            1_000L, 2_000L, 5_000L, 10_000L, 15_000L, 30_000L,
+            60_000L, 120_000L, 300_000L, 600_000L, 900_000L, 1_800_000L,
+            3_600_000L, 7_200_000L, 10_800_000L, 21_600_000L, 43_200_000L,
+            86_400_000L, 172_800_000L, 604_800_000L};
+    private final String timestampField;
+    private final String categoryField;
+    private final long start;
+    private final long bucketWidth;
+    private final int nbBuckets;
+    private final Map<String, int[]> countsByCategory = new HashMap<>();
+    private SortedNumericDocValues timestamps;
+    private SortedDocValues categories;
+    private int[][] countsByOrd;
+
+    /**
+     * Initializes a new instance of the {@link TimeHistogramCollector} class, with buckets of a round width chosen
+     * so that there are no more than the specified number of them over the time interval.
+     *
+     * @param timestampField the name of the field holding timestamps as numeric doc values.
+     * @param categoryField  the name of the field holding categories as sorted doc values.
+     * @param start          the start of the time interval, in milliseconds since the epoch.
+     * @param end            the end of the time interval, in milliseconds since the epoch.
+     * @param maxBuckets     the maximum number of buckets.
+     */
+    TimeHistogramCollector(String timestampField, String categoryField, long start, long end, int maxBuckets) {
+        this.timestampField = timestampField;
+        this.categoryField = categoryField;
+        long range = Math.max(1, end - start + 1);
+        long width = BUCKET_WIDTHS[BUCKET_WIDTHS.length - 1];
+        for (long w : BUCKET_WIDTHS) {
+            if (range / w < maxBuckets) {
+                width = w;
+                break;
+            }
+        }
+        // Weeks are the largest round width: fall back to exact division past them
+        if (range / width >= maxBuckets) {
+            width = (range + maxBuckets - 1) / maxBuckets;
+        }
+        this.bucketWidth = width;
+        this.start = Math.floorDiv(start, width) * width;
+        this.nbBuckets = (int) ((end - this.start) / width) + 1;
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+        timestamps = DocValues.getSortedNumeric(context.reader(), timestampField);
+        categories = DocValues.getSorted(context.reader(), categoryField);
+        countsByOrd = new int[categories.getValueCount()][];
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        if (timestamps.advanceExact(doc) && categories.advanceExact(doc)) {
+            int ord = categories.ordValue();
+            var counts = countsByOrd[ord];
+            if (counts == null) {
+                counts = countsByCategory.computeIfAbsent(categories.lookupOrd(ord).utf8ToString(), k -> new int[nbBuckets]);
+                countsByOrd[ord] = counts;
+            }
+            long bucket = (timestamps.nextValue() - start) / bucketWidth;
+            if (bucket >= 0 && bucket < nbBuckets) {
+                counts[(int) bucket]++;
+            }
+        }
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    /**
+     * Returns the start of the first bucket, in milliseconds since the epoch.
+     *
+     * @return the start of the first bucket, in milliseconds since the epoch.
+     */
+    long getStart() {
+        return start;
+    }
+
+    long getBucketWidth() {
+        return bucketWidth;
+    }
+
+    int getNbBuckets() {
+        return nbBuckets;
+    }
+
+    Map<String, int[]> getCountsByCategory() {
+        return countsByCategory;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.sources.logs.adapters;
+
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+/**
+ * Converts the timestamps captured by the log adapter's timestamp pattern into epoch milliseconds.
+ * <p>
+ * Timestamps made of year, month, day, hours, minutes, seconds and milliseconds fields, separated by single
+ * characters (e.g. {@code 2020-03-12 14:52:06,123}) are decoded in a single pass over the characters, and the epoch
+ * milliseconds for the start of the current hour are cached, so that consecutive events logged within the same hour
+ * only need adding the minutes, seconds and milliseconds to it.
+ * Timestamps in any other format, or with out of range fields, are normalized and parsed with a
+ * {@link DateTimeFormatter} instead.
+ * </p>
+ * <p><b>Remark:</b> instances of this class are not thread safe.</p>
+ *
+ * @author Frederic Thevenet
+ */
+final class TimestampParser {
+    private static final Pattern SEPARATORS_PATTERN = Pattern.compile("[/\\-:.,T]");
+    private static final String SEPARATORS = "/-:.,T ";
+    private static final int TIMESTAMP_LENGTH = 23;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private final ZoneId zoneId;
+    private final DateTimeFormatter formatter;
+    private long cachedHourKey = -1;
+    private long cachedHourMillis;
+    private boolean cachedHourIsLinear;
+
+    /**
+     * Initializes a new instance of the {@link TimestampParser} class.
+     *
+     * @param zoneId the id of the time zone in which timestamps are expressed.
+     */
+    TimestampParser(ZoneId zoneId) {
+        this.zoneId = zoneId;
+        this.formatter = DateTimeFormatter.ofPattern("yyyy MM dd HH mm ss SSS").withZone(zoneId);
+    }
+
+    /**
+     * Returns the number of milliseconds since the epoch for the provided timestamp.
+     *
+     * @param timestamp the timestamp to parse.
+     * @return the number of milliseconds since the epoch.
+     * @throws java.time.format.DateTimeParseException if the timestamp cannot be parsed.
+     */
+    long parseEpochMillis(String timestamp) {
+        if (timestamp.length() == TIMESTAMP_LENGTH &&
+                isSeparator(timestamp, 4) && isSeparator(timestamp, 7) && isSeparator(timestamp, 10) &&
+                isSeparator(timestamp, 13) && isSeparator(timestamp, 16) && isSeparator(timestamp, 19)) {
+            int year = parseDigits(timestamp, 0, 4);
+            int month = parseDigits(timestamp, 5, 2);
+            int day = parseDigits(timestamp, 8, 2);
+            int hour = parseDigits(timestamp, 11, 2);
+            int minute = parseDigits(timestamp, 14, 2);
+            int second = parseDigits(timestamp, 17, 2);
+            int millis = parseDigits(timestamp, 20, 3);
+            if (year >= 1 && month >= 1 && month <= 12 &&
+                    day >= 1 && day <= Month.of(month).length(Year.isLeap(year)) &&
+                    hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59 && millis >= 0) {
+                long hourKey = ((year * 100L + month) * 100L + day) * 100L + hour;
+                if (hourKey != cachedHourKey) {
+                    cachedHourMillis = toEpochMillis(year, month, day, hour, 0, 0, 0);
+                    // Offset transitions that do not occur on the hour prevent deriving times from the start of the hour
+                    cachedHourIsLinear = toEpochMillis(year, month, day, hour, 59, 59, 999) - cachedHourMillis == MILLIS_PER_HOUR - 1;
+                    cachedHourKey = hourKey;
+                }
+                if (cachedHourIsLinear) {
+                    return cachedHourMillis + minute * 60_000L + second * 1000L + millis;
+                }
+                return toEpochMillis(year, month, day, hour, minute, second, millis);
+            }
+        }
+        return ZonedDateTime.parse(SEPARATORS_PATTERN.matcher(timestamp).replaceAll(" "), formatter).toInstant().toEpochMilli();
+    }
+
+    private long toEpochMillis(int year, int month, int day, int hour, int minute, int second, int millis) {
+        return ZonedDateTime.of(year, month, day, hour, minute, second, millis * 1_000_000, zoneId).toInstant().toEpochMilli();
+    }
+
+    private static boolean isSeparator(String text, int index) {
+        return SEPARATORS.indexOf(text.charAt(index)) >= 0;
+    }
+
+    private static int parseDigits(String text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -107,6 +107,12 @@ public class NetdataAdapter extends HttpDataAdapter<Double> {
         return craftRequestUri(path, params);
     }
 
+    @Override
+    protected boolean isChunkCachingSupported() {
+        // Server side down-sampling makes the resolution of the returned data depend on the requested interval
+        return !(userPrefs.downSamplingEnabled.get() && !adapterPrefs.disableServerSideDownsampling.get());
+    }
+
     @Override
     public boolean isSortingRequired() {
         return true;
@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.benchmarks;
+
+import eu.binjr.core.data.adapters.TimeSeriesBinding;
+import eu.binjr.core.data.codec.csv.CsvDecoder;
+import eu.binjr.core.data.exceptions.DecodingDataFromAdapterException;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesProcessor;
+import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
+import eu.binjr.core.data.workspace.TimeSeriesInfo;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the decoding of CSV formatted data into time series.
+ *
+ * @author Frederic Thevenet
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class CsvDecoderBenchmark {
+    @Param({"10000", "100000", "500000"})
+    public int rows;
+
+    @Param({"1", "8", "64"})
+    public int columns;
+
+    @Param({"REGULAR", "NAN_HEAVY"})
+    public SyntheticSeries.Shape shape;
+
+    private byte[] csv;
+    private List<TimeSeriesInfo<Double>> seriesInfo;
+    private CsvDecoder decoder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var series = new ArrayList<DoubleTimeSeriesColumns>(columns);
+        seriesInfo = new ArrayList<>(columns);
+        var sb = new StringBuilder("time");
+        for (int c = 0; c < columns; c++) {
+            series.add(SyntheticSeries.generate(rows, shape, c));
+            String label = "series_" + c;
+            sb.append(',').append(label);
+            seriesInfo.add(TimeSeriesInfo.fromBinding(new TimeSeriesBinding.Builder()
+                    .withLabel(label)
+                    .withPath("/benchmark/" + label)
+                    .withColor(Color.RED)
+                    .build()));
+        }
+        sb.append('\n');
+        var timestamps = series.get(0).timestamps();
+        for (int r = 0; r < rows; r++) {
+            sb.append(timestamps[r] / 1_000_000L);
+            for (var s : series) {
+                sb.append(',');
+                double val = s.getValue(r);
+                if (!Double.isNaN(val)) {
+                    sb.append(val);
+                }
+            }
+            sb.append('\n');
+        }
+        csv = sb.toString().getBytes(StandardCharsets.UTF_8);
+        decoder = new CsvDecoder(StandardCharsets.UTF_8.name(),
+                ',',
+                () -> new DoubleTimeSeriesProcessor(true),
+                CsvDecoderBenchmark::parseEpochMillis);
+    }
+
+    @Benchmark
+    public Map<TimeSeriesInfo<Double>, TimeSeriesProcessor<Double>> decode()
+            throws IOException, DecodingDataFromAdapterException {
+        return decoder.decode(new ByteArrayInputStream(csv), seriesInfo);
+    }
+
+    private static ZonedDateTime parseEpochMillis(String s) throws DecodingDataFromAdapterException {
+        try {
+            return ZonedDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(s)), SyntheticSeries.ZONE_ID);
+        } catch (NumberFormatException e) {
+            throw new DecodingDataFromAdapterException("Failed to parse timestamp: " + s, e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.benchmarks;
+
+import eu.binjr.core.data.timeseries.transform.FirstPassLttbTransform;
+import eu.binjr.core.data.timeseries.transform.SecondPassLttbTransform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the computation of the shared whitelist of samples used to down-sample series on stacked charts.
+ *
+ * @author Frederic Thevenet
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class StackedLttbBenchmark {
+    private static final int THRESHOLD = 1500;
+
+    @Param({"1", "8", "64"})
+    public int seriesCount;
+
+    @Param({"10000", "100000", "1000000"})
+    public int points;
+
+    @Param({"REGULAR", "NAN_HEAVY"})
+    public SyntheticSeries.Shape shape;
+
+    private FirstPassLttbTransform firstPass;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        firstPass = new FirstPassLttbTransform(THRESHOLD);
+        for (int i = 0; i < seriesCount; i++) {
+            firstPass.transform(SyntheticSeries.generate(points, shape, i));
+        }
+    }
+
+    @Benchmark
+    public SecondPassLttbTransform computeWhiteList() {
+        return new SecondPassLttbTransform(firstPass, THRESHOLD);
+    }
+}
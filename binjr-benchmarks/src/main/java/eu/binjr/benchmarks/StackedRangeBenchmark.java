@@ -0,0 +1,73 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.benchmarks;
+
+import eu.binjr.common.javafx.charts.NaNStackedAreaChart;
+import javafx.scene.chart.XYChart;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the accumulation of stacked values performed each time the range of a stacked area chart's axes is
+ * updated.
+ * <p>
+ * Series are offset from one another by a fraction of the sampling interval, so that values must be interpolated
+ * on each x position, as is the case for series from different sources.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class StackedRangeBenchmark {
+    @Param({"1", "8", "64"})
+    public int seriesCount;
+
+    @Param({"1500", "10000", "100000"})
+    public int points;
+
+    private List<XYChart.Series<Double, Double>> series;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        series = new ArrayList<>(seriesCount);
+        for (int i = 0; i < seriesCount; i++) {
+            var columns = SyntheticSeries.generate(points, SyntheticSeries.Shape.REGULAR, i,
+                    i * SyntheticSeries.STEP_NANOS / (seriesCount + 1));
+            var data = new ArrayList<XYChart.Data<Double, Double>>(points);
+            for (int j = 0; j < columns.size(); j++) {
+                data.add(new XYChart.Data<>((double) columns.getTimestamp(j) / 1_000_000L, columns.getValue(j)));
+            }
+            var s = new XYChart.Series<Double, Double>();
+            s.getData().setAll(data);
+            series.add(s);
+        }
+    }
+
+    @Benchmark
+    public double[] computeStackedRange() {
+        return NaNStackedAreaChart.computeStackedRange(series.iterator(), Double::doubleValue, Double::doubleValue);
+    }
+}
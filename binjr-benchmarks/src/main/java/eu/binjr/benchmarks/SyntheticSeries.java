@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.benchmarks;
+
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic time series for benchmarking purposes.
+ *
+ * @author Frederic Thevenet
+ */
+public final class SyntheticSeries {
+    /**
+     * The time zone for all generated samples.
+     */
+    public static final ZoneId ZONE_ID = ZoneId.of("UTC");
+    /**
+     * The timestamp of the first generated sample.
+     */
+    public static final ZonedDateTime ORIGIN = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZONE_ID);
+    /**
+     * The interval between two consecutive generated samples, in nanoseconds.
+     */
+    public static final long STEP_NANOS = 1_000_000_000L;
+
+    private static final double NAN_RATIO = 0.3;
+    private static final int MAX_NAN_RUN = 64;
+    private static final int SHUFFLE_WINDOW = 32;
+
+    /**
+     * The shape of the generated series.
+     */
+    public enum Shape {
+        /**
+         * Samples are ordered by time and contain no NaN values.
+         */
+        REGULAR,
+        /**
+         * About a third of samples are NaN, in runs of varying lengths.
+         */
+        NAN_HEAVY,
+        /**
+         * Samples are shuffled within small windows, so that the series needs to be sorted.
+         */
+        UNSORTED
+    }
+
+    private SyntheticSeries() {
+    }
+
+    /**
+     * Generates a new series.
+     *
+     * @param nbPoints the number of samples in the series.
+     * @param shape    the shape of the series.
+     * @param seed     the seed of the pseudo-random generator.
+     * @return a new series.
+     */
+    public static DoubleTimeSeriesColumns generate(int nbPoints, Shape shape, long seed) {
+        return generate(nbPoints, shape, seed, 0L);
+    }
+
+    /**
+     * Generates a new series, whose timestamps are shifted by the specified offset.
+     *
+     * @param nbPoints     the number of samples in the series.
+     * @param shape        the shape of the series.
+     * @param seed         the seed of the pseudo-random generator.
+     * @param offsetNanos  the offset to apply to all timestamps, in nanoseconds.
+     * @return a new series.
+     */
+    public static DoubleTimeSeriesColumns generate(int nbPoints, Shape shape, long seed, long offsetNanos) {
+        var random = new SplittableRandom(seed);
+        var columns = new DoubleTimeSeriesColumns(nbPoints);
+        columns.setZoneId(ZONE_ID);
+        long origin = DoubleTimeSeriesColumns.toEpochNanos(ORIGIN) + offsetNanos;
+        double level = 50.0;
+        int nanRun = 0;
+        for (int i = 0; i < nbPoints; i++) {
+            // A random walk with a daily seasonality and occasional spikes
+            level = Math.max(0, level + random.nextDouble(-1.0, 1.0));
+            double value = level + 20.0 * Math.sin(i * 2 * Math.PI / 86400.0);
+            if (random.nextInt(1000) == 0) {
+                value *= 10;
+            }
+            if (shape == Shape.NAN_HEAVY) {
+                if (nanRun == 0 && random.nextDouble() < NAN_RATIO / (MAX_NAN_RUN / 2.0)) {
+                    nanRun = random.nextInt(1, MAX_NAN_RUN);
+                }
+                if (nanRun > 0) {
+                    value = Double.NaN;
+                    nanRun--;
+                }
+            }
+            columns.add(origin + i * STEP_NANOS, value);
+        }
+        if (shape == Shape.UNSORTED) {
+            long[] timestamps = columns.timestamps();
+            double[] values = columns.values();
+            for (int i = 0; i < nbPoints; i++) {
+                int j = Math.min(nbPoints - 1, i + random.nextInt(SHUFFLE_WINDOW));
+                long ts = timestamps[i];
+                timestamps[i] = timestamps[j];
+                timestamps[j] = ts;
+                double val = values[i];
+                values[i] = values[j];
+                values[j] = val;
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.benchmarks;
+
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesEnvelope;
+import eu.binjr.core.data.timeseries.transform.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the transforms applied to time series before they are rendered on a chart.
+ * <p>
+ * Each invocation restores the working series from a pristine copy before applying the transform under test,
+ * since all transforms operate in place.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class TransformsBenchmark {
+    private static final int THRESHOLD = 1500;
+
+    @Param({"10000", "100000", "1000000", "10000000", "50000000"})
+    public int points;
+
+    @Param({"REGULAR", "NAN_HEAVY", "UNSORTED"})
+    public SyntheticSeries.Shape shape;
+
+    private DoubleTimeSeriesColumns source;
+    private DoubleTimeSeriesColumns working;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        source = SyntheticSeries.generate(points, shape, 42L);
+        working = new DoubleTimeSeriesColumns(points);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        working.setAll(source.timestamps(), source.values(), source.size());
+        working.setZoneId(source.getZoneId());
+    }
+
+    @Benchmark
+    public DoubleTimeSeriesColumns largestTriangleThreeBuckets() {
+        new LargestTriangleThreeBucketsTransform(THRESHOLD).transform(working);
+        return working;
+    }
+
+    @Benchmark
+    public DoubleTimeSeriesColumns decimation() {
+        new DecimationTransform(THRESHOLD).transform(working);
+        return working;
+    }
+
+    @Benchmark
+    public DoubleTimeSeriesColumns m4() {
+        new M4Transform(THRESHOLD).transform(working);
+        return working;
+    }
+
+    @Benchmark
+    public DoubleTimeSeriesEnvelope minMaxEnvelope() {
+        return new MinMaxEnvelopeTransform(THRESHOLD).reduce(working);
+    }
+
+    @Benchmark
+    public DoubleTimeSeriesColumns averageResampling() {
+        new AverageResamplingTransform(THRESHOLD).transform(working);
+        return working;
+    }
+
+    /**
+     * Applies the same sequence of transforms as a line chart fetching fresh data: clean, sort, reduce and align.
+     *
+     * @return the transformed series.
+     */
+    @Benchmark
+    public DoubleTimeSeriesColumns linePipeline() {
+        new NanToZeroTransform().transform(working);
+        new SortTransform<Double>().transform(working);
+        new LargestTriangleThreeBucketsTransform(THRESHOLD).transform(working);
+        new AlignBoundariesTransform(
+                DoubleTimeSeriesColumns.toZonedDateTime(source.getTimestamp(0), SyntheticSeries.ZONE_ID),
+                DoubleTimeSeriesColumns.toZonedDateTime(
+                        source.getTimestamp(0) + points * SyntheticSeries.STEP_NANOS, SyntheticSeries.ZONE_ID),
+                true).transform(working);
+        return working;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.common.cache;
+
+/**
+ * Defines the policy used to select which entries are evicted from a size bound cache.
+ *
+ * @author Frederic Thevenet
+ */
+public enum EvictionPolicy {
+    /**
+     * Evicts the least recently used entries first.
+     */
+    LRU("Least Recently Used"),
+    /**
+     * Evicts the least frequently used entries first; entries used equally often are evicted by recency.
+     */
+    LFU("Least Frequently Used");
+
+    private final String label;
+
+    EvictionPolicy(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
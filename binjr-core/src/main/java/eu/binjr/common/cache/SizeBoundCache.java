@@ -0,0 +1,263 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.common.cache;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A thread safe, two-tiered cache whose first tier is bound by the combined size of its entries.
+ * <p>
+ * Entries in the first tier are strongly referenced; once its size budget is exceeded, entries are selected for
+ * eviction according to the {@link EvictionPolicy} provided, and demoted to a second tier, where they are only
+ * softly referenced so that the GC can reclaim them if the memory pressure becomes too high.
+ * A hit on the second tier promotes the entry back into the first one.
+ * </p>
+ * <p>
+ * Unlike {@link LRUMapSizeBound}, the combined size of all entries is maintained as they are added or removed,
+ * and selecting an entry for eviction costs O(log n).
+ * </p>
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @author Frederic Thevenet
+ */
+public class SizeBoundCache<K, V extends Cacheable<?>> {
+    private final String name;
+    private final long maxSize;
+    private final EvictionPolicy policy;
+    private final Map<K, Node<K, V>> hotTier = new HashMap<>();
+    private final NavigableSet<Node<K, V>> evictionOrder;
+    private final Map<K, KeyedSoftReference<K, V>> softTier = new HashMap<>();
+    private final ReferenceQueue<V> clearedReferences = new ReferenceQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long currentSize = 0;
+    private long tick = 0;
+
+    /**
+     * Initializes a new instance of the {@link SizeBoundCache} class.
+     *
+     * @param name    a name for the cache, used when reporting statistics.
+     * @param maxSize the maximum combined size of entries in the first tier, in bytes.
+     * @param policy  the policy used to select entries for eviction.
+     */
+    public SizeBoundCache(String name, long maxSize, EvictionPolicy policy) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.policy = Objects.requireNonNull(policy);
+        if (policy == EvictionPolicy.LFU) {
+            this.evictionOrder = new TreeSet<>(Comparator.<Node<K, V>>comparingLong(n -> n.frequency)
+                    .thenComparingLong(n -> n.lastAccess));
+        } else {
+            this.evictionOrder = new TreeSet<>(Comparator.comparingLong(n -> n.lastAccess));
+        }
+    }
+
+    /**
+     * Returns the value associated to the specified key, or null if there is none.
+     *
+     * @param key the key to look up.
+     * @return the value associated to the specified key, or null if there is none.
+     */
+    public synchronized V get(K key) {
+        expungeClearedReferences();
+        var node = hotTier.get(key);
+        if (node != null) {
+            touch(node);
+            hits.increment();
+            return node.value;
+        }
+        var ref = softTier.remove(key);
+        V value = ref != null ? ref.get() : null;
+        if (value != null) {
+            hits.increment();
+            put(key, value);
+            return value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Associates the specified value to the specified key, evicting other entries if the size budget is exceeded.
+     *
+     * @param key   the key of the entry.
+     * @param value the value of the entry.
+     */
+    public synchronized void put(K key, V value) {
+        expungeClearedReferences();
+        remove(key);
+        var node = new Node<>(key, value, ++tick);
+        hotTier.put(key, node);
+        evictionOrder.add(node);
+        currentSize += value.getSize();
+        while (currentSize > maxSize && evictionOrder.size() > 1) {
+            var eldest = evictionOrder.pollFirst();
+            hotTier.remove(eldest.key);
+            currentSize -= eldest.value.getSize();
+            softTier.put(eldest.key, new KeyedSoftReference<>(eldest.key, eldest.value, clearedReferences));
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Removes the keys of second tier entries whose value was reclaimed by the GC.
+     */
+    private void expungeClearedReferences() {
+        for (Reference<? extends V> ref; (ref = clearedReferences.poll()) != null; ) {
+            var cleared = (KeyedSoftReference<?, ?>) ref;
+            // The key may have been mapped to a new reference since this one was enqueued
+            softTier.remove(cleared.key, cleared);
+        }
+    }
+
+    /**
+     * Removes the entry associated to the specified key from all tiers.
+     *
+     * @param key the key of the entry to remove.
+     */
+    public synchronized void remove(K key) {
+        softTier.remove(key);
+        var node = hotTier.remove(key);
+        if (node != null) {
+            evictionOrder.remove(node);
+            currentSize -= node.value.getSize();
+        }
+    }
+
+    /**
+     * Removes all entries whose key matches the specified predicate from all tiers.
+     *
+     * @param filter the predicate that selects the keys to remove.
+     */
+    public synchronized void removeIf(Predicate<K> filter) {
+        new ArrayList<>(hotTier.keySet()).stream().filter(filter).forEach(this::remove);
+        softTier.keySet().removeIf(filter);
+    }
+
+    /**
+     * Removes all entries from all tiers.
+     */
+    public synchronized void clear() {
+        hotTier.clear();
+        evictionOrder.clear();
+        softTier.clear();
+        currentSize = 0;
+    }
+
+    /**
+     * Returns the combined size of the entries in the first tier, in bytes.
+     *
+     * @return the combined size of the entries in the first tier, in bytes.
+     */
+    public synchronized long getCurrentSize() {
+        return currentSize;
+    }
+
+    /**
+     * Returns the maximum combined size of the entries in the first tier, in bytes.
+     *
+     * @return the maximum combined size of the entries in the first tier, in bytes.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of look ups that found a value in any tier.
+     *
+     * @return the number of look ups that found a value in any tier.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of look ups that found no value.
+     *
+     * @return the number of look ups that found no value.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted from the first tier.
+     *
+     * @return the number of entries evicted from the first tier.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns a human readable summary of the cache's occupancy and statistics.
+     *
+     * @return a human readable summary of the cache's occupancy and statistics.
+     */
+    public synchronized String getStatistics() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return String.format("%s: %d entries (%.1f/%.1f MB, %s), %d soft entries, hits=%d, misses=%d (%.1f%% hit ratio), evictions=%d",
+                name,
+                hotTier.size(),
+                currentSize / 1024.0 / 1024.0,
+                maxSize / 1024.0 / 1024.0,
+                policy.name(),
+                softTier.size(),
+                hitCount,
+                getMissCount(),
+                total > 0 ? hitCount * 100.0 / total : 0.0,
+                getEvictionCount());
+    }
+
+    private void touch(Node<K, V> node) {
+        evictionOrder.remove(node);
+        node.lastAccess = ++tick;
+        node.frequency++;
+        evictionOrder.add(node);
+    }
+
+    private static class Node<K, V> {
+        private final K key;
+        private final V value;
+        private long lastAccess;
+        private long frequency = 1;
+
+        private Node(K key, V value, long lastAccess) {
+            this.key = key;
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static class KeyedSoftReference<K, V> extends SoftReference<V> {
+        private final K key;
+
+        private KeyedSoftReference(K key, V value, ReferenceQueue<? super V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
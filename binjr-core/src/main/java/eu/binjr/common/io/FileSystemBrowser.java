@@ -57,6 +57,15 @@ public abstract class FileSystemBrowser implements Closeable {
 
     public abstract Path toPath(String path);
 
+    /**
+     * Returns a {@link Path} through which the entry with the specified path can be accessed directly, e.g. to read
+     * its attributes.
+     *
+     * @param path the path of the entry, relative to the root of the browser.
+     * @return a {@link Path} through which the entry can be accessed directly.
+     */
+    public abstract Path resolve(String path);
+
     private static class FolderBrowser extends FileSystemBrowser {
         public FolderBrowser(Path cvdiagPath) throws IOException {
             super(cvdiagPath);
@@ -91,6 +100,11 @@ public abstract class FileSystemBrowser implements Closeable {
             return Path.of(path);
         }
 
+        @Override
+        public Path resolve(String path) {
+            return getPath().resolve(path);
+        }
+
 
         @Override
         public void close() throws IOException {
@@ -143,6 +157,11 @@ public abstract class FileSystemBrowser implements Closeable {
             return zipRootPath.resolve(path);
         }
 
+        @Override
+        public Path resolve(String path) {
+            return toPath(path);
+        }
+
         @Override
         public void close() throws IOException {
             if (this.zipFile != null) {
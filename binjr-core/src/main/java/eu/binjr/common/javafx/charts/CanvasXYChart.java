@@ -0,0 +1,531 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.javafx.charts;
+
+import eu.binjr.common.logging.Logger;
+import eu.binjr.common.logging.Profiler;
+import javafx.beans.Observable;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.Axis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link XYChart} that draws all of its series onto a single {@link Canvas}, rather than building scene graph nodes
+ * for them.
+ * <p>
+ * The numeric values of each series are extracted into primitive arrays once whenever their data changes, and every
+ * series is drawn as a single batched path, using buffers that are reused from one frame to the next.
+ * Axes must be linear, which is the case of both {@link ZonedDateTimeAxis} and {@link StableTicksAxis}.
+ * </p>
+ *
+ * @param <X> the type of the X coordinates.
+ * @param <Y> the type of the Y coordinates.
+ * @author Frederic Thevenet
+ */
+public class CanvasXYChart<X, Y> extends XYChart<X, Y> implements EnvelopeChart<X, Y> {
+    private static final Logger logger = Logger.create(CanvasXYChart.class);
+    private static final double[] EMPTY = new double[0];
+    private static final double MAPPING_SPAN = 1_000_000.0;
+    private final RenderStyle renderStyle;
+    private final Canvas canvas = new Canvas();
+    private final Map<Series<X, Y>, SeriesBuffer> buffers = new HashMap<>();
+    private final Map<Series<X, Y>, ObjectProperty<Color>> seriesColors = new HashMap<>();
+    private final DoubleProperty strokeWidth = new SimpleDoubleProperty(1.0);
+    private final DoubleProperty fillOpacity = new SimpleDoubleProperty(0.4);
+    private final BooleanProperty showAreaOutline = new SimpleBooleanProperty(true);
+    private final List<SeriesBuffer> stackedLayers = new ArrayList<>();
+    private final EnvelopeLayer<X, Y> envelopes = new EnvelopeLayer<>(null, this::requestChartLayout);
+    private boolean stackedLayersValid = false;
+    private double[] screenX = EMPTY;
+    private double[] screenY = EMPTY;
+
+    /**
+     * The ways series can be drawn onto the chart.
+     */
+    public enum RenderStyle {
+        LINE,
+        AREA,
+        STACKED,
+        SCATTER
+    }
+
+    /**
+     * Initializes a new instance of the {@link CanvasXYChart} class.
+     *
+     * @param xAxis       the x axis of the chart.
+     * @param yAxis       the y axis of the chart.
+     * @param renderStyle the way series are drawn onto the chart.
+     */
+    public CanvasXYChart(Axis<X> xAxis, Axis<Y> yAxis, RenderStyle renderStyle) {
+        super(xAxis, yAxis);
+        this.renderStyle = renderStyle;
+        canvas.setManaged(false);
+        canvas.setMouseTransparent(true);
+        getPlotChildren().add(canvas);
+        strokeWidth.addListener(this::onStyleChanged);
+        fillOpacity.addListener(this::onStyleChanged);
+        showAreaOutline.addListener(this::onStyleChanged);
+    }
+
+    /**
+     * Returns the way series are drawn onto the chart.
+     *
+     * @return the way series are drawn onto the chart.
+     */
+    public RenderStyle getRenderStyle() {
+        return renderStyle;
+    }
+
+    /**
+     * Returns the property holding the color used to draw the specified series.
+     *
+     * @param series the series to get the color property for.
+     * @return the property holding the color used to draw the specified series.
+     */
+    public ObjectProperty<Color> seriesColorProperty(Series<X, Y> series) {
+        return seriesColors.computeIfAbsent(series, s -> {
+            var color = new SimpleObjectProperty<>(Color.GRAY);
+            color.addListener(this::onStyleChanged);
+            return color;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * <b>Remark:</b> Envelopes are only drawn with the {@link RenderStyle#LINE} and {@link RenderStyle#AREA} styles.
+     * </p>
+     */
+    @Override
+    public ObjectProperty<EnvelopeBand<X>> envelopeProperty(Series<X, Y> series) {
+        return envelopes.envelopeProperty(series);
+    }
+
+    @Override
+    public ObjectProperty<Color> envelopeColorProperty(Series<X, Y> series) {
+        return envelopes.envelopeColorProperty(series);
+    }
+
+    public double getStrokeWidth() {
+        return strokeWidth.get();
+    }
+
+    public DoubleProperty strokeWidthProperty() {
+        return strokeWidth;
+    }
+
+    public void setStrokeWidth(double strokeWidth) {
+        this.strokeWidth.set(strokeWidth);
+    }
+
+    public double getFillOpacity() {
+        return fillOpacity.get();
+    }
+
+    public DoubleProperty fillOpacityProperty() {
+        return fillOpacity;
+    }
+
+    public void setFillOpacity(double fillOpacity) {
+        this.fillOpacity.set(fillOpacity);
+    }
+
+    public boolean isShowAreaOutline() {
+        return showAreaOutline.get();
+    }
+
+    public BooleanProperty showAreaOutlineProperty() {
+        return showAreaOutline;
+    }
+
+    public void setShowAreaOutline(boolean showAreaOutline) {
+        this.showAreaOutline.set(showAreaOutline);
+    }
+
+    @Override
+    protected void dataItemAdded(Series<X, Y> series, int itemIndex, Data<X, Y> item) {
+        invalidateBuffer(series);
+    }
+
+    @Override
+    protected void dataItemRemoved(Data<X, Y> item, Series<X, Y> series) {
+        invalidateBuffer(series);
+    }
+
+    @Override
+    protected void dataItemChanged(Data<X, Y> item) {
+        buffers.values().forEach(b -> b.valid = false);
+        stackedLayersValid = false;
+    }
+
+    @Override
+    protected void seriesAdded(Series<X, Y> series, int seriesIndex) {
+        buffers.put(series, new SeriesBuffer());
+        stackedLayersValid = false;
+    }
+
+    @Override
+    protected void seriesRemoved(Series<X, Y> series) {
+        buffers.remove(series);
+        seriesColors.remove(series);
+        envelopes.remove(series);
+        stackedLayersValid = false;
+        removeSeriesFromDisplay(series);
+    }
+
+    @Override
+    protected void updateAxisRange() {
+        if (renderStyle != RenderStyle.STACKED) {
+            super.updateAxisRange();
+            envelopes.invalidateRange(getYAxis(), getData());
+            return;
+        }
+        // The Y axis must accommodate the cumulated values, not the values of individual series
+        final Axis<X> xa = getXAxis();
+        final Axis<Y> ya = getYAxis();
+        var layers = getStackedLayers();
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (var layer : layers) {
+            if (layer.size > 0) {
+                minX = Math.min(minX, layer.x[0]);
+                maxX = Math.max(maxX, layer.x[layer.size - 1]);
+                for (int i = 0; i < layer.size; i++) {
+                    minY = Math.min(minY, layer.y[i]);
+                    maxY = Math.max(maxY, layer.y[i]);
+                }
+            }
+        }
+        if (minX > maxX) {
+            return;
+        }
+        if (xa.isAutoRanging()) {
+            xa.invalidateRange(Arrays.asList(xa.toRealValue(minX), xa.toRealValue(maxX)));
+        }
+        if (ya.isAutoRanging()) {
+            ya.invalidateRange(Arrays.asList(ya.toRealValue(minY), ya.toRealValue(maxY)));
+        }
+    }
+
+    @Override
+    protected void layoutPlotChildren() {
+        try (Profiler p = Profiler.start("Drawing chart " + getTitle() + " onto canvas", logger::perf)) {
+            double width = getXAxis().getWidth();
+            double height = getYAxis().getHeight();
+            if (canvas.getWidth() != width || canvas.getHeight() != height) {
+                canvas.setWidth(width);
+                canvas.setHeight(height);
+            }
+            var gc = canvas.getGraphicsContext2D();
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+            double[] xMapping = linearMapping(getXAxis());
+            double[] yMapping = linearMapping(getYAxis());
+            double zeroY = Math.max(0, Math.min(height, yMapping[0]));
+            gc.setLineWidth(getStrokeWidth());
+            if (renderStyle == RenderStyle.STACKED) {
+                var layers = getStackedLayers();
+                int layerIndex = 0;
+                double[] lowerX = EMPTY;
+                double[] lowerY = EMPTY;
+                int lowerSize = 0;
+                for (Iterator<Series<X, Y>> it = getDisplayedSeriesIterator(); it.hasNext(); layerIndex++) {
+                    var color = seriesColorProperty(it.next()).get();
+                    var layer = layers.get(layerIndex);
+                    int n = toScreen(layer, xMapping, yMapping);
+                    drawStackedLayer(gc, color, n, lowerX, lowerY, lowerSize, zeroY);
+                    // The top of this layer is the bottom of the next one: swap buffers rather than copying them
+                    var tmpX = lowerX;
+                    var tmpY = lowerY;
+                    lowerX = screenX;
+                    lowerY = screenY;
+                    lowerSize = n;
+                    screenX = tmpX;
+                    screenY = tmpY;
+                }
+            } else {
+                if (renderStyle != RenderStyle.SCATTER) {
+                    // Draw all envelopes first, so that they remain behind every series
+                    for (Iterator<Series<X, Y>> it = getDisplayedSeriesIterator(); it.hasNext(); ) {
+                        var series = it.next();
+                        var envelope = envelopes.getEnvelope(series);
+                        if (envelope != null) {
+                            drawEnvelope(gc, envelopeColorProperty(series).get(), envelope, xMapping, yMapping);
+                        }
+                    }
+                }
+                for (Iterator<Series<X, Y>> it = getDisplayedSeriesIterator(); it.hasNext(); ) {
+                    var series = it.next();
+                    var color = seriesColorProperty(series).get();
+                    int n = toScreen(getBuffer(series), xMapping, yMapping);
+                    switch (renderStyle) {
+                        case AREA:
+                            drawArea(gc, color, n, zeroY);
+                            break;
+                        case SCATTER:
+                            drawScatter(gc, color, n);
+                            break;
+                        case LINE:
+                        default:
+                            drawLine(gc, color, n);
+                            break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void drawLine(GraphicsContext gc, Color color, int n) {
+        gc.setStroke(color);
+        gc.beginPath();
+        traceLine(gc, n);
+        gc.stroke();
+    }
+
+    private void drawArea(GraphicsContext gc, Color color, int n, double zeroY) {
+        gc.setFill(color.deriveColor(0.0, 1.0, 1.0, getFillOpacity()));
+        gc.beginPath();
+        int i = 0;
+        while (i < n) {
+            // Close an area for each run of consecutive values
+            while (i < n && Double.isNaN(screenY[i])) {
+                i++;
+            }
+            if (i < n) {
+                int start = i;
+                gc.moveTo(screenX[start], zeroY);
+                while (i < n && !Double.isNaN(screenY[i])) {
+                    gc.lineTo(screenX[i], screenY[i]);
+                    i++;
+                }
+                gc.lineTo(screenX[i - 1], zeroY);
+                gc.closePath();
+            }
+        }
+        gc.fill();
+        if (isShowAreaOutline()) {
+            drawLine(gc, color, n);
+        }
+    }
+
+    private void drawEnvelope(GraphicsContext gc,
+                              Color color,
+                              EnvelopeBand<X> envelope,
+                              double[] xMapping,
+                              double[] yMapping) {
+        int n = envelope.size();
+        if (screenX.length < n) {
+            screenX = new double[n];
+            screenY = new double[n];
+        }
+        for (int i = 0; i < n; i++) {
+            screenX[i] = xMapping[0] + xMapping[1] * getXAxis().toNumericValue(envelope.getXValue(i));
+        }
+        gc.setFill(color.deriveColor(0.0, 1.0, 1.0, ENVELOPE_OPACITY));
+        gc.beginPath();
+        int i = 0;
+        while (i < n) {
+            // Close a polygon for each run of positions where the band is defined
+            while (i < n && !envelope.isDefined(i)) {
+                i++;
+            }
+            int start = i;
+            while (i < n && envelope.isDefined(i)) {
+                i++;
+            }
+            if (i > start) {
+                gc.moveTo(screenX[start], yMapping[0] + yMapping[1] * envelope.getUpperValue(start));
+                for (int j = start + 1; j < i; j++) {
+                    gc.lineTo(screenX[j], yMapping[0] + yMapping[1] * envelope.getUpperValue(j));
+                }
+                for (int j = i - 1; j >= start; j--) {
+                    gc.lineTo(screenX[j], yMapping[0] + yMapping[1] * envelope.getLowerValue(j));
+                }
+                gc.closePath();
+            }
+        }
+        gc.fill();
+    }
+
+    private void drawStackedLayer(GraphicsContext gc,
+                                  Color color,
+                                  int n,
+                                  double[] lowerX,
+                                  double[] lowerY,
+                                  int lowerSize,
+                                  double zeroY) {
+        if (n == 0) {
+            return;
+        }
+        gc.setFill(color.deriveColor(0.0, 1.0, 1.0, getFillOpacity()));
+        gc.beginPath();
+        gc.moveTo(screenX[0], screenY[0]);
+        for (int i = 1; i < n; i++) {
+            gc.lineTo(screenX[i], screenY[i]);
+        }
+        if (lowerSize == 0) {
+            gc.lineTo(screenX[n - 1], zeroY);
+            gc.lineTo(screenX[0], zeroY);
+        } else {
+            for (int i = lowerSize - 1; i >= 0; i--) {
+                gc.lineTo(lowerX[i], lowerY[i]);
+            }
+        }
+        gc.closePath();
+        gc.fill();
+        if (isShowAreaOutline()) {
+            drawLine(gc, color, n);
+        }
+    }
+
+    private void drawScatter(GraphicsContext gc, Color color, int n) {
+        double radius = getStrokeWidth();
+        gc.setFill(color);
+        gc.beginPath();
+        for (int i = 0; i < n; i++) {
+            if (!Double.isNaN(screenY[i])) {
+                gc.moveTo(screenX[i] + radius, screenY[i]);
+                gc.arc(screenX[i], screenY[i], radius, radius, 0, 360);
+            }
+        }
+        gc.fill();
+    }
+
+    private void traceLine(GraphicsContext gc, int n) {
+        boolean penDown = false;
+        for (int i = 0; i < n; i++) {
+            if (Double.isNaN(screenY[i])) {
+                penDown = false;
+            } else if (penDown) {
+                gc.lineTo(screenX[i], screenY[i]);
+            } else {
+                gc.moveTo(screenX[i], screenY[i]);
+                penDown = true;
+            }
+        }
+    }
+
+    private int toScreen(SeriesBuffer buffer, double[] xMapping, double[] yMapping) {
+        if (screenX.length < buffer.size) {
+            screenX = new double[buffer.size];
+            screenY = new double[buffer.size];
+        }
+        for (int i = 0; i < buffer.size; i++) {
+            screenX[i] = xMapping[0] + xMapping[1] * buffer.x[i];
+            screenY[i] = yMapping[0] + yMapping[1] * buffer.y[i];
+        }
+        return buffer.size;
+    }
+
+    private <T> double[] linearMapping(Axis<T> axis) {
+        // Derive the affine transform from values to display positions from two points
+        double origin = axis.getDisplayPosition(axis.toRealValue(0.0));
+        double scale = (axis.getDisplayPosition(axis.toRealValue(MAPPING_SPAN)) - origin) / MAPPING_SPAN;
+        return new double[]{origin, scale};
+    }
+
+    private SeriesBuffer getBuffer(Series<X, Y> series) {
+        var buffer = buffers.computeIfAbsent(series, s -> new SeriesBuffer());
+        if (!buffer.valid) {
+            var data = series.getData();
+            buffer.ensureCapacity(data.size());
+            int i = 0;
+            for (var item : data) {
+                buffer.x[i] = getXAxis().toNumericValue(item.getXValue());
+                buffer.y[i] = item.getYValue() == null ? Double.NaN : getYAxis().toNumericValue(item.getYValue());
+                i++;
+            }
+            buffer.size = i;
+            buffer.valid = true;
+        }
+        return buffer;
+    }
+
+    private List<SeriesBuffer> getStackedLayers() {
+        if (!stackedLayersValid) {
+            try (Profiler p = Profiler.start("Stacking series for chart " + getTitle(), logger::perf)) {
+                stackedLayers.clear();
+                SeriesBuffer lower = null;
+                for (Iterator<Series<X, Y>> it = getDisplayedSeriesIterator(); it.hasNext(); ) {
+                    lower = stack(lower, getBuffer(it.next()));
+                    stackedLayers.add(lower);
+                }
+                stackedLayersValid = true;
+            }
+        }
+        return stackedLayers;
+    }
+
+    /**
+     * Adds the values of a series on top of the previously accumulated ones.
+     *
+     * @see SeriesStacking#stack(double[], double[], int, double[], double[], int, double[], double[])
+     */
+    private static SeriesBuffer stack(SeriesBuffer lower, SeriesBuffer values) {
+        var result = new SeriesBuffer();
+        result.valid = true;
+        if (lower == null) {
+            lower = new SeriesBuffer();
+        }
+        result.ensureCapacity(lower.size + values.size);
+        result.size = SeriesStacking.stack(lower.x, lower.y, lower.size, values.x, values.y, values.size, result.x, result.y);
+        return result;
+    }
+
+    private void invalidateBuffer(Series<X, Y> series) {
+        var buffer = buffers.get(series);
+        if (buffer != null) {
+            buffer.valid = false;
+        }
+        stackedLayersValid = false;
+    }
+
+    private void onStyleChanged(Observable observable) {
+        requestChartLayout();
+    }
+
+    private static class SeriesBuffer {
+        private double[] x = EMPTY;
+        private double[] y = EMPTY;
+        private int size = 0;
+        private boolean valid = false;
+
+        private void ensureCapacity(int capacity) {
+            if (x.length < capacity) {
+                x = new double[capacity];
+                y = new double[capacity];
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.javafx.charts;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.scene.chart.AreaChart;
+import javafx.scene.chart.Axis;
+import javafx.scene.paint.Color;
+
+/**
+ * A {@link AreaChart} that can draw an {@link EnvelopeBand} as a translucent fill behind each of its series.
+ *
+ * @param <X> the type of the X coordinates.
+ * @param <Y> the type of the Y coordinates.
+ * @author Frederic Thevenet
+ */
+public class EnvelopeAreaChart<X, Y> extends AreaChart<X, Y> implements EnvelopeChart<X, Y> {
+    private final EnvelopeLayer<X, Y> envelopes = new EnvelopeLayer<>(getPlotChildren(), this::requestChartLayout);
+
+    /**
+     * Initializes a new instance of the {@link EnvelopeAreaChart} class.
+     *
+     * @param xAxis the x axis of the chart.
+     * @param yAxis the y axis of the chart.
+     */
+    public EnvelopeAreaChart(Axis<X> xAxis, Axis<Y> yAxis) {
+        super(xAxis, yAxis);
+    }
+
+    @Override
+    public ObjectProperty<EnvelopeBand<X>> envelopeProperty(Series<X, Y> series) {
+        return envelopes.envelopeProperty(series);
+    }
+
+    @Override
+    public ObjectProperty<Color> envelopeColorProperty(Series<X, Y> series) {
+        return envelopes.envelopeColorProperty(series);
+    }
+
+    @Override
+    protected void updateAxisRange() {
+        super.updateAxisRange();
+        envelopes.invalidateRange(getYAxis(), getData());
+    }
+
+    @Override
+    protected void layoutPlotChildren() {
+        super.layoutPlotChildren();
+        envelopes.layoutPaths(getXAxis(), getYAxis());
+    }
+
+    @Override
+    protected void seriesRemoved(Series<X, Y> series) {
+        super.seriesRemoved(series);
+        envelopes.remove(series);
+    }
+}
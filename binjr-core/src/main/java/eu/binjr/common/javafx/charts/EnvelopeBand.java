@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.javafx.charts;
+
+import java.util.List;
+
+/**
+ * Describes a band that spans between a lower and an upper value at each of a series of positions along the X axis,
+ * e.g. the range of values that were aggregated into each sample of a down-sampled series.
+ * <p>
+ * The lower and upper bounds are expressed as numeric values on the Y axis, and positions where either is NaN
+ * interrupt the band. Instances are immutable.
+ * </p>
+ *
+ * @param <X> the type of the X coordinates.
+ * @author Frederic Thevenet
+ */
+public final class EnvelopeBand<X> {
+    private final List<X> xValues;
+    private final double[] lowerValues;
+    private final double[] upperValues;
+
+    /**
+     * Initializes a new instance of the {@link EnvelopeBand} class.
+     *
+     * @param xValues     the positions of the band along the X axis.
+     * @param lowerValues the lower bound of the band at each position.
+     * @param upperValues the upper bound of the band at each position.
+     */
+    public EnvelopeBand(List<X> xValues, double[] lowerValues, double[] upperValues) {
+        if (lowerValues.length != xValues.size() || upperValues.length != xValues.size()) {
+            throw new IllegalArgumentException("The number of bounds must match the number of positions");
+        }
+        this.xValues = List.copyOf(xValues);
+        this.lowerValues = lowerValues.clone();
+        this.upperValues = upperValues.clone();
+    }
+
+    /**
+     * Returns the number of positions in the band.
+     *
+     * @return the number of positions in the band.
+     */
+    public int size() {
+        return xValues.size();
+    }
+
+    /**
+     * Returns the position along the X axis at the specified index.
+     *
+     * @param index the index of the position.
+     * @return the position along the X axis at the specified index.
+     */
+    public X getXValue(int index) {
+        return xValues.get(index);
+    }
+
+    /**
+     * Returns the lower bound of the band at the specified index.
+     *
+     * @param index the index of the position.
+     * @return the lower bound of the band at the specified index.
+     */
+    public double getLowerValue(int index) {
+        return lowerValues[index];
+    }
+
+    /**
+     * Returns the upper bound of the band at the specified index.
+     *
+     * @param index the index of the position.
+     * @return the upper bound of the band at the specified index.
+     */
+    public double getUpperValue(int index) {
+        return upperValues[index];
+    }
+
+    /**
+     * Returns true if the band is defined at the specified index, false otherwise.
+     *
+     * @param index the index of the position.
+     * @return true if neither bound is NaN at the specified index, false otherwise.
+     */
+    public boolean isDefined(int index) {
+        return !Double.isNaN(lowerValues[index]) && !Double.isNaN(upperValues[index]);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.javafx.charts;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.scene.chart.XYChart;
+import javafx.scene.paint.Color;
+
+/**
+ * Defines charts that can draw an {@link EnvelopeBand} as a translucent fill behind each of their series.
+ *
+ * @param <X> the type of the X coordinates.
+ * @param <Y> the type of the Y coordinates.
+ * @author Frederic Thevenet
+ */
+public interface EnvelopeChart<X, Y> {
+    /**
+     * The opacity applied to the color of an envelope when filling it.
+     */
+    double ENVELOPE_OPACITY = 0.25;
+
+    /**
+     * Returns the property holding the envelope drawn behind the specified series, or null if there is none.
+     *
+     * @param series the series to get the envelope property for.
+     * @return the property holding the envelope drawn behind the specified series.
+     */
+    ObjectProperty<EnvelopeBand<X>> envelopeProperty(XYChart.Series<X, Y> series);
+
+    /**
+     * Returns the property holding the color of the envelope drawn behind the specified series.
+     *
+     * @param series the series to get the envelope color property for.
+     * @return the property holding the color of the envelope drawn behind the specified series.
+     */
+    ObjectProperty<Color> envelopeColorProperty(XYChart.Series<X, Y> series);
+}
@@ -0,0 +1,205 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.javafx.charts;
+
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.chart.Axis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the envelopes attached to the series of a chart, on behalf of an {@link EnvelopeChart}.
+ * <p>
+ * When provided with the plot children of the chart, the layer also maintains a {@link Path} node per envelope,
+ * placed behind the nodes of the series.
+ * </p>
+ *
+ * @param <X> the type of the X coordinates.
+ * @param <Y> the type of the Y coordinates.
+ * @author Frederic Thevenet
+ */
+final class EnvelopeLayer<X, Y> {
+    private final Map<XYChart.Series<X, Y>, ObjectProperty<EnvelopeBand<X>>> envelopes = new HashMap<>();
+    private final Map<XYChart.Series<X, Y>, ObjectProperty<Color>> colors = new HashMap<>();
+    private final Map<XYChart.Series<X, Y>, Path> paths = new HashMap<>();
+    private final ObservableList<Node> plotChildren;
+    private final Runnable onChanged;
+
+    /**
+     * Initializes a new instance of the {@link EnvelopeLayer} class.
+     *
+     * @param plotChildren the plot children of the chart to add envelope nodes to, or null if the chart draws the
+     *                     envelopes by itself.
+     * @param onChanged    invoked whenever an envelope or its color changes.
+     */
+    EnvelopeLayer(ObservableList<Node> plotChildren, Runnable onChanged) {
+        this.plotChildren = plotChildren;
+        this.onChanged = onChanged;
+    }
+
+    ObjectProperty<EnvelopeBand<X>> envelopeProperty(XYChart.Series<X, Y> series) {
+        return envelopes.computeIfAbsent(series, s -> {
+            var envelope = new SimpleObjectProperty<EnvelopeBand<X>>();
+            envelope.addListener((observable, oldValue, newValue) -> onChanged.run());
+            if (plotChildren != null) {
+                var path = new Path();
+                path.getStyleClass().add("chart-series-envelope");
+                path.setStrokeWidth(0);
+                path.setMouseTransparent(true);
+                path.fillProperty().bind(Bindings.createObjectBinding(
+                        () -> envelopeColorProperty(s).get().deriveColor(0.0, 1.0, 1.0, EnvelopeChart.ENVELOPE_OPACITY),
+                        envelopeColorProperty(s)));
+                paths.put(s, path);
+                plotChildren.add(0, path);
+            }
+            return envelope;
+        });
+    }
+
+    ObjectProperty<Color> envelopeColorProperty(XYChart.Series<X, Y> series) {
+        return colors.computeIfAbsent(series, s -> {
+            var color = new SimpleObjectProperty<>(Color.GRAY);
+            color.addListener((observable, oldValue, newValue) -> onChanged.run());
+            return color;
+        });
+    }
+
+    /**
+     * Returns the envelope attached to the specified series, or null if there is none.
+     *
+     * @param series the series to get the envelope of.
+     * @return the envelope attached to the specified series, or null if there is none.
+     */
+    EnvelopeBand<X> getEnvelope(XYChart.Series<X, Y> series) {
+        var envelope = envelopes.get(series);
+        return envelope == null ? null : envelope.get();
+    }
+
+    /**
+     * Forgets about the envelope attached to the specified series, and removes its node from the chart.
+     *
+     * @param series the series that was removed from the chart.
+     */
+    void remove(XYChart.Series<X, Y> series) {
+        envelopes.remove(series);
+        colors.remove(series);
+        var path = paths.remove(series);
+        if (path != null) {
+            path.fillProperty().unbind();
+            plotChildren.remove(path);
+        }
+    }
+
+    /**
+     * Widens the range of the Y axis so that it also accommodates the envelopes of the provided series, if it is
+     * auto-ranging.
+     *
+     * @param yAxis  the Y axis of the chart.
+     * @param series the series of the chart.
+     */
+    void invalidateRange(Axis<Y> yAxis, List<XYChart.Series<X, Y>> series) {
+        if (!yAxis.isAutoRanging()) {
+            return;
+        }
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (var s : series) {
+            var envelope = getEnvelope(s);
+            if (envelope != null) {
+                for (int i = 0; i < envelope.size(); i++) {
+                    if (envelope.isDefined(i)) {
+                        min = Math.min(min, envelope.getLowerValue(i));
+                        max = Math.max(max, envelope.getUpperValue(i));
+                    }
+                }
+            }
+        }
+        if (min > max) {
+            return;
+        }
+        List<Y> yData = new ArrayList<>();
+        for (var s : series) {
+            for (var data : s.getData()) {
+                yData.add(data.getYValue());
+            }
+        }
+        yData.add(yAxis.toRealValue(min));
+        yData.add(yAxis.toRealValue(max));
+        yAxis.invalidateRange(yData);
+    }
+
+    /**
+     * Updates the shape of the envelope nodes to match the current state of the axes.
+     *
+     * @param xAxis the X axis of the chart.
+     * @param yAxis the Y axis of the chart.
+     */
+    void layoutPaths(Axis<X> xAxis, Axis<Y> yAxis) {
+        paths.forEach((series, path) -> {
+            var envelope = getEnvelope(series);
+            List<PathElement> elements = new ArrayList<>();
+            if (envelope != null) {
+                int n = envelope.size();
+                double[] x = new double[n];
+                for (int i = 0; i < n; i++) {
+                    x[i] = xAxis.getDisplayPosition(envelope.getXValue(i));
+                }
+                int i = 0;
+                while (i < n) {
+                    // Close a polygon for each run of positions where the band is defined
+                    while (i < n && !envelope.isDefined(i)) {
+                        i++;
+                    }
+                    int start = i;
+                    while (i < n && envelope.isDefined(i)) {
+                        i++;
+                    }
+                    if (i > start) {
+                        elements.add(new MoveTo(x[start], yPosition(yAxis, envelope.getUpperValue(start))));
+                        for (int j = start + 1; j < i; j++) {
+                            elements.add(new LineTo(x[j], yPosition(yAxis, envelope.getUpperValue(j))));
+                        }
+                        for (int j = i - 1; j >= start; j--) {
+                            elements.add(new LineTo(x[j], yPosition(yAxis, envelope.getLowerValue(j))));
+                        }
+                        elements.add(new ClosePath());
+                    }
+                }
+            }
+            path.setVisible(series.getNode() == null || series.getNode().isVisible());
+            path.getElements().setAll(elements);
+        });
+    }
+
+    private double yPosition(Axis<Y> yAxis, double value) {
+        return yAxis.getDisplayPosition(yAxis.toRealValue(value));
+    }
+}
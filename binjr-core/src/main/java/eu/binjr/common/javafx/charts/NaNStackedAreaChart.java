@@ -16,15 +16,31 @@
 
 package eu.binjr.common.javafx.charts;
 
+import eu.binjr.common.logging.Logger;
+import eu.binjr.common.logging.Profiler;
 import javafx.collections.ObservableList;
 import javafx.scene.chart.Axis;
 import javafx.scene.chart.StackedAreaChart;
 import javafx.scene.chart.XYChart;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
+/**
+ * A {@link StackedAreaChart} that treats NaN values as zero when accumulating series, and that computes the range of
+ * its axes over primitive arrays, only when its data changes.
+ *
+ * @param <X> the type of the X coordinates.
+ * @param <Y> the type of the Y coordinates.
+ * @author Frederic Thevenet
+ */
 public class NaNStackedAreaChart<X, Y> extends StackedAreaChart<X, Y> {
-
+    private static final Logger logger = Logger.create(NaNStackedAreaChart.class);
+    private double[] cachedRange;
+    private boolean cachedRangeValid = false;
 
     public NaNStackedAreaChart(Axis<X> xAxis, Axis<Y> yAxis) {
         super(xAxis, yAxis);
@@ -43,97 +59,160 @@ public class NaNStackedAreaChart<X, Y> extends StackedAreaChart<X, Y> {
         // Y axis instead of the normal way where max value in the data range is used.
         final Axis<X> xa = getXAxis();
         final Axis<Y> ya = getYAxis();
+        if (!cachedRangeValid) {
+            try (Profiler ignored = Profiler.start("Computing stacked range for chart " + getTitle(), logger::perf)) {
+                cachedRange = computeRange(xa::toNumericValue, ya::toNumericValue);
+                cachedRangeValid = true;
+            }
+        }
+        if (cachedRange == null) {
+            return;
+        }
         if (xa.isAutoRanging()) {
-            List<X> xData = new ArrayList<>();
-            for (XYChart.Series<X, Y> series : getData()) {
-                for (XYChart.Data<X, Y> data : series.getData()) {
-                    xData.add(data.getXValue());
+            xa.invalidateRange(Arrays.asList(xa.toRealValue(cachedRange[0]), xa.toRealValue(cachedRange[1])));
+        }
+        if (ya.isAutoRanging() && !Double.isNaN(cachedRange[2])) {
+            ya.invalidateRange(Arrays.asList(ya.toRealValue(cachedRange[2]), ya.toRealValue(cachedRange[3])));
+        }
+    }
+
+    @Override
+    protected void dataItemAdded(Series<X, Y> series, int itemIndex, Data<X, Y> item) {
+        cachedRangeValid = false;
+        super.dataItemAdded(series, itemIndex, item);
+    }
+
+    @Override
+    protected void dataItemRemoved(Data<X, Y> item, Series<X, Y> series) {
+        cachedRangeValid = false;
+        super.dataItemRemoved(item, series);
+    }
+
+    @Override
+    protected void dataItemChanged(Data<X, Y> item) {
+        cachedRangeValid = false;
+        super.dataItemChanged(item);
+    }
+
+    @Override
+    protected void seriesAdded(Series<X, Y> series, int seriesIndex) {
+        cachedRangeValid = false;
+        super.seriesAdded(series, seriesIndex);
+    }
+
+    @Override
+    protected void seriesRemoved(Series<X, Y> series) {
+        cachedRangeValid = false;
+        super.seriesRemoved(series);
+    }
+
+    private double[] computeRange(ToDoubleFunction<X> xConverter, ToDoubleFunction<Y> yConverter) {
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        for (var series : getData()) {
+            for (var item : series.getData()) {
+                if (item != null) {
+                    double xv = xConverter.applyAsDouble(item.getXValue());
+                    minX = Math.min(minX, xv);
+                    maxX = Math.max(maxX, xv);
                 }
             }
-            xa.invalidateRange(xData);
         }
-        if (ya.isAutoRanging()) {
-            double totalMinY = Double.MAX_VALUE;
-            Iterator<XYChart.Series<X, Y>> seriesIterator = getDisplayedSeriesIterator();
-            boolean first = true;
-            NavigableMap<Double, Double> accum = new TreeMap<>();
-            NavigableMap<Double, Double> prevAccum = new TreeMap<>();
-            NavigableMap<Double, Double> currentValues = new TreeMap<>();
-            while (seriesIterator.hasNext()) {
-                currentValues.clear();
-                XYChart.Series<X, Y> series = seriesIterator.next();
-                for (XYChart.Data<X, Y> item : series.getData()) {
-                    if (item != null) {
-                        final double xv = xa.toNumericValue(item.getXValue());
-                        final double yv = Double.isNaN(ya.toNumericValue(item.getYValue())) ? 0.0 : ya.toNumericValue(item.getYValue());
-                        currentValues.put(xv, yv);
-                        if (first) {
-                            // On the first pass, just fill the map
-                            accum.put(xv, yv);
-                            // minimum is applicable only in the first series
-                            totalMinY = Math.min(totalMinY, yv);
-                        } else {
-                            if (prevAccum.containsKey(xv)) {
-                                accum.put(xv, prevAccum.get(xv) + yv);
-                            } else {
-                                // If the point wasn't yet in the previous (accumulated) series
-                                Map.Entry<Double, Double> he = prevAccum.higherEntry(xv);
-                                Map.Entry<Double, Double> le = prevAccum.lowerEntry(xv);
-                                if (he != null && le != null) {
-                                    // If there's both point above and below this point, interpolate
-                                    accum.put(xv, ((xv - le.getKey()) / (he.getKey() - le.getKey())) *
-                                            (le.getValue() + he.getValue()) + yv);
-                                } else if (he != null) {
-                                    // The point is before the first point in the previously accumulated series
-                                    accum.put(xv, he.getValue() + yv);
-                                } else if (le != null) {
-                                    // The point is after the last point in the previously accumulated series
-                                    accum.put(xv, le.getValue() + yv);
-                                } else {
-                                    // The previously accumulated series is empty
-                                    accum.put(xv, yv);
-                                }
-                            }
-                        }
-                    }
-                }
-                // Now update all the keys that were in the previous series, but not in the new one
-                for (Map.Entry<Double, Double> e : prevAccum.entrySet()) {
-                    if (accum.keySet().contains(e.getKey())) {
-                        continue;
-                    }
-                    Double k = e.getKey();
-                    final Double v = e.getValue();
-                    // Look at the values of the current series
-                    Map.Entry<Double, Double> he = currentValues.higherEntry(k);
-                    Map.Entry<Double, Double> le = currentValues.lowerEntry(k);
-                    if (he != null && le != null) {
-                        // Interpolate the for the point from current series and add the accumulated value
-                        accum.put(k, ((k - le.getKey()) / (he.getKey() - le.getKey())) *
-                                (le.getValue() + he.getValue()) + v);
-                    } else if (he != null) {
-                        // There accumulated value is before the first value in the current series
-                        accum.put(k, he.getValue() + v);
-                    } else if (le != null) {
-                        // There accumulated value is after the last value in the current series
-                        accum.put(k, le.getValue() + v);
-                    } else {
-                        // The current series are empty
-                        accum.put(k, v);
-                    }
+        if (minX > maxX) {
+            return null;
+        }
+        double[] yRange = computeStackedRange(getDisplayedSeriesIterator(), xConverter, yConverter);
+        return yRange == null ?
+                new double[]{minX, maxX, Double.NaN, Double.NaN} :
+                new double[]{minX, maxX, yRange[0], yRange[1]};
+    }
 
+    /**
+     * Computes the range of values on the Y axis for the provided series once stacked onto one another.
+     * <p>
+     * Each series is accumulated onto the previous ones in a single merge over primitive arrays, values being linearly
+     * interpolated on the X coordinates where a series has no point of its own.
+     * </p>
+     *
+     * @param seriesIterator an iterator over the series to stack.
+     * @param xConverter     a function that returns the numeric value for an X coordinate.
+     * @param yConverter     a function that returns the numeric value for a Y coordinate.
+     * @param <X>            the type of the X coordinates.
+     * @param <Y>            the type of the Y coordinates.
+     * @return an array containing the minimum and maximum stacked values, or null if the series contain no values.
+     */
+    public static <X, Y> double[] computeStackedRange(Iterator<XYChart.Series<X, Y>> seriesIterator,
+                                                      ToDoubleFunction<X> xConverter,
+                                                      ToDoubleFunction<Y> yConverter) {
+        double totalMinY = Double.MAX_VALUE;
+        double[] accumX = new double[0];
+        double[] accumY = new double[0];
+        int accumSize = 0;
+        double[] nextX = new double[0];
+        double[] nextY = new double[0];
+        double[] x = new double[0];
+        double[] y = new double[0];
+        while (seriesIterator.hasNext()) {
+            XYChart.Series<X, Y> series = seriesIterator.next();
+            var data = series.getData();
+            if (x.length < data.size()) {
+                x = new double[data.size()];
+                y = new double[data.size()];
+            }
+            int size = 0;
+            boolean sorted = true;
+            for (XYChart.Data<X, Y> item : data) {
+                if (item != null) {
+                    x[size] = xConverter.applyAsDouble(item.getXValue());
+                    y[size] = yConverter.applyAsDouble(item.getYValue());
+                    sorted &= size == 0 || x[size - 1] <= x[size];
+                    size++;
+                }
+            }
+            if (!sorted) {
+                sortByX(x, y, size);
+            }
+            if (accumSize == 0) {
+                // minimum is applicable only in the first series
+                for (int i = 0; i < size; i++) {
+                    totalMinY = Math.min(totalMinY, Double.isNaN(y[i]) ? 0.0 : y[i]);
                 }
-
-                prevAccum.clear();
-                prevAccum.putAll(accum);
-                accum.clear();
-                first = (totalMinY == Double.MAX_VALUE); // If there was already some value in the series, we can consider as
-                // being past the first series
-
             }
-            if (totalMinY != Double.MAX_VALUE) ya.invalidateRange(Arrays.asList(ya.toRealValue(totalMinY),
-                    ya.toRealValue(Collections.max(prevAccum.values()))));
+            if (nextX.length < accumSize + size) {
+                nextX = new double[accumSize + size];
+                nextY = new double[accumSize + size];
+            }
+            int nextSize = SeriesStacking.stack(accumX, accumY, accumSize, x, y, size, nextX, nextY);
+            // The new accumulation becomes the base for the next series: swap buffers rather than copying them
+            var tmpX = accumX;
+            var tmpY = accumY;
+            accumX = nextX;
+            accumY = nextY;
+            accumSize = nextSize;
+            nextX = tmpX;
+            nextY = tmpY;
+        }
+        if (totalMinY == Double.MAX_VALUE) {
+            return null;
+        }
+        double totalMaxY = -Double.MAX_VALUE;
+        for (int i = 0; i < accumSize; i++) {
+            totalMaxY = Math.max(totalMaxY, accumY[i]);
+        }
+        return new double[]{totalMinY, totalMaxY};
+    }
 
+    private static void sortByX(double[] x, double[] y, int size) {
+        double[] sortedX = Arrays.copyOf(x, size);
+        double[] sortedY = Arrays.copyOf(y, size);
+        int[] order = IntStream.range(0, size)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> sortedX[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int i = 0; i < size; i++) {
+            x[i] = sortedX[order[i]];
+            y[i] = sortedY[order[i]];
         }
     }
 }
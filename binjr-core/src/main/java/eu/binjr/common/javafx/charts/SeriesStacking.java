@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.javafx.charts;
+
+/**
+ * Accumulates the values of series stacked onto one another, over primitive arrays.
+ *
+ * @author Frederic Thevenet
+ */
+final class SeriesStacking {
+
+    private SeriesStacking() {
+    }
+
+    /**
+     * Adds the values of a series on top of the previously accumulated ones, in a single sweep over both inputs.
+     * <p>
+     * The resulting layer holds a point for each X coordinate of either inputs, each side being linearly interpolated
+     * where it has no point of its own, and extended flat before its first and after its last point.
+     * NaN values count as zero. Both inputs must be sorted by X coordinate.
+     * </p>
+     *
+     * @param lowerX    the X coordinates of the previously accumulated values.
+     * @param lowerY    the previously accumulated values.
+     * @param lowerSize the number of previously accumulated values.
+     * @param x         the X coordinates of the series to add.
+     * @param y         the values of the series to add.
+     * @param size      the number of values in the series to add.
+     * @param resultX   receives the X coordinates of the accumulated values; must hold lowerSize + size elements.
+     * @param resultY   receives the accumulated values; must hold lowerSize + size elements.
+     * @return the number of accumulated values.
+     */
+    static int stack(double[] lowerX, double[] lowerY, int lowerSize,
+                     double[] x, double[] y, int size,
+                     double[] resultX, double[] resultY) {
+        if (lowerSize == 0) {
+            for (int i = 0; i < size; i++) {
+                resultX[i] = x[i];
+                resultY[i] = nanToZero(y[i]);
+            }
+            return size;
+        }
+        if (size == 0) {
+            System.arraycopy(lowerX, 0, resultX, 0, lowerSize);
+            System.arraycopy(lowerY, 0, resultY, 0, lowerSize);
+            return lowerSize;
+        }
+        int i = 0, j = 0, k = 0;
+        while (i < lowerSize || j < size) {
+            if (j >= size || (i < lowerSize && lowerX[i] < x[j])) {
+                resultX[k] = lowerX[i];
+                resultY[k] = lowerY[i] + interpolate(x, y, size, j, lowerX[i]);
+                i++;
+            } else if (i >= lowerSize || x[j] < lowerX[i]) {
+                resultX[k] = x[j];
+                resultY[k] = nanToZero(y[j]) + interpolate(lowerX, lowerY, lowerSize, i, x[j]);
+                j++;
+            } else {
+                resultX[k] = lowerX[i];
+                resultY[k] = lowerY[i] + nanToZero(y[j]);
+                i++;
+                j++;
+            }
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the value of a series at the specified X coordinate, where next is the index of its first point past it.
+     */
+    private static double interpolate(double[] x, double[] y, int size, int next, double at) {
+        if (next <= 0) {
+            return nanToZero(y[0]);
+        }
+        if (next >= size) {
+            return nanToZero(y[size - 1]);
+        }
+        double x0 = x[next - 1];
+        double y0 = nanToZero(y[next - 1]);
+        double x1 = x[next];
+        double y1 = nanToZero(y[next]);
+        return x1 == x0 ? y0 : y0 + (y1 - y0) * (at - x0) / (x1 - x0);
+    }
+
+    private static double nanToZero(double value) {
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+}
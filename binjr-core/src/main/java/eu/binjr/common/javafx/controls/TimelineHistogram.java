@@ -0,0 +1,149 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.common.javafx.controls;
+
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * A compact histogram of counts per bucket of time, stacked by category.
+ * <p>
+ * Each category is drawn as a single {@link Path}, styled with the class returned for it by the provided function,
+ * so that the number of nodes in the scene graph does not depend on the number of buckets.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public class TimelineHistogram extends Region {
+    private final Tooltip tooltip = new Tooltip();
+    private Map<String, int[]> countsByCategory = new LinkedHashMap<>();
+    private int nbBuckets = 0;
+    private IntFunction<String> bucketDescriptionFactory = i -> null;
+    private final List<Path> paths = new ArrayList<>();
+    private double layoutWidth = -1;
+    private double layoutHeight = -1;
+
+    /**
+     * Initializes a new instance of the {@link TimelineHistogram} class.
+     */
+    public TimelineHistogram() {
+        getStyleClass().add("timeline-histogram");
+        addEventHandler(MouseEvent.MOUSE_MOVED, event -> {
+            if (nbBuckets > 0 && getWidth() > 0) {
+                int bucket = (int) Math.min(nbBuckets - 1, Math.max(0, event.getX() * nbBuckets / getWidth()));
+                tooltip.setText(bucketDescriptionFactory.apply(bucket));
+            }
+        });
+        Tooltip.install(this, tooltip);
+    }
+
+    /**
+     * Sets the counts to display.
+     *
+     * @param nbBuckets         the number of buckets.
+     * @param countsByCategory  the count in each bucket for each category, stacked from the bottom up in iteration order.
+     * @param styleClassFactory a function that returns the style class for a category.
+     */
+    public void setData(int nbBuckets, Map<String, int[]> countsByCategory, Function<String, String> styleClassFactory) {
+        this.nbBuckets = nbBuckets;
+        this.countsByCategory = countsByCategory;
+        getChildren().clear();
+        paths.clear();
+        for (var category : countsByCategory.keySet()) {
+            var path = new Path();
+            // Used unless the style class of the category sets a fill
+            path.setFill(Color.GRAY);
+            path.setStrokeWidth(0);
+            path.setManaged(false);
+            path.getStyleClass().add(styleClassFactory.apply(category));
+            paths.add(path);
+        }
+        getChildren().addAll(paths);
+        layoutWidth = -1;
+        requestLayout();
+    }
+
+    /**
+     * Sets a function that returns the text of the tooltip shown when hovering over a bucket.
+     *
+     * @param bucketDescriptionFactory a function that returns the text of the tooltip shown for a bucket.
+     */
+    public void setBucketDescriptionFactory(IntFunction<String> bucketDescriptionFactory) {
+        this.bucketDescriptionFactory = bucketDescriptionFactory;
+    }
+
+    /**
+     * Removes all counts from the histogram.
+     */
+    public void clear() {
+        setData(0, new LinkedHashMap<>(), c -> c);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        var insets = getInsets();
+        double width = getWidth() - insets.getLeft() - insets.getRight();
+        double height = getHeight() - insets.getTop() - insets.getBottom();
+        if (width == layoutWidth && height == layoutHeight) {
+            return;
+        }
+        layoutWidth = width;
+        layoutHeight = height;
+        int maxTotal = 0;
+        for (int i = 0; i < nbBuckets; i++) {
+            int total = 0;
+            for (var counts : countsByCategory.values()) {
+                total += counts[i];
+            }
+            maxTotal = Math.max(maxTotal, total);
+        }
+        double bucketWidth = nbBuckets > 0 ? width / nbBuckets : 0;
+        double[] stackedHeights = new double[nbBuckets];
+        int c = 0;
+        for (var counts : countsByCategory.values()) {
+            var elements = new ArrayList<PathElement>();
+            for (int i = 0; i < nbBuckets; i++) {
+                if (counts[i] > 0 && maxTotal > 0) {
+                    // Make sure even a single event remains visible
+                    double h = Math.max(1.0, counts[i] * height / maxTotal);
+                    double x0 = insets.getLeft() + i * bucketWidth;
+                    double x1 = x0 + bucketWidth;
+                    double bottom = insets.getTop() + height - stackedHeights[i];
+                    double top = Math.max(insets.getTop(), bottom - h);
+                    elements.add(new MoveTo(x0, bottom));
+                    elements.add(new LineTo(x1, bottom));
+                    elements.add(new LineTo(x1, top));
+                    elements.add(new LineTo(x0, top));
+                    elements.add(new ClosePath());
+                    stackedHeights[i] += h;
+                }
+            }
+            paths.get(c++).getElements().setAll(elements);
+        }
+    }
+}
@@ -84,6 +84,33 @@ public class CodeAreaHighlighter {
     }
 
     public static SearchHighlightResults computeSearchHitsHighlighting(String text, String searchText, boolean matchCase, boolean regEx) {
+        List<SearchHitRange> hits = new ArrayList<>();
+        if (searchText != null && !searchText.isEmpty()) {
+            var searchPattern = compileSearchPattern(searchText, matchCase, regEx);
+            if (searchPattern != null) {
+                hits = findSearchHits(searchPattern, text);
+            }
+        }
+        int lastKwEnd = 0;
+        StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+        for (var hit : hits) {
+            spansBuilder.add(Collections.emptyList(), hit.getStart() - lastKwEnd);
+            spansBuilder.add(Collections.singleton(SEARCH_RESULT_HIGHLIGHT), hit.getEnd() - hit.getStart());
+            lastKwEnd = hit.getEnd();
+        }
+        spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
+        return new SearchHighlightResults(hits, spansBuilder.create());
+    }
+
+    /**
+     * Compiles the pattern matching the provided search text.
+     *
+     * @param searchText the text to search for.
+     * @param matchCase  true if the search is case sensitive, false otherwise.
+     * @param regEx      true if the search text is a regular expression, false if it is a literal.
+     * @return the compiled pattern, or null if the search text is not a valid expression.
+     */
+    public static Pattern compileSearchPattern(String searchText, boolean matchCase, boolean regEx) {
         StringBuilder searchExpression = new StringBuilder();
         if (!regEx) {
             searchText.codePoints().forEachOrdered(value -> {
@@ -101,26 +128,29 @@ public class CodeAreaHighlighter {
             searchExpression.insert(0, "(?i)");
         }
         logger.debug(() -> "Search expression= " + searchExpression.toString());
-        List<SearchHitRange> hits = new ArrayList<>();
-        int lastKwEnd = 0;
-        StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
         try {
-            var searchPattern = Pattern.compile(searchExpression.toString());
-            if (searchText != null && !searchText.isEmpty()) {
-                Matcher searchMatcher = searchPattern.matcher(text);
-                while (searchMatcher.find()) {
-                    spansBuilder.add(Collections.emptyList(), searchMatcher.start() - lastKwEnd);
-                    spansBuilder.add(Collections.singleton(SEARCH_RESULT_HIGHLIGHT), searchMatcher.end() - searchMatcher.start());
-                    hits.add(new SearchHitRange(searchMatcher.start(), searchMatcher.end()));
-                    lastKwEnd = searchMatcher.end();
-                }
-            }
+            return Pattern.compile(searchExpression.toString());
         } catch (PatternSyntaxException e) {
             logger.error("Incorrect search expression pattern: " + e.getMessage());
             logger.debug("", e);
+            return null;
         }
-        spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
-        return new SearchHighlightResults(hits, spansBuilder.create());
+    }
+
+    /**
+     * Returns the ranges of all the matches of the provided pattern in the text.
+     *
+     * @param searchPattern the pattern to look for.
+     * @param text          the text to search.
+     * @return the ranges of all the matches of the provided pattern in the text.
+     */
+    public static List<SearchHitRange> findSearchHits(Pattern searchPattern, String text) {
+        List<SearchHitRange> hits = new ArrayList<>();
+        Matcher searchMatcher = searchPattern.matcher(text);
+        while (searchMatcher.find()) {
+            hits.add(new SearchHitRange(searchMatcher.start(), searchMatcher.end()));
+        }
+        return hits;
     }
 
     public static StyleSpans<Collection<String>> computeLogsSyntaxHighlighting(String text) {
@@ -0,0 +1,136 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.common.text;
+
+/**
+ * Parses decimal representations of double precision numbers directly from a region of a character array, without
+ * allocating an intermediate {@link String}.
+ * <p>
+ * Plain decimal and scientific notations with up to 18 significant digits and a decimal exponent of at most 22 are
+ * converted exactly using a single floating point operation; any other representation (e.g. longer mantissas,
+ * "NaN", "Infinity" or hexadecimal floating point literals) is handed over to {@link Double#parseDouble(String)}, so
+ * that results are always identical to those of the JDK.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public final class DoubleParser {
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private DoubleParser() {
+    }
+
+    /**
+     * Parses the characters in the specified range as a double.
+     * <p>Leading and trailing whitespaces are ignored, as they are by {@link Double#parseDouble(String)}.</p>
+     *
+     * @param chars the character array holding the text to parse.
+     * @param start the index of the first character to parse (inclusive).
+     * @param end   the index of the last character to parse (exclusive).
+     * @return the parsed value.
+     * @throws NumberFormatException if the specified range does not contain a parsable number.
+     */
+    public static double parse(char[] chars, int start, int end) {
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (chars[pos] == '-' || chars[pos] == '+')) {
+            negative = chars[pos] == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+        for (; pos < end && isDigit(chars[pos]); pos++, digits++) {
+            if (mantissa != 0 || chars[pos] != '0') {
+                if (++significantDigits > MAX_FAST_DIGITS) {
+                    return fallback(chars, start, end);
+                }
+                mantissa = mantissa * 10 + (chars[pos] - '0');
+            }
+        }
+        if (pos < end && chars[pos] == '.') {
+            pos++;
+            for (; pos < end && isDigit(chars[pos]); pos++, digits++) {
+                if (mantissa != 0 || chars[pos] != '0') {
+                    if (++significantDigits > MAX_FAST_DIGITS) {
+                        return fallback(chars, start, end);
+                    }
+                    mantissa = mantissa * 10 + (chars[pos] - '0');
+                }
+                exponent--;
+            }
+        }
+        if (digits == 0) {
+            return fallback(chars, start, end);
+        }
+        if (pos < end && (chars[pos] == 'e' || chars[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (chars[pos] == '-' || chars[pos] == '+')) {
+                negativeExponent = chars[pos] == '-';
+                pos++;
+            }
+            if (pos == end) {
+                return fallback(chars, start, end);
+            }
+            int explicitExponent = 0;
+            for (; pos < end && isDigit(chars[pos]); pos++) {
+                if (explicitExponent > 10_000) {
+                    return fallback(chars, start, end);
+                }
+                explicitExponent = explicitExponent * 10 + (chars[pos] - '0');
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (pos != end || mantissa > MAX_EXACT_MANTISSA) {
+            // Trailing characters (e.g. a 'd' or 'f' suffix) or a mantissa that cannot be represented exactly.
+            return fallback(chars, start, end);
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return fallback(chars, start, end);
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static double fallback(char[] chars, int start, int end) {
+        return Double.parseDouble(new String(chars, start, end - start));
+    }
+}
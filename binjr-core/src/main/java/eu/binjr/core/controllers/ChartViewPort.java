@@ -27,6 +27,7 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.TableView;
+import javafx.stage.Screen;
 
 import java.io.Closeable;
 import java.time.ZonedDateTime;
@@ -47,6 +48,7 @@ public class ChartViewPort implements Closeable {
     private final AtomicBoolean closing = new AtomicBoolean(false);
     private final BooleanProperty selected = new SimpleBooleanProperty(false);
     private XYChartCrosshair<ZonedDateTime, Double> crosshair;
+    private int downSamplingThreshold = -1;
 
     /**
      * Initializes a new instance of the {@link ChartViewPort} class.
@@ -139,6 +141,42 @@ public class ChartViewPort implements Closeable {
         }
     }
 
+    /**
+     * Returns the number of samples needed to plot a series across the whole width of the chart at the current
+     * render scale, which is one per physical pixel.
+     *
+     * @param upperBound the maximum number of samples to return.
+     * @return the number of samples needed to plot a series across the whole width of the chart, or the upper bound
+     * if it is lower or if the chart hasn't been laid out yet.
+     */
+    public int computeDownSamplingThreshold(int upperBound) {
+        double width = chart.getXAxis().getWidth();
+        if (width <= 0) {
+            return upperBound;
+        }
+        var window = chart.getScene() != null ? chart.getScene().getWindow() : null;
+        double renderScale = window != null ? window.getRenderScaleX() : Screen.getPrimary().getOutputScaleX();
+        return (int) Math.max(1, Math.min(upperBound, Math.ceil(width * renderScale)));
+    }
+
+    /**
+     * Returns the down-sampling threshold used the last time data was fetched for the chart.
+     *
+     * @return the down-sampling threshold used the last time data was fetched for the chart, or -1 if it never was.
+     */
+    public int getDownSamplingThreshold() {
+        return downSamplingThreshold;
+    }
+
+    /**
+     * Sets the down-sampling threshold used to fetch data for the chart.
+     *
+     * @param downSamplingThreshold the down-sampling threshold used to fetch data for the chart.
+     */
+    public void setDownSamplingThreshold(int downSamplingThreshold) {
+        this.downSamplingThreshold = downSamplingThreshold;
+    }
+
     public XYChartCrosshair<ZonedDateTime, Double> getCrosshair() {
         return crosshair;
     }
@@ -49,6 +49,7 @@ import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.core.data.exceptions.NoAdapterFoundException;
 import eu.binjr.core.data.timeseries.FacetEntry;
 import eu.binjr.core.data.timeseries.LogEvent;
+import eu.binjr.core.data.timeseries.LogEventsHistogram;
 import eu.binjr.core.data.timeseries.LogEventsProcessor;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.LogWorksheet;
@@ -57,6 +58,7 @@ import eu.binjr.core.data.workspace.TimeSeriesInfo;
 import eu.binjr.core.data.workspace.Worksheet;
 import eu.binjr.core.dialogs.Dialogs;
 import eu.binjr.core.preferences.UserPreferences;
+import javafx.animation.Animation;
 import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
@@ -71,20 +73,27 @@ import javafx.fxml.FXML;
 import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.CheckBoxTableCell;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
+import javafx.scene.text.TextFlow;
 import javafx.util.Duration;
 import org.controlsfx.control.CheckListView;
 import org.controlsfx.control.MaskerPane;
+import org.fxmisc.flowless.VirtualizedScrollPane;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.StyleClassedTextArea;
 import org.fxmisc.richtext.model.ReadOnlyStyledDocumentBuilder;
@@ -97,6 +106,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
@@ -110,18 +121,28 @@ public class LogWorksheetController extends WorksheetController implements Synca
     public static final String WORKSHEET_VIEW_FXML = "/eu/binjr/views/LogWorksheetView.fxml";
     private static final Logger logger = Logger.create(LogWorksheetController.class);
     private static final Gson gson = new Gson();
+    private static final List<String> SEVERITY_STACKING_ORDER = List.of("fatal", "error", "warn", "info", "perf", "debug", "trace");
+    private static final DateTimeFormatter TIMELINE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
     private final LogWorksheet worksheet;
     private final AtomicBoolean closed = new AtomicBoolean(false);
     private final UserPreferences userPrefs = UserPreferences.getInstance();
     private final Property<Collection<FacetEntry>> pathFacetEntries = new SimpleObjectProperty<>();
     private StyleSpans<Collection<String>> syntaxHighlightStyleSpans;
-    private RingIterator<CodeAreaHighlighter.SearchHitRange> searchHitIterator = RingIterator.of(Collections.emptyList());
+    private RingIterator<SearchHit> searchHitIterator = RingIterator.of(Collections.emptyList());
+    private Map<Integer, List<CodeAreaHighlighter.SearchHitRange>> listSearchHits = Collections.emptyMap();
+    private int searchGeneration = 0;
     private Path tmpCssPath;
+    private final Set<DataAdapter<LogEvent>> watchedAdapters = new HashSet<>();
+    private final PauseTransition sourceChangedThrottle = new PauseTransition();
     @FXML
     private AnchorPane root;
     @FXML
     private CodeArea textOutput;
     @FXML
+    private VirtualizedScrollPane<CodeArea> textOutputPane;
+    @FXML
+    private ListView<XYChart.Data<ZonedDateTime, LogEvent>> logListView;
+    @FXML
     private ToggleButton wordWrapButton;
     @FXML
     private Button refreshButton;
@@ -177,6 +198,8 @@ public class LogWorksheetController extends WorksheetController implements Synca
     private StackPane fileTablePane;
     @FXML
     private SplitPane splitPane;
+    @FXML
+    private TimelineHistogram timeline;
 
     public LogWorksheetController(MainViewController parent, LogWorksheet worksheet, Collection<DataAdapter<LogEvent>> adapters)
             throws NoAdapterFoundException {
@@ -207,9 +230,26 @@ public class LogWorksheetController extends WorksheetController implements Synca
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         getBindingManager().attachListener(worksheet.textViewFontSizeProperty(),
-                (ChangeListener<Integer>) (obs, oldVal, newVal) -> textOutput.setStyle("-fx-font-size: " + newVal + "pt;"));
+                (ChangeListener<Integer>) (obs, oldVal, newVal) -> {
+                    textOutput.setStyle("-fx-font-size: " + newVal + "pt;");
+                    logListView.setStyle("-fx-font-size: " + newVal + "pt;");
+                });
         textOutput.setEditable(false);
         getBindingManager().bind(textOutput.wrapTextProperty(), wordWrapButton.selectedProperty());
+        // Virtualized view: events are only rendered once they scroll into view
+        logListView.setCellFactory(param -> new LogEventListCell());
+        logListView.getSelectionModel().setSelectionMode(MULTIPLE);
+        logListView.setOnKeyPressed(getBindingManager().registerHandler(e -> {
+            if (e.getCode() == KeyCode.C && e.isShortcutDown()) {
+                copySelectedEventsToClipboard();
+            }
+        }));
+        getBindingManager().bind(logListView.visibleProperty(), userPrefs.logViewVirtualized.property());
+        getBindingManager().bind(textOutputPane.visibleProperty(), logListView.visibleProperty().not());
+        getBindingManager().attachListener(userPrefs.logViewVirtualized.property(),
+                (ChangeListener<Boolean>) (obs, oldVal, newVal) -> refresh());
+        getBindingManager().attachListener(wordWrapButton.selectedProperty(),
+                (ChangeListener<Boolean>) (obs, oldVal, newVal) -> logListView.refresh());
         refreshButton.setOnAction(getBindingManager().registerHandler(event -> refresh()));
         // TimeRange Picker initialization
         timeRangePicker.timeRangeLinkedProperty().bindBidirectional(worksheet.timeRangeLinkedProperty());
@@ -327,6 +367,11 @@ public class LogWorksheetController extends WorksheetController implements Synca
         // Init log files table view
         intiLogFileTable();
 
+        // Refresh the view when the content of the sources changes, no more often than the throttle allows
+        sourceChangedThrottle.setDuration(Duration.millis(userPrefs.logRefreshThrottleMs.get().intValue()));
+        sourceChangedThrottle.setOnFinished(getBindingManager().registerHandler(event -> refresh()));
+        worksheet.getSeriesInfo().forEach(s -> watchAdapter(s.getBinding().getAdapter()));
+
         splitPane.setDividerPositions(worksheet.getDividerPosition());
         bindingManager.bind(worksheet.dividerPositionProperty(), splitPane.getDividers().get(0).positionProperty());
 
@@ -426,6 +471,7 @@ public class LogWorksheetController extends WorksheetController implements Synca
                     bindingManager.attachListener(i.selectedProperty(), isVisibleListener);
                     bindingManager.attachListener(i.selectedProperty(), (ChangeListener<Boolean>) (o, oldVal, newVal) -> invalidate(false, true));
                     bindingManager.attachListener(i.displayColorProperty(), (ChangeListener<Color>) (o, oldVal, newVal) -> invalidate(false, false));
+                    watchAdapter(i.getBinding().getAdapter());
                     worksheet.getSeriesInfo().add(i);
                 }
             }
@@ -433,6 +479,17 @@ public class LogWorksheetController extends WorksheetController implements Synca
         this.refresh();
     }
 
+    private void watchAdapter(DataAdapter<LogEvent> adapter) {
+        if (adapter != null && watchedAdapters.add(adapter)) {
+            bindingManager.attachListener(adapter.dataRevisionProperty(),
+                    (ChangeListener<Number>) (obs, oldVal, newVal) -> Platform.runLater(() -> {
+                        if (!closed.get() && sourceChangedThrottle.getStatus() != Animation.Status.RUNNING) {
+                            sourceChangedThrottle.playFromStart();
+                        }
+                    }));
+        }
+    }
+
     @Override
     public void setReloadRequiredHandler(Consumer<WorksheetController> action) {
     }
@@ -476,13 +533,24 @@ public class LogWorksheetController extends WorksheetController implements Synca
         try {
             AsyncTaskManager.getInstance().submit(() -> {
                         busyIndicator.setVisible(true);
-                        return (LogEventsProcessor) fetchDataFromSources(worksheet.getQueryParameters());
+                        var res = (LogEventsProcessor) fetchDataFromSources(worksheet.getQueryParameters());
+                        if (!userPrefs.logViewVirtualized.get()) {
+                            // Messages are retrieved on demand: get them now, off the FX thread, since the whole page is displayed
+                            try (var p = Profiler.start("Retrieve messages", logger::perf)) {
+                                res.getData().forEach(data -> data.getYValue().getMessage());
+                            }
+                        }
+                        return res;
                     },
                     event -> {
                         bindingManager.suspend();
                         try {
                             // Reset page number
                             var res = (LogEventsProcessor) event.getSource().getValue();
+                            // Keep the position of the page in the results, to go to nearby pages faster
+                            worksheet.setQueryParameters(new LogQueryParameters.Builder(worksheet.getQueryParameters())
+                                    .setPageCursor(res.getPageCursor())
+                                    .build());
                             pager.setPageCount((int) Math.ceil((double) res.getTotalHits() / res.getHitsPerPage()));
                             pager.setCurrentPageIndex(worksheet.getQueryParameters().getPage());
                             // Update severity facet view
@@ -493,6 +561,7 @@ public class LogWorksheetController extends WorksheetController implements Synca
                                     .stream()
                                     .filter(f -> worksheet.getQueryParameters().getSeverities().contains(f.getLabel()))
                                     .forEach(f -> severityListView.getCheckModel().check(f));
+                            updateTimeline(res.getHistogram());
                             // Update filePath facet view
                             var fileFacetEntries = res.getFacetResults().get("filePath");
                             if (fileFacetEntries != null) {
@@ -501,27 +570,12 @@ public class LogWorksheetController extends WorksheetController implements Synca
                                 this.pathFacetEntries.setValue(Collections.emptyList());
                             }
                             // Color and display message text
-                            try (var p = Profiler.start("Display text", logger::perf)) {
-                                var docBuilder = new ReadOnlyStyledDocumentBuilder<Collection<String>, String, Collection<String>>(
-                                        SegmentOps.styledTextOps(),
-                                        Collections.emptyList());
-                                for (var data : res.getData()) {
-                                    var hit = data.getYValue();
-                                    var severity = hit.getFacets().get("severity").getLabel();
-                                    var path = hit.getFacets().get("filePath").getLabel();
-                                    var message = hit.getMessage().stripTrailing();
-                                    docBuilder.addParagraph(
-                                            message,
-                                            List.of(severity),
-                                            List.of("file-" + path.hashCode()));
-                                }
-                                // Add a dummy paragraph if result set is empty, otherwise doc creation will fail
-                                if (res.getData().size() == 0) {
-                                    docBuilder.addParagraph("", Collections.emptyList(), Collections.emptyList());
+                            try {
+                                if (userPrefs.logViewVirtualized.get()) {
+                                    displayEventList(res);
+                                } else {
+                                    displayDocument(res);
                                 }
-                                var doc = docBuilder.build();
-                                syntaxHighlightStyleSpans = doc.getStyleSpans(0, doc.getText().length());
-                                textOutput.replace(doc);
                                 // Reset search highlight
                                 if (!searchTextField.getText().isEmpty()) {
                                     doSearchHighlight(searchTextField.getText(),
@@ -547,6 +601,61 @@ public class LogWorksheetController extends WorksheetController implements Synca
         }
     }
 
+    private void displayDocument(LogEventsProcessor res) {
+        try (var p = Profiler.start("Display text", logger::perf)) {
+            logListView.getItems().clear();
+            var docBuilder = new ReadOnlyStyledDocumentBuilder<Collection<String>, String, Collection<String>>(
+                    SegmentOps.styledTextOps(),
+                    Collections.emptyList());
+            for (var data : res.getData()) {
+                var hit = data.getYValue();
+                var severity = hit.getFacets().get("severity").getLabel();
+                var path = hit.getFacets().get("filePath").getLabel();
+                var message = hit.getMessage().stripTrailing();
+                docBuilder.addParagraph(
+                        message,
+                        List.of(severity),
+                        List.of("file-" + path.hashCode()));
+            }
+            // Add a dummy paragraph if result set is empty, otherwise doc creation will fail
+            if (res.getData().size() == 0) {
+                docBuilder.addParagraph("", Collections.emptyList(), Collections.emptyList());
+            }
+            var doc = docBuilder.build();
+            syntaxHighlightStyleSpans = doc.getStyleSpans(0, doc.getText().length());
+            textOutput.replace(doc);
+        }
+    }
+
+    private void displayEventList(LogEventsProcessor res) {
+        try (var p = Profiler.start("Display event list", logger::perf)) {
+            // Discard highlights from the previous page, as well as any search still running on it
+            searchGeneration++;
+            listSearchHits = Collections.emptyMap();
+            searchHitIterator = RingIterator.of(Collections.emptyList());
+            syntaxHighlightStyleSpans = null;
+            textOutput.clear();
+            // Cells fetch and style the messages of the events as they scroll into view
+            logListView.getItems().setAll(res.getData());
+            logListView.scrollTo(0);
+        }
+    }
+
+    private void copySelectedEventsToClipboard() {
+        var selection = new ArrayList<>(logListView.getSelectionModel().getSelectedItems());
+        // Messages that are not in view may still have to be retrieved from the index
+        AsyncTaskManager.getInstance().submitSubTask(() -> {
+            var text = selection.stream()
+                    .map(data -> data.getYValue().getMessage().stripTrailing())
+                    .collect(Collectors.joining("\n"));
+            Platform.runLater(() -> {
+                var content = new ClipboardContent();
+                content.putString(text);
+                Clipboard.getSystemClipboard().setContent(content);
+            });
+        });
+    }
+
     @Override
     public void saveSnapshot() {
 
@@ -571,6 +680,7 @@ public class LogWorksheetController extends WorksheetController implements Synca
     public void close() {
         if (closed.compareAndSet(false, true)) {
             timeRangePicker.dispose();
+            sourceChangedThrottle.stop();
 
             bindingManager.close();
         }
@@ -685,6 +795,7 @@ public class LogWorksheetController extends WorksheetController implements Synca
                         .map(FacetEntry::getLabel)
                         .collect(Collectors.toSet()))
                 .setPage(resetPage ? 0 : pager.getCurrentPageIndex())
+                .setPageCursor(worksheet.getQueryParameters().getPageCursor())
                 .build();
         if (newParams != worksheet.getQueryParameters()) {
             worksheet.setQueryParameters(newParams);
@@ -707,13 +818,19 @@ public class LogWorksheetController extends WorksheetController implements Synca
         }
     }
 
-    private void focusOnSearchHit(CodeAreaHighlighter.SearchHitRange hit) {
+    private void focusOnSearchHit(SearchHit hit) {
         if (hit == null) {
             textOutput.selectRange(0, 0);
+            logListView.getSelectionModel().clearSelection();
             searchResultsLabel.setText("No results");
         } else {
-            textOutput.selectRange(hit.getStart(), hit.getEnd());
-            textOutput.requestFollowCaret();
+            if (hit.getRow() < 0) {
+                textOutput.selectRange(hit.getRange().getStart(), hit.getRange().getEnd());
+                textOutput.requestFollowCaret();
+            } else {
+                logListView.getSelectionModel().clearAndSelect(hit.getRow());
+                logListView.scrollTo(hit.getRow());
+            }
             searchResultsLabel.setText(String.format("%d/%d",
                     searchHitIterator.peekCurrentIndex() + 1,
                     searchHitIterator.peekLastIndex() + 1));
@@ -721,12 +838,19 @@ public class LogWorksheetController extends WorksheetController implements Synca
     }
 
     private void doSearchHighlight(String searchText, boolean matchCase, boolean regEx) {
+        if (userPrefs.logViewVirtualized.get()) {
+            doListSearchHighlight(searchText, matchCase, regEx);
+            return;
+        }
         try (var p = Profiler.start("Applying search result highlights", logger::perf)) {
             var searchResults =
                     CodeAreaHighlighter.computeSearchHitsHighlighting(textOutput.getText(), searchText, matchCase, regEx);
             prevOccurrenceButton.setDisable(searchResults.getSearchHitRanges().isEmpty());
             nextOccurrenceButton.setDisable(searchResults.getSearchHitRanges().isEmpty());
-            searchHitIterator = RingIterator.of(searchResults.getSearchHitRanges());
+            searchHitIterator = RingIterator.of(searchResults.getSearchHitRanges()
+                    .stream()
+                    .map(range -> new SearchHit(-1, range))
+                    .collect(Collectors.toList()));
             searchResultsLabel.setText(searchResults.getSearchHitRanges().size() + " results");
             if (syntaxHighlightStyleSpans != null) {
                 textOutput.setStyleSpans(0, syntaxHighlightStyleSpans.overlay(searchResults.getStyleSpans(),
@@ -743,6 +867,89 @@ public class LogWorksheetController extends WorksheetController implements Synca
         }
     }
 
+    private void doListSearchHighlight(String searchText, boolean matchCase, boolean regEx) {
+        var generation = ++searchGeneration;
+        var pattern = (searchText == null || searchText.isEmpty()) ?
+                null : CodeAreaHighlighter.compileSearchPattern(searchText, matchCase, regEx);
+        if (pattern == null) {
+            applyListSearchHits(new TreeMap<>());
+            return;
+        }
+        // Looking for matches requires the messages of the whole page: do it off the FX thread.
+        var events = new ArrayList<>(logListView.getItems());
+        try {
+            AsyncTaskManager.getInstance().submit(() -> {
+                        try (var p = Profiler.start("Searching messages", logger::perf)) {
+                            var hits = new TreeMap<Integer, List<CodeAreaHighlighter.SearchHitRange>>();
+                            for (int i = 0; i < events.size(); i++) {
+                                var message = events.get(i).getYValue().getMessage().stripTrailing();
+                                var ranges = CodeAreaHighlighter.findSearchHits(pattern, message);
+                                if (!ranges.isEmpty()) {
+                                    hits.put(i, ranges);
+                                }
+                            }
+                            return hits;
+                        }
+                    },
+                    event -> {
+                        // Ignore results if the page or the search expression changed in the meantime
+                        if (generation == searchGeneration) {
+                            @SuppressWarnings("unchecked")
+                            var hits = (TreeMap<Integer, List<CodeAreaHighlighter.SearchHitRange>>) event.getSource().getValue();
+                            applyListSearchHits(hits);
+                        }
+                    },
+                    event -> Dialogs.notifyException("An error occurred while searching log events: " +
+                                    event.getSource().getException().getMessage(),
+                            event.getSource().getException(),
+                            root));
+        } catch (Exception e) {
+            Dialogs.notifyException(e);
+        }
+    }
+
+    private void applyListSearchHits(TreeMap<Integer, List<CodeAreaHighlighter.SearchHitRange>> hits) {
+        listSearchHits = hits;
+        var flatHits = new ArrayList<SearchHit>();
+        hits.forEach((row, ranges) -> ranges.forEach(range -> flatHits.add(new SearchHit(row, range))));
+        prevOccurrenceButton.setDisable(flatHits.isEmpty());
+        nextOccurrenceButton.setDisable(flatHits.isEmpty());
+        searchHitIterator = RingIterator.of(flatHits);
+        searchResultsLabel.setText(flatHits.size() + " results");
+        logListView.refresh();
+        if (searchHitIterator.hasNext()) {
+            focusOnSearchHit(searchHitIterator.next());
+        } else {
+            focusOnSearchHit(null);
+        }
+    }
+
+    private void updateTimeline(LogEventsHistogram histogram) {
+        if (histogram == null) {
+            timeline.clear();
+            return;
+        }
+        // Stack the most severe events at the bottom, so that they stand out
+        var counts = new LinkedHashMap<String, int[]>();
+        SEVERITY_STACKING_ORDER.stream()
+                .filter(s -> histogram.getCountsBySeverity().containsKey(s))
+                .forEach(s -> counts.put(s, histogram.getCountsBySeverity().get(s)));
+        histogram.getCountsBySeverity().forEach(counts::putIfAbsent);
+        timeline.setBucketDescriptionFactory(bucket -> {
+            var bucketStart = histogram.getStart().plus(histogram.getBucketWidth().multipliedBy(bucket));
+            var text = new StringBuilder(TIMELINE_DATE_FORMAT.format(bucketStart))
+                    .append(" - ")
+                    .append(TIMELINE_DATE_FORMAT.format(bucketStart.plus(histogram.getBucketWidth())));
+            counts.forEach((severity, c) -> {
+                if (c[bucket] > 0) {
+                    text.append("\n").append(severity).append(": ").append(c[bucket]);
+                }
+            });
+            return text.toString();
+        });
+        timeline.setData(histogram.getNbBuckets(), counts, severity -> "log-" + severity);
+    }
+
     private TimeSeriesProcessor<LogEvent> fetchDataFromSources(LogQueryParameters filter) throws DataAdapterException {
         // prune series from closed adapters
         worksheet.getSeriesInfo().removeIf(seriesInfo -> {
@@ -776,7 +983,7 @@ public class LogWorksheetController extends WorksheetController implements Synca
                             .flatMap(Collection::stream)
                             .filter(b -> b.isSelected())
                             .collect(Collectors.toList()),
-                    true);
+                    false);
             return data.values().stream().findFirst().orElse(new LogEventsProcessor());
         }
         return new LogEventsProcessor();
@@ -826,4 +1033,107 @@ public class LogWorksheetController extends WorksheetController implements Synca
 
     }
 
+    private static class SearchHit {
+        private final int row;
+        private final CodeAreaHighlighter.SearchHitRange range;
+
+        private SearchHit(int row, CodeAreaHighlighter.SearchHitRange range) {
+            this.row = row;
+            this.range = range;
+        }
+
+        /**
+         * Returns the index of the event holding the hit in the list view, or -1 if the hit is in the text area.
+         *
+         * @return the index of the event holding the hit in the list view, or -1 if the hit is in the text area.
+         */
+        public int getRow() {
+            return row;
+        }
+
+        public CodeAreaHighlighter.SearchHitRange getRange() {
+            return range;
+        }
+    }
+
+    private class LogEventListCell extends ListCell<XYChart.Data<ZonedDateTime, LogEvent>> {
+        private final TextFlow textFlow = new TextFlow();
+        private String fileStyleClass;
+        private volatile XYChart.Data<ZonedDateTime, LogEvent> pendingItem;
+
+        private LogEventListCell() {
+            setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+            textFlow.prefWidthProperty().bind(Bindings.when(wordWrapButton.selectedProperty())
+                    .then(logListView.widthProperty().subtract(24))
+                    .otherwise(Region.USE_COMPUTED_SIZE));
+        }
+
+        @Override
+        protected void updateItem(XYChart.Data<ZonedDateTime, LogEvent> item, boolean empty) {
+            super.updateItem(item, empty);
+            if (fileStyleClass != null) {
+                getStyleClass().remove(fileStyleClass);
+                fileStyleClass = null;
+            }
+            pendingItem = null;
+            if (empty || item == null) {
+                textFlow.getChildren().clear();
+                setGraphic(null);
+                return;
+            }
+            var event = item.getYValue();
+            var severityStyleClass = "log-" + event.getFacets().get("severity").getLabel();
+            fileStyleClass = "file-" + event.getFacets().get("filePath").getLabel().hashCode();
+            getStyleClass().add(fileStyleClass);
+            setGraphic(textFlow);
+            if (event.isMessageLoaded()) {
+                showMessage(event.getMessage(), severityStyleClass);
+            } else {
+                // Only the messages of the events in view are fetched from the index, off the FX thread
+                textFlow.getChildren().setAll(makeSegment("\u2026", severityStyleClass));
+                loadMessage(item, severityStyleClass);
+            }
+        }
+
+        private void loadMessage(XYChart.Data<ZonedDateTime, LogEvent> item, String severityStyleClass) {
+            pendingItem = item;
+            AsyncTaskManager.getInstance().submitSubTask(() -> {
+                // The cell may have been reused for another event while the task was queued
+                if (pendingItem != item) {
+                    return;
+                }
+                var message = item.getYValue().getMessage();
+                Platform.runLater(() -> {
+                    if (pendingItem == item && getItem() == item) {
+                        pendingItem = null;
+                        showMessage(message, severityStyleClass);
+                    }
+                });
+            });
+        }
+
+        private void showMessage(String rawMessage, String severityStyleClass) {
+            var message = rawMessage.stripTrailing();
+            var segments = new ArrayList<Node>();
+            int pos = 0;
+            for (var hit : listSearchHits.getOrDefault(getIndex(), Collections.emptyList())) {
+                if (hit.getStart() > pos) {
+                    segments.add(makeSegment(message.substring(pos, hit.getStart()), severityStyleClass));
+                }
+                segments.add(makeSegment(message.substring(hit.getStart(), hit.getEnd()),
+                        severityStyleClass, CodeAreaHighlighter.SEARCH_RESULT_HIGHLIGHT));
+                pos = Math.max(pos, hit.getEnd());
+            }
+            if (pos < message.length() || segments.isEmpty()) {
+                segments.add(makeSegment(message.substring(pos), severityStyleClass));
+            }
+            textFlow.getChildren().setAll(segments);
+        }
+
+        private Text makeSegment(String text, String... styleClasses) {
+            var segment = new Text(text);
+            segment.getStyleClass().addAll(styleClasses);
+            return segment;
+        }
+    }
 }
@@ -26,6 +26,7 @@ import eu.binjr.common.logging.Profiler;
 import eu.binjr.common.preferences.ObservablePreference;
 import eu.binjr.core.Binjr;
 import eu.binjr.core.data.adapters.DataAdapterFactory;
+import eu.binjr.core.data.adapters.SimpleCachingDataAdapter;
 import eu.binjr.core.dialogs.Dialogs;
 import eu.binjr.core.preferences.AppEnvironment;
 import eu.binjr.core.preferences.JvmImplementation;
@@ -209,6 +210,10 @@ public class OutputConsoleController implements Initializable {
         Binjr.runtimeDebuggingFeatures.debug(this::getJvmHeapStats);
     }
 
+    public void handleDebugDumpDataCacheStats(ActionEvent actionEvent) {
+        Binjr.runtimeDebuggingFeatures.debug(SimpleCachingDataAdapter.getAllCacheStatistics());
+    }
+
     public void handleDebugDumpThreadsStacks(ActionEvent actionEvent) {
         try {
             Binjr.runtimeDebuggingFeatures.debug(DiagnosticCommand.dumpThreadStacks());
@@ -327,6 +332,7 @@ public class OutputConsoleController implements Initializable {
 
     private void populateDebugCommandMenu(){
         addMenuItem(debugMenuButton, "Dump Heap Stats", "debug-low-icon",this::handleDebugDumpHeapStats, false);
+        addMenuItem(debugMenuButton, "Dump Data Cache Stats", "debug-low-icon",this::handleDebugDumpDataCacheStats, false);
         addMenuItem(debugMenuButton, "Dump VM Flags", "debug-low-icon",this::handleDebugDumpVmFlags, true);
         addMenuItem(debugMenuButton, "Dump VM Command Line", "debug-low-icon",this::handleDebugDumpVmCommandLine, true);
         addMenuItem(debugMenuButton, "Dump VM System Properties", "debug-low-icon",this::handleDebugDumpVmSystemProperties, true);
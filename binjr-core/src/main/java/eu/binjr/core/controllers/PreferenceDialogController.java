@@ -86,6 +86,8 @@ public class PreferenceDialogController implements Initializable {
     @FXML
     private ToggleSwitch enableDownSampling;
     @FXML
+    private ToggleSwitch canvasChartRendering;
+    @FXML
     private Label maxSampleLabel;
     @FXML
     private Accordion accordionPane;
@@ -128,6 +130,7 @@ public class PreferenceDialogController implements Initializable {
             maxSampleLabel.setDisable(!newValue);
         });
         enableDownSampling.selectedProperty().bindBidirectional(UserPreferences.getInstance().downSamplingEnabled.property());
+        canvasChartRendering.selectedProperty().bindBidirectional(userPrefs.canvasChartRendering.property());
 
         fullHeightCrosshair.selectedProperty().bindBidirectional(userPrefs.fullHeightCrosshairMarker.property());
 
@@ -29,17 +29,21 @@ import eu.binjr.core.data.adapters.TimeSeriesBinding;
 import eu.binjr.core.data.async.AsyncTaskManager;
 import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.core.data.exceptions.NoAdapterFoundException;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesProcessor;
+import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.Chart;
 import eu.binjr.core.data.workspace.*;
 import eu.binjr.core.dialogs.Dialogs;
 import eu.binjr.core.preferences.SnapshotOutputScale;
 import eu.binjr.core.preferences.UserHistory;
 import eu.binjr.core.preferences.UserPreferences;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
 import javafx.beans.binding.DoubleBinding;
+import javafx.beans.binding.ObjectBinding;
 import javafx.beans.property.*;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -97,6 +101,7 @@ public class XYChartsWorksheetController extends WorksheetController {
     private static final DataFormat SERIALIZED_MIME_TYPE = new DataFormat("application/x-java-serialized-object");
     private static final Logger logger = Logger.create(XYChartsWorksheetController.class);
     private static final double Y_AXIS_SEPARATION = 10;
+    private static final int RESIZE_REFETCH_DELAY_MS = 500;
     private static final PseudoClass HOVER_PSEUDO_CLASS = PseudoClass.getPseudoClass("hover");
     private final UserPreferences userPrefs = UserPreferences.getInstance();
     private final ToggleGroup editButtonsGroup = new ToggleGroup();
@@ -339,22 +344,26 @@ public class XYChartsWorksheetController extends WorksheetController {
                             currentChart.nameProperty(),
                             currentChart.unitProperty()));
             XYChart<ZonedDateTime, Double> viewPort;
-            switch (currentChart.getChartType()) {
-                case AREA:
-                    viewPort = new AreaChart<>(xAxis, yAxis);
-                    ((AreaChart) viewPort).setCreateSymbols(false);
-                    break;
-                case STACKED:
-                    viewPort = new NaNStackedAreaChart<>(xAxis, yAxis);
-                    ((StackedAreaChart) viewPort).setCreateSymbols(false);
-                    break;
-                case SCATTER:
-                    viewPort = new ScatterChart<>(xAxis, yAxis);
-                    break;
-                case LINE:
-                default:
-                    viewPort = new LineChart<>(xAxis, yAxis);
-                    ((LineChart) viewPort).setCreateSymbols(false);
+            if (userPrefs.canvasChartRendering.get()) {
+                viewPort = buildCanvasChart(currentChart, xAxis, yAxis);
+            } else {
+                switch (currentChart.getChartType()) {
+                    case AREA:
+                        viewPort = new EnvelopeAreaChart<>(xAxis, yAxis);
+                        ((AreaChart) viewPort).setCreateSymbols(false);
+                        break;
+                    case STACKED:
+                        viewPort = new NaNStackedAreaChart<>(xAxis, yAxis);
+                        ((StackedAreaChart) viewPort).setCreateSymbols(false);
+                        break;
+                    case SCATTER:
+                        viewPort = new ScatterChart<>(xAxis, yAxis);
+                        break;
+                    case LINE:
+                    default:
+                        viewPort = new EnvelopeLineChart<>(xAxis, yAxis);
+                        ((LineChart) viewPort).setCreateSymbols(false);
+                }
             }
             viewPort.setCache(true);
             viewPort.setCacheHint(CacheHint.SPEED);
@@ -366,7 +375,22 @@ public class XYChartsWorksheetController extends WorksheetController {
             viewPort.setLegendSide(Side.BOTTOM);
 
             viewPort.setAnimated(false);
-            viewPorts.add(new ChartViewPort(currentChart, viewPort, buildChartPropertiesController(currentChart)));
+            var chartViewPort = new ChartViewPort(currentChart, viewPort, buildChartPropertiesController(currentChart));
+            viewPorts.add(chartViewPort);
+            // Fetch data again once resizing is over, if the new width of the chart calls for a different resolution
+            var resizeDelay = new PauseTransition(Duration.millis(RESIZE_REFETCH_DELAY_MS));
+            resizeDelay.setOnFinished(bindingManager.registerHandler(event -> {
+                if (userPrefs.downSamplingEnabled.get() && chartViewPort.getDownSamplingThreshold() > 0) {
+                    int threshold = chartViewPort.computeDownSamplingThreshold(userPrefs.downSamplingThreshold.get().intValue());
+                    // Tolerate small variations: fetch again when resolution is lacking or when it is largely in excess
+                    if (threshold > chartViewPort.getDownSamplingThreshold() * 1.1 ||
+                            threshold < chartViewPort.getDownSamplingThreshold() / 2) {
+                        invalidate(chartViewPort, false, false);
+                    }
+                }
+            }));
+            bindingManager.attachListener(xAxis.widthProperty(),
+                    (ChangeListener<Number>) (observable, oldValue, newValue) -> resizeDelay.playFromStart());
             viewPort.getYAxis().addEventFilter(MouseEvent.MOUSE_CLICKED, bindingManager.registerHandler(event -> {
                 for (int i = 0; i < viewPorts.size(); i++) {
                     if (viewPorts.get(i).getChart() == viewPort) {
@@ -458,6 +482,29 @@ public class XYChartsWorksheetController extends WorksheetController {
         }
     }
 
+    private CanvasXYChart<ZonedDateTime, Double> buildCanvasChart(Chart currentChart, ZonedDateTimeAxis xAxis, StableTicksAxis yAxis) {
+        CanvasXYChart.RenderStyle renderStyle;
+        switch (currentChart.getChartType()) {
+            case AREA:
+                renderStyle = CanvasXYChart.RenderStyle.AREA;
+                break;
+            case STACKED:
+                renderStyle = CanvasXYChart.RenderStyle.STACKED;
+                break;
+            case SCATTER:
+                renderStyle = CanvasXYChart.RenderStyle.SCATTER;
+                break;
+            case LINE:
+            default:
+                renderStyle = CanvasXYChart.RenderStyle.LINE;
+        }
+        var canvasChart = new CanvasXYChart<ZonedDateTime, Double>(xAxis, yAxis, renderStyle);
+        bindingManager.bind(canvasChart.strokeWidthProperty(), currentChart.strokeWidthProperty());
+        bindingManager.bind(canvasChart.fillOpacityProperty(), currentChart.graphOpacityProperty());
+        bindingManager.bind(canvasChart.showAreaOutlineProperty(), currentChart.showAreaOutlineProperty());
+        return canvasChart;
+    }
+
     private void setupOverlayChartLayout(VBox vBox) {
         var pane = new AnchorPane();
         for (int i = 0; i < viewPorts.size(); i++) {
@@ -768,16 +815,23 @@ public class XYChartsWorksheetController extends WorksheetController {
                     () -> p.getValue().getProcessor() == null ? "NaN" : currentViewPort.getPrefixFormatter().format(p.getValue().getProcessor().getMaxValue()),
                     p.getValue().processorProperty()));
 
+            // Look up the values under the crosshair for all series at once, rather than once per row.
+            ObjectBinding<Map<TimeSeriesProcessor<Double>, Double>> currentValues = Bindings.createObjectBinding(
+                    () -> TimeSeriesProcessor.tryGetNearestValues(
+                            currentViewPort.getDataStore().getSeries().stream()
+                                    .map(TimeSeriesInfo::getProcessor)
+                                    .filter(Objects::nonNull)
+                                    .collect(Collectors.toList()),
+                            getSelectedViewPort().getCrosshair().getCurrentXValue()),
+                    getSelectedViewPort().getCrosshair().currentXValueProperty());
             currentColumn.setCellValueFactory(p -> Bindings.createStringBinding(
                     () -> {
                         if (p.getValue().getProcessor() == null) {
                             return "NaN";
                         }
-                        return currentViewPort.getPrefixFormatter().format(p.getValue()
-                                .getProcessor()
-                                .tryGetNearestValue(getSelectedViewPort().getCrosshair().getCurrentXValue())
-                                .orElse(Double.NaN));
-                    }, getSelectedViewPort().getCrosshair().currentXValueProperty()));
+                        return currentViewPort.getPrefixFormatter().format(
+                                currentValues.get().getOrDefault(p.getValue().getProcessor(), Double.NaN));
+                    }, currentValues));
 
             currentViewPort.getSeriesTable().setRowFactory(this::seriesTableRowFactory);
             currentViewPort.getSeriesTable().setOnKeyReleased(bindingManager.registerHandler(event -> {
@@ -1295,8 +1349,14 @@ public class XYChartsWorksheetController extends WorksheetController {
     private void plotChart(ChartViewPort viewPort, XYChartSelection<ZonedDateTime, Double> currentSelection, boolean forceRefresh) {
         try (Profiler p = Profiler.start("Adding series to chart " + viewPort.getDataStore().getName(), logger::perf)) {
             nbBusyPlotTasks.setValue(nbBusyPlotTasks.get() + 1);
+            // Only fetch as many samples as there are pixels to plot them on
+            int downSamplingThreshold = viewPort.computeDownSamplingThreshold(userPrefs.downSamplingThreshold.get().intValue());
+            viewPort.setDownSamplingThreshold(downSamplingThreshold);
             AsyncTaskManager.getInstance().submit(() -> {
-                        viewPort.getDataStore().fetchDataFromSources(currentSelection.getStartX(), currentSelection.getEndX(), forceRefresh);
+                        viewPort.getDataStore().fetchDataFromSources(currentSelection.getStartX(),
+                                currentSelection.getEndX(),
+                                forceRefresh,
+                                downSamplingThreshold);
                         return viewPort.getDataStore().getSeries()
                                 .stream()
                                 .filter(series -> {
@@ -1310,14 +1370,33 @@ public class XYChartsWorksheetController extends WorksheetController {
                                     }
                                     return true;
                                 })
-                                .map(ts -> makeXYChartSeries(viewPort.getDataStore(), ts))
-                                .collect(Collectors.toList());
+                                .collect(Collectors.toMap(ts -> makeXYChartSeries(viewPort, ts),
+                                        ts -> ts,
+                                        (ts1, ts2) -> ts1,
+                                        LinkedHashMap::new));
                     },
                     event -> {
                         try {
                             if (!closed.get()) {
                                 nbBusyPlotTasks.setValue(nbBusyPlotTasks.get() - 1);
-                                viewPort.getChart().getData().setAll((Collection<? extends XYChart.Series<ZonedDateTime, Double>>) event.getSource().getValue());
+                                var seriesInfoMap = (Map<XYChart.Series<ZonedDateTime, Double>, TimeSeriesInfo<Double>>) event.getSource().getValue();
+                                viewPort.getChart().getData().setAll(seriesInfoMap.keySet());
+                                if (viewPort.getChart() instanceof CanvasXYChart) {
+                                    var canvasChart = (CanvasXYChart<ZonedDateTime, Double>) viewPort.getChart();
+                                    seriesInfoMap.forEach((s, info) ->
+                                            bindingManager.bind(canvasChart.seriesColorProperty(s), info.displayColorProperty()));
+                                }
+                                if (viewPort.getChart() instanceof EnvelopeChart) {
+                                    @SuppressWarnings("unchecked")
+                                    var envelopeChart = (EnvelopeChart<ZonedDateTime, Double>) viewPort.getChart();
+                                    seriesInfoMap.forEach((s, info) -> {
+                                        var band = makeEnvelopeBand(info);
+                                        if (band != null) {
+                                            bindingManager.bind(envelopeChart.envelopeColorProperty(s), info.displayColorProperty());
+                                            envelopeChart.envelopeProperty(s).set(band);
+                                        }
+                                    });
+                                }
                                 for (Node n : viewPort.getChart().getChildrenUnmodifiable()) {
                                     if (n instanceof Legend) {
                                         int i = 0;
@@ -1352,7 +1431,28 @@ public class XYChartsWorksheetController extends WorksheetController {
         }
     }
 
-    private XYChart.Series<ZonedDateTime, Double> makeXYChartSeries(Chart currentChart, TimeSeriesInfo<Double> series) {
+    private EnvelopeBand<ZonedDateTime> makeEnvelopeBand(TimeSeriesInfo<Double> series) {
+        if (!(series.getProcessor() instanceof DoubleTimeSeriesProcessor)) {
+            return null;
+        }
+        var envelope = ((DoubleTimeSeriesProcessor) series.getProcessor()).getEnvelope();
+        if (envelope == null) {
+            return null;
+        }
+        int size = envelope.size();
+        var xValues = new ArrayList<ZonedDateTime>(size);
+        var lowerValues = new double[size];
+        var upperValues = new double[size];
+        for (int i = 0; i < size; i++) {
+            xValues.add(envelope.getDateTime(i));
+            lowerValues[i] = envelope.getLowerValue(i);
+            upperValues[i] = envelope.getUpperValue(i);
+        }
+        return new EnvelopeBand<>(xValues, lowerValues, upperValues);
+    }
+
+    private XYChart.Series<ZonedDateTime, Double> makeXYChartSeries(ChartViewPort viewPort, TimeSeriesInfo<Double> series) {
+        var currentChart = viewPort.getDataStore();
         try (Profiler p = Profiler.start("Building  XYChart.Series data for" + series.getDisplayName(), logger::perf)) {
             XYChart.Series<ZonedDateTime, Double> newSeries = new XYChart.Series<>();
             newSeries.setName(series.getDisplayName());
@@ -1364,6 +1464,10 @@ public class XYChartsWorksheetController extends WorksheetController {
 
             newSeries.setNode(r);
             newSeries.getData().setAll(series.getProcessor().getData());
+            if (viewPort.getChart() instanceof CanvasXYChart) {
+                // Canvas charts draw series directly, without any node to style
+                return newSeries;
+            }
             if (currentChart.getChartType() == ChartType.SCATTER) {
                 for (var data : newSeries.getData()) {
                     var c = new Circle();
@@ -20,6 +20,8 @@ import eu.binjr.common.function.CheckedFunction;
 import eu.binjr.common.logging.Logger;
 import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.core.data.exceptions.InvalidAdapterParameterException;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
 
 import java.util.Map;
 import java.util.UUID;
@@ -33,6 +35,7 @@ public abstract class BaseDataAdapter<T> implements DataAdapter<T> {
     private static final Logger logger = Logger.create(BaseDataAdapter.class);
     private UUID id = UUID.randomUUID();
     private volatile boolean closed = false;
+    private final ReadOnlyLongWrapper dataRevision = new ReadOnlyLongWrapper(0);
 
     @Override
     public UUID getId() {
@@ -44,6 +47,18 @@ public abstract class BaseDataAdapter<T> implements DataAdapter<T> {
         this.id = id;
     }
 
+    @Override
+    public ReadOnlyLongProperty dataRevisionProperty() {
+        return dataRevision.getReadOnlyProperty();
+    }
+
+    /**
+     * Signals that the data exposed by the source has changed.
+     */
+    protected synchronized void notifyDataChanged() {
+        dataRevision.set(dataRevision.get() + 1);
+    }
+
     @Override
     public boolean isClosed() {
         return closed;
@@ -0,0 +1,32 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.adapters;
+
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+
+/**
+ * Holds the data revision property returned by adapters whose data never changes once retrieved.
+ *
+ * @author Frederic Thevenet
+ */
+final class ConstantDataRevision {
+    static final ReadOnlyLongProperty PROPERTY = new ReadOnlyLongWrapper(0).getReadOnlyProperty();
+
+    private ConstantDataRevision() {
+    }
+}
@@ -22,6 +22,7 @@ import eu.binjr.core.data.exceptions.NoAdapterFoundException;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
 import eu.binjr.core.data.workspace.XYChartsWorksheet;
+import javafx.beans.property.ReadOnlyLongProperty;
 import org.eclipse.fx.ui.controls.tree.FilterableTreeItem;
 
 import java.time.Instant;
@@ -124,6 +125,21 @@ public interface DataAdapter<T> extends AutoCloseable {
      */
     void setId(UUID id);
 
+    /**
+     * Returns a property whose value is incremented every time the data exposed by the source changes after it was
+     * first retrieved (e.g. when lines are appended to a followed log file), so that views can refresh what they show.
+     * <p><b>Remark:</b> the value may be updated from a thread other than the JavaFX application thread.</p>
+     * <p>
+     * The default implementation returns a property that never changes, for adapters whose data does not change once
+     * retrieved; {@link BaseDataAdapter} provides one that is updated via {@link BaseDataAdapter#notifyDataChanged()}.
+     * </p>
+     *
+     * @return a property whose value is incremented every time the data exposed by the source changes.
+     */
+    default ReadOnlyLongProperty dataRevisionProperty() {
+        return ConstantDataRevision.PROPERTY;
+    }
+
     /**
      * Returns true is the adapter is closed, false otherwise.
      *
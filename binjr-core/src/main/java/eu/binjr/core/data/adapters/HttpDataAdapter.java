@@ -136,6 +136,11 @@ public abstract class HttpDataAdapter<T> extends SimpleCachingDataAdapter<T> {
         });
     }
 
+    @Override
+    protected boolean isPersistentCachingSupported() {
+        return true;
+    }
+
     @Override
     public Map<String, String> getParams() {
         Map<String, String> params = new HashMap<>();
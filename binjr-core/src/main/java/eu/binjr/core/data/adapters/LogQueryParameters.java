@@ -21,6 +21,7 @@ import eu.binjr.common.javafx.controls.TimeRange;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlTransient;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -33,6 +34,7 @@ public class LogQueryParameters {
     private Set<String> severities;
     private int page;
     private TimeRange timeRange;
+    private String pageCursor;
 
 
     public static LogQueryParameters empty() {
@@ -42,14 +44,15 @@ public class LogQueryParameters {
     private LogQueryParameters() {
         this(TimeRange.of(ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault()),
                 ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault())),
-                "", new HashSet<>(), 0);
+                "", new HashSet<>(), 0, null);
     }
 
-    private LogQueryParameters(TimeRange timeRange, String filterQuery, Set<String> severities, int page) {
+    private LogQueryParameters(TimeRange timeRange, String filterQuery, Set<String> severities, int page, String pageCursor) {
         this.filterQuery = filterQuery;
         this.severities = severities;
         this.page = page;
         this.timeRange = timeRange;
+        this.pageCursor = pageCursor;
     }
 
     @XmlAttribute
@@ -84,6 +87,18 @@ public class LogQueryParameters {
         this.timeRange = value;
     }
 
+    /**
+     * Returns an opaque position in the results of a previous query, provided by the data adapter, from which the
+     * requested page can be reached without going through all the preceding ones, or null if there is none.
+     * <p>A cursor only speeds up paging: it does not change the results of a query and is not persisted.</p>
+     *
+     * @return an opaque position in the results of a previous query, or null if there is none.
+     */
+    @XmlTransient
+    public String getPageCursor() {
+        return pageCursor;
+    }
+
     @Override
     public int hashCode() {
         return filterQuery.hashCode() + severities.hashCode() + Integer.hashCode(page);
@@ -109,6 +124,7 @@ public class LogQueryParameters {
         private Set<String> severities;
         private int page;
         private TimeRange timeRange;
+        private String pageCursor;
 
         public Builder(){
             this.timeRange = TimeRange.of(ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault()),
@@ -123,6 +139,7 @@ public class LogQueryParameters {
             this.filterQuery =params.getFilterQuery();
             this.page = params.getPage();
             this.severities= params.getSeverities();
+            this.pageCursor = params.getPageCursor();
         }
 
         public Builder setTimeRange(TimeRange value){
@@ -141,9 +158,13 @@ public class LogQueryParameters {
             this.severities = value;
             return this;
         }
+        public Builder setPageCursor(String value){
+            this.pageCursor = value;
+            return this;
+        }
 
         public LogQueryParameters build(){
-            return new LogQueryParameters(timeRange, filterQuery, severities, page);
+            return new LogQueryParameters(timeRange, filterQuery, severities, page, pageCursor);
         }
     }
 
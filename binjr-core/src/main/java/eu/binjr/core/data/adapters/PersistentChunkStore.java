@@ -0,0 +1,308 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.adapters;
+
+import eu.binjr.common.logging.Logger;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+import eu.binjr.core.preferences.UserPreferences;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A persistent store for chunks of decoded series, shared by all the {@link SimpleCachingDataAdapter} instances, which
+ * lets series fetched from remote sources be reused across sessions.
+ * <p>
+ * Chunks are stored in a compact binary format, one file per adapter, path, series and time bucket, under the
+ * location defined by the user's preferences.
+ * Only chunks that hold all samples for a time bucket entirely in the past are stored, since they can no longer change.
+ * Once the combined size of all files exceeds the disk quota, the least recently used ones are deleted, on a
+ * background thread.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+final class PersistentChunkStore {
+    private static final Logger logger = Logger.create(PersistentChunkStore.class);
+    private static final int MAGIC = 0x424A4331;
+    private static final String CHUNK_EXTENSION = ".chunk";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private final Path root;
+    private final ExecutorService quotaExecutor;
+    private final AtomicBoolean quotaCheckPending = new AtomicBoolean(false);
+    private long currentSize;
+
+    private PersistentChunkStore(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+        // Remove temporary files left over by writes that were interrupted in a previous session
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(p -> p.getFileName().toString().endsWith(TEMP_EXTENSION) && Files.isRegularFile(p))
+                    .forEach(p -> {
+                        try {
+                            Files.deleteIfExists(p);
+                        } catch (IOException e) {
+                            logger.debug(() -> "Could not delete temporary cache file " + p + ": " + e.getMessage());
+                        }
+                    });
+        }
+        try (Stream<Path> files = listChunkFiles()) {
+            this.currentSize = files.mapToLong(p -> p.toFile().length()).sum();
+        }
+        this.quotaExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r);
+            thread.setName("series-cache-quota-thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.debug(() -> String.format("Opened persistent series cache at %s (%.1f MB)", root, currentSize / 1024.0 / 1024.0));
+    }
+
+    /**
+     * Returns the shared instance of the store, or null if persistent caching is disabled in the user's preferences or
+     * if the store could not be opened.
+     *
+     * @return the shared instance of the store, or null if persistent caching is unavailable.
+     */
+    static PersistentChunkStore getInstance() {
+        if (!UserPreferences.getInstance().diskCacheEnabled.get()) {
+            return null;
+        }
+        return PersistentChunkStoreHolder.instance;
+    }
+
+    /**
+     * Reads a chunk from the store.
+     *
+     * @param adapterId   the id of the adapter the chunk was fetched from.
+     * @param bucketWidth the width of the time buckets, in nanoseconds.
+     * @param path        the path of the series in the source.
+     * @param series      the name of the series.
+     * @param bucket      the index of the time bucket.
+     * @return the samples held by the chunk, or null if the chunk isn't in the store.
+     */
+    DoubleTimeSeriesColumns read(UUID adapterId, long bucketWidth, String path, String series, long bucket) {
+        var file = chunkFile(adapterId, bucketWidth, path, series, bucket);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Invalid chunk file header");
+            }
+            int size = buffer.getInt();
+            var zoneBytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(zoneBytes);
+            var timestamps = new long[size];
+            var values = new double[size];
+            buffer.asLongBuffer().get(timestamps);
+            buffer.position(buffer.position() + size * Long.BYTES);
+            buffer.asDoubleBuffer().get(values);
+            var columns = new DoubleTimeSeriesColumns(0);
+            columns.setAll(timestamps, values, size);
+            columns.setZoneId(ZoneId.of(new String(zoneBytes, StandardCharsets.UTF_8)));
+            touch(file);
+            return columns;
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable cache file " + file + ": " + e.getMessage());
+            logger.debug("Stack trace", e);
+            delete(file);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a chunk to the store.
+     *
+     * @param adapterId   the id of the adapter the chunk was fetched from.
+     * @param bucketWidth the width of the time buckets, in nanoseconds.
+     * @param path        the path of the series in the source.
+     * @param series      the name of the series.
+     * @param bucket      the index of the time bucket.
+     * @param columns     the samples held by the chunk.
+     */
+    void write(UUID adapterId, long bucketWidth, String path, String series, long bucket, DoubleTimeSeriesColumns columns) {
+        var file = chunkFile(adapterId, bucketWidth, path, series, bucket);
+        try {
+            Files.createDirectories(file.getParent());
+            var tmp = Files.createTempFile(file.getParent(), "tmp_", TEMP_EXTENSION);
+            var zoneBytes = columns.getZoneId().getId().getBytes(StandardCharsets.UTF_8);
+            int size = columns.size();
+            var buffer = ByteBuffer.allocate(HEADER_SIZE + Short.BYTES + zoneBytes.length + size * (Long.BYTES + Double.BYTES));
+            buffer.putInt(MAGIC).putInt(size).putShort((short) zoneBytes.length).put(zoneBytes);
+            buffer.asLongBuffer().put(columns.timestamps(), 0, size);
+            buffer.position(buffer.position() + size * Long.BYTES);
+            buffer.asDoubleBuffer().put(columns.values(), 0, size);
+            buffer.rewind();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            long previousSize = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                currentSize += buffer.capacity() - previousSize;
+            }
+            requestQuotaCheck();
+        } catch (IOException e) {
+            logger.warn("Failed to write cache file " + file + ": " + e.getMessage());
+            logger.debug("Stack trace", e);
+        }
+    }
+
+    /**
+     * Deletes all the chunks for the specified path and range of time buckets.
+     *
+     * @param adapterId   the id of the adapter the chunks were fetched from.
+     * @param bucketWidth the width of the time buckets, in nanoseconds.
+     * @param path        the path of the series in the source.
+     * @param fromBucket  the index of the first time bucket to invalidate.
+     * @param toBucket    the index of the last time bucket to invalidate.
+     */
+    void invalidate(UUID adapterId, long bucketWidth, String path, long fromBucket, long toBucket) {
+        var dir = pathDirectory(adapterId, bucketWidth, path);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(f -> {
+                long bucket = bucketOf(f);
+                return bucket >= fromBucket && bucket <= toBucket;
+            }).forEach(this::delete);
+        } catch (IOException e) {
+            logger.warn("Failed to invalidate cache files in " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void requestQuotaCheck() {
+        // Coalesce requests issued while a check is already queued
+        if (quotaCheckPending.compareAndSet(false, true)) {
+            quotaExecutor.submit(() -> {
+                quotaCheckPending.set(false);
+                enforceQuota();
+            });
+        }
+    }
+
+    private synchronized void enforceQuota() {
+        long quota = UserPreferences.getInstance().diskCacheMaxSizeMB.get().longValue() * 1024 * 1024;
+        if (currentSize <= quota) {
+            return;
+        }
+        // Prune down to 90% of the quota, so as not to run on each write once full
+        long target = quota * 9 / 10;
+        try (Stream<Path> files = listChunkFiles()) {
+            var byLastAccess = files.map(p -> {
+                try {
+                    return Map.entry(p, Files.readAttributes(p, BasicFileAttributes.class));
+                } catch (IOException e) {
+                    return null;
+                }
+            }).filter(Objects::nonNull)
+                    .sorted(Comparator.comparing(e -> e.getValue().lastModifiedTime()))
+                    .collect(Collectors.toList());
+            for (var entry : byLastAccess) {
+                if (currentSize <= target) {
+                    break;
+                }
+                delete(entry.getKey());
+            }
+            logger.debug(() -> String.format("Pruned persistent series cache to %.1f MB", currentSize / 1024.0 / 1024.0));
+        } catch (IOException e) {
+            logger.warn("Failed to enforce quota on persistent series cache: " + e.getMessage());
+        }
+    }
+
+    private synchronized void delete(Path file) {
+        try {
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                currentSize -= size;
+            }
+        } catch (IOException e) {
+            logger.debug(() -> "Could not delete cache file " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.trace(() -> "Could not update last access time for " + file + ": " + e.getMessage());
+        }
+    }
+
+    private Stream<Path> listChunkFiles() throws IOException {
+        return Files.walk(root).filter(p -> p.getFileName().toString().endsWith(CHUNK_EXTENSION) && Files.isRegularFile(p));
+    }
+
+    private Path pathDirectory(UUID adapterId, long bucketWidth, String path) {
+        return root.resolve(adapterId.toString())
+                .resolve(Long.toString(bucketWidth / 1_000_000_000L))
+                .resolve(hash(path));
+    }
+
+    private Path chunkFile(UUID adapterId, long bucketWidth, String path, String series, long bucket) {
+        return pathDirectory(adapterId, bucketWidth, path).resolve(hash(series) + "." + bucket + CHUNK_EXTENSION);
+    }
+
+    private static long bucketOf(Path file) {
+        var name = file.getFileName().toString();
+        var parts = name.split("\\.");
+        try {
+            return parts.length == 3 ? Long.parseLong(parts[1]) : Long.MIN_VALUE;
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static String hash(String s) {
+        return UUID.nameUUIDFromBytes(s.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static class PersistentChunkStoreHolder {
+        private static final PersistentChunkStore instance = open();
+
+        private static PersistentChunkStore open() {
+            var location = UserPreferences.getInstance().diskCacheLocation.get();
+            try {
+                return new PersistentChunkStore(location);
+            } catch (IOException e) {
+                logger.error("Failed to open persistent series cache at " + location + ": " + e.getMessage());
+                logger.debug("Stack trace", e);
+                return null;
+            }
+        }
+    }
+}
@@ -16,66 +16,233 @@
 
 package eu.binjr.core.data.adapters;
 
-import eu.binjr.common.cache.LRUMapCapacityBound;
+import eu.binjr.common.cache.Cacheable;
+import eu.binjr.common.cache.SizeBoundCache;
 import eu.binjr.common.logging.Logger;
+import eu.binjr.common.logging.Profiler;
 import eu.binjr.core.data.exceptions.DataAdapterException;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesProcessor;
+import eu.binjr.core.data.timeseries.IntervalCoverage;
+import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
+import eu.binjr.core.data.workspace.TimeSeriesInfo;
+import eu.binjr.core.preferences.UserPreferences;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.lang.ref.SoftReference;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * An abstract implementation of {@link SerializedDataAdapter} that manages a cache in between the adapter and the data source.
- * <p>This is an on-heap memory cache  with a finite capacity and an LRU eviction policy</p>
- * <p>Furthermore, values uses {@link java.lang.ref.SoftReference} to give the GC a chance to collect the cached elements
- * if the memory pressure becomes too high.</p>
+ * <p>
+ * Rather than raw payloads, the cache holds decoded series, split into chunks that each cover a fixed width
+ * time bucket and are keyed by path, series and bucket. Each chunk records which portions of its bucket it holds
+ * all samples for, so that a request for a time interval that overlaps cached chunks only fetches and decodes the
+ * gaps in that coverage, in a single request to the source for each contiguous gap.
+ * </p>
+ * <p>
+ * The cache is shared by all adapters, so that the memory it uses is bound by a single budget regardless of the
+ * number of sources open, and chunks are evicted according to a LRU or LFU policy once that budget is exceeded.
+ * Evicted chunks are softly referenced for as long as the GC doesn't need to reclaim them.
+ * </p>
+ * <p>
+ * Samples more recent than the settle margin defined in the user's preferences may still change at the source, and
+ * are fetched again on each request. Chunks holding all samples for time buckets that ended before that margin can
+ * also be kept in a persistent, on-disk store (see {@link #isPersistentCachingSupported()}), and read back from it on
+ * cache misses, including in later sessions.
+ * </p>
+ * <p>
+ * <b>Remark:</b> Chunk caching requires the adapter's decoder to produce {@link DoubleTimeSeriesProcessor} instances;
+ * if it does not, or if {@link #isChunkCachingSupported()} returns false, data is fetched and decoded on each request.
+ * </p>
  *
  * @author Frederic Thevenet
  */
 public abstract class SimpleCachingDataAdapter<T> extends SerializedDataAdapter<T> {
+    /**
+     * The default maximum number of entries in the cache of adapters created with
+     * {@link #SimpleCachingDataAdapter(int)}.
+     *
+     * @deprecated The cache is now bound by the size of its entries rather than their number, and shared by all
+     * adapters.
+     */
+    @Deprecated
     public static final int DEFAULT_CACHE_SIZE = 128;
     private static final Logger logger = Logger.create(SimpleCachingDataAdapter.class);
-    private final Map<String, SoftReference<byte[]>> cache;
+    private static final int MAX_BUCKETS_PER_REQUEST = 2048;
+    // The size assumed for each entry when converting a maximum number of entries into a size budget
+    private static final long LEGACY_ENTRY_SIZE = 64 * 1024;
+    private static final AtomicLong nextCacheScope = new AtomicLong(0);
+    private static final Set<SimpleCachingDataAdapter<?>> liveAdapters = Collections.newSetFromMap(new WeakHashMap<>());
+    private final SizeBoundCache<ChunkKey, SeriesChunk> cache;
+    private final long cacheScope = nextCacheScope.incrementAndGet();
+    private final long bucketWidthNanos;
 
     /**
-     * Initializes a new instance of the {@link SimpleCachingDataAdapter} class
+     * Initializes a new instance of the {@link SimpleCachingDataAdapter} class, using the cache shared by all adapters
+     * and the bucket width defined in the user's preferences.
      */
     public SimpleCachingDataAdapter() {
-        this(DEFAULT_CACHE_SIZE);
+        this(Duration.ofSeconds(UserPreferences.getInstance().dataCacheBucketWidthSec.get().longValue()));
     }
 
     /**
-     * Initializes a new instance of the {@link SimpleCachingDataAdapter} class with the specified maximum number of entries
+     * Initializes a new instance of the {@link SimpleCachingDataAdapter} class with its own cache, bound to
+     * approximately the specified maximum number of entries.
      *
      * @param maxCacheEntries the  maximum number of entries in the cache
+     * @deprecated The cache is now bound by the size of its entries rather than their number, and shared by all
+     * adapters; use {@link #SimpleCachingDataAdapter()} instead.
      */
+    @Deprecated
     public SimpleCachingDataAdapter(int maxCacheEntries) {
-        cache = new LRUMapCapacityBound<>(maxCacheEntries);
+        this(new SizeBoundCache<>("Series cache (" + maxCacheEntries + " entries)",
+                        maxCacheEntries * LEGACY_ENTRY_SIZE,
+                        UserPreferences.getInstance().dataCacheEvictionPolicy.get()),
+                Duration.ofSeconds(UserPreferences.getInstance().dataCacheBucketWidthSec.get().longValue()));
+    }
+
+    /**
+     * Initializes a new instance of the {@link SimpleCachingDataAdapter} class, using the cache shared by all adapters
+     * and the specified bucket width.
+     *
+     * @param bucketWidth the width of the time buckets covered by each cached chunk.
+     */
+    public SimpleCachingDataAdapter(Duration bucketWidth) {
+        this(SharedCacheHolder.instance, bucketWidth);
     }
 
+    private SimpleCachingDataAdapter(SizeBoundCache<ChunkKey, SeriesChunk> cache, Duration bucketWidth) {
+        if (bucketWidth.isNegative() || bucketWidth.isZero()) {
+            throw new IllegalArgumentException("Bucket width must be strictly positive");
+        }
+        this.bucketWidthNanos = bucketWidth.toNanos();
+        this.cache = cache;
+        synchronized (liveAdapters) {
+            liveAdapters.add(this);
+        }
+    }
+
+    /**
+     * Returns the statistics of the caches for all the adapters currently open.
+     *
+     * @return the statistics of the caches for all the adapters currently open.
+     */
+    public static String getAllCacheStatistics() {
+        synchronized (liveAdapters) {
+            if (liveAdapters.isEmpty()) {
+                return "No data adapter cache in use";
+            }
+            return liveAdapters.stream()
+                    .map(a -> a.cache)
+                    .distinct()
+                    .map(SizeBoundCache::getStatistics)
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+
+    /**
+     * Returns true if decoded series can be cached by time buckets for this adapter, false otherwise.
+     * <p>
+     * Adapters for which the resolution of the data returned by the source depends on the width of the requested
+     * time interval (e.g. because it is down-sampled server side) should override this method to return false.
+     * </p>
+     *
+     * @return true if decoded series can be cached by time buckets for this adapter, false otherwise.
+     */
+    protected boolean isChunkCachingSupported() {
+        return true;
+    }
+
+    /**
+     * Returns true if chunks holding historical data for this adapter should also be kept in the persistent, on-disk
+     * cache shared by all adapters, so that they can be reused across sessions, false otherwise.
+     * <p>
+     * The persistent cache is only used if it is also enabled in the user's preferences.
+     * </p>
+     *
+     * @return true if chunks should also be kept in the persistent cache, false otherwise.
+     */
+    protected boolean isPersistentCachingSupported() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Raw payloads are not cached, since decoded series are cached by time buckets instead, so they are always
+     * retrieved from the source. If {@code bypassCache} is set, the cached chunks for the requested interval are
+     * invalidated as well, so that later calls to {@link #fetchData(String, Instant, Instant, List, boolean)} do not
+     * return series that are out of sync with the returned payload.
+     * </p>
+     */
     @Override
     public InputStream fetchRawData(String path, Instant begin, Instant end, boolean bypassCache) throws DataAdapterException {
-        byte[] payload = null;
-        String cacheEntryKey = String.format("%s%d%d", path, begin.toEpochMilli(), end.toEpochMilli());
-        if (!bypassCache) {
-            SoftReference<byte[]> cacheHit = cache.get(cacheEntryKey);
-            payload = cacheHit != null ? cacheHit.get() : null;
-        }
-        if (payload == null) {
-            logger.trace(() -> String.format(
-                    "%s for entry %s %s %s",
-                    bypassCache ? "Cache was explicitly bypassed" : "Cache miss",
-                    path,
-                    begin.toString(),
-                    end.toString()));
-            payload = onCacheMiss(path, begin, end);
-            cache.put(cacheEntryKey, new SoftReference<>(payload));
-        } else {
-            logger.trace(() -> String.format("Data successfully retrieved from cache for %s %s %s", path, begin.toString(), end.toString()));
-        }
-        return new ByteArrayInputStream(payload);
+        if (bypassCache && isChunkCachingSupported()) {
+            invalidateChunks(path,
+                    Math.floorDiv(DoubleTimeSeriesColumns.toEpochNanos(begin), bucketWidthNanos),
+                    Math.floorDiv(DoubleTimeSeriesColumns.toEpochNanos(end), bucketWidthNanos));
+        }
+        return new ByteArrayInputStream(onCacheMiss(path, begin, end));
+    }
+
+    @Override
+    public Map<TimeSeriesInfo<T>, TimeSeriesProcessor<T>> fetchData(String path,
+                                                                   Instant begin,
+                                                                   Instant end,
+                                                                   List<TimeSeriesInfo<T>> seriesInfo,
+                                                                   boolean bypassCache) throws DataAdapterException {
+        if (closed) {
+            throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
+        }
+        long beginNanos = DoubleTimeSeriesColumns.toEpochNanos(begin);
+        long endNanos = DoubleTimeSeriesColumns.toEpochNanos(end);
+        long firstBucket = Math.floorDiv(beginNanos, bucketWidthNanos);
+        long lastBucket = Math.floorDiv(endNanos, bucketWidthNanos);
+        if (!isChunkCachingSupported() || lastBucket - firstBucket >= MAX_BUCKETS_PER_REQUEST) {
+            return super.fetchData(path, begin, end, seriesInfo, bypassCache);
+        }
+        try (Profiler ignored = Profiler.start("Fetching data for " + path + " through chunk cache", logger::perf)) {
+            var store = isPersistentCachingSupported() ? PersistentChunkStore.getInstance() : null;
+            if (bypassCache) {
+                invalidateChunks(path, firstBucket, lastBucket);
+            }
+            int nbBuckets = (int) (lastBucket - firstBucket + 1);
+            Map<String, SeriesChunk[]> chunks = new HashMap<>();
+            // Work out which portions of the requested buckets are not held locally for at least one series
+            var gaps = IntervalCoverage.EMPTY;
+            for (var info : seriesInfo) {
+                var seriesChunks = chunks.computeIfAbsent(getSeriesKey(info), k -> new SeriesChunk[nbBuckets]);
+                for (int i = 0; i < nbBuckets; i++) {
+                    var key = new ChunkKey(cacheScope, path, getSeriesKey(info), firstBucket + i);
+                    seriesChunks[i] = cache.get(key);
+                    long bucketStart = (firstBucket + i) * bucketWidthNanos;
+                    if (seriesChunks[i] == null && store != null) {
+                        var columns = store.read(getId(), bucketWidthNanos, path, key.series, key.bucket);
+                        if (columns != null) {
+                            seriesChunks[i] = new SeriesChunk(columns, IntervalCoverage.of(bucketStart, bucketStart + bucketWidthNanos));
+                            cache.put(key, seriesChunks[i]);
+                        }
+                    }
+                    var coverage = seriesChunks[i] != null ? seriesChunks[i].getCoverage() : IntervalCoverage.EMPTY;
+                    gaps = gaps.add(coverage.gaps(bucketStart, bucketStart + bucketWidthNanos));
+                }
+            }
+            // Only fetch the gaps, in a single request for each contiguous one
+            for (int i = 0; i < gaps.size(); i++) {
+                if (!fetchGap(path, gaps.getStart(i), gaps.getEnd(i), firstBucket, seriesInfo, chunks, store)) {
+                    logger.debug(() -> "Decoder for " + getSourceName() + " does not support chunk caching");
+                    return super.fetchData(path, begin, end, seriesInfo, bypassCache);
+                }
+            }
+            logger.debug(cache::getStatistics);
+            return assemble(beginNanos, endNanos, seriesInfo, chunks);
+        }
     }
 
     /**
@@ -84,7 +251,7 @@ public abstract class SimpleCachingDataAdapter<T> extends SerializedDataAdapter<
      * @param path  the path of the data in the source
      * @param begin the start of the time interval.
      * @param end   the end of the time interval.
-     * @return the data to store in the cache.
+     * @return the raw data for the requested time interval.
      * @throws DataAdapterException if an error occurs while retrieving data from the source.
      */
     public abstract byte[] onCacheMiss(String path, Instant begin, Instant end) throws DataAdapterException;
@@ -92,11 +259,235 @@ public abstract class SimpleCachingDataAdapter<T> extends SerializedDataAdapter<
     @Override
     public void close() {
         try {
-            this.cache.clear();
+            logger.debug(cache::getStatistics);
+            cache.removeIf(k -> k.scope == cacheScope);
+            synchronized (liveAdapters) {
+                liveAdapters.remove(this);
+            }
         } catch (Exception e) {
             logger.error("Error closing SimpleCacheAdapter", e);
         }
         super.close();
     }
 
+    private void invalidateChunks(String path, long firstBucket, long lastBucket) {
+        cache.removeIf(k -> k.scope == cacheScope && k.path.equals(path) && k.bucket >= firstBucket && k.bucket <= lastBucket);
+        var store = isPersistentCachingSupported() ? PersistentChunkStore.getInstance() : null;
+        if (store != null) {
+            store.invalidate(getId(), bucketWidthNanos, path, firstBucket, lastBucket);
+        }
+    }
+
+    private boolean fetchGap(String path,
+                             long gapStart,
+                             long gapEnd,
+                             long firstBucket,
+                             List<TimeSeriesInfo<T>> seriesInfo,
+                             Map<String, SeriesChunk[]> chunks,
+                             PersistentChunkStore store) throws DataAdapterException {
+        logger.trace(() -> String.format("Fetching gap [%s, %s[ for %s", toInstant(gapStart), toInstant(gapEnd), path));
+        Map<TimeSeriesInfo<T>, TimeSeriesProcessor<T>> decoded;
+        try (InputStream in = new ByteArrayInputStream(onCacheMiss(path, toInstant(gapStart), toInstant(gapEnd)))) {
+            decoded = getDecoder().decode(in, seriesInfo);
+        } catch (IOException e) {
+            throw new DataAdapterException("Error recovering data from source", e);
+        }
+        // Samples close to the present time may still be added or revised by the source, so they are not deemed settled
+        long settled = DoubleTimeSeriesColumns.toEpochNanos(Instant.now()) -
+                UserPreferences.getInstance().dataCacheSettleMarginSec.get().longValue() * 1_000_000_000L;
+        long coveredUntil = Math.max(gapStart, Math.min(gapEnd, settled));
+        int fromIndex = (int) (Math.floorDiv(gapStart, bucketWidthNanos) - firstBucket);
+        int toIndex = (int) (Math.floorDiv(gapEnd - 1, bucketWidthNanos) - firstBucket);
+        for (var info : seriesInfo) {
+            var proc = decoded.get(info);
+            if (proc != null && !(proc instanceof DoubleTimeSeriesProcessor)) {
+                return false;
+            }
+            var columns = proc != null ? ((DoubleTimeSeriesProcessor) proc).toColumns() : new DoubleTimeSeriesColumns(0);
+            if (!columns.isSorted()) {
+                columns.sort();
+            }
+            var seriesChunks = chunks.get(getSeriesKey(info));
+            // Start from a copy of what is already held for each bucket in the gap, minus the unsettled samples
+            // that are about to be fetched again
+            var merged = new DoubleTimeSeriesColumns[toIndex - fromIndex + 1];
+            for (int i = fromIndex; i <= toIndex; i++) {
+                merged[i - fromIndex] = new DoubleTimeSeriesColumns(0);
+                merged[i - fromIndex].setZoneId(columns.getZoneId());
+                if (seriesChunks[i] != null) {
+                    var held = seriesChunks[i].getValue();
+                    var heldCoverage = seriesChunks[i].getCoverage();
+                    long bucketStart = (firstBucket + i) * bucketWidthNanos;
+                    if (heldCoverage.gaps(bucketStart, bucketStart + bucketWidthNanos).isEmpty()) {
+                        merged[i - fromIndex].setAll(held.timestamps(), held.values(), held.size());
+                    } else {
+                        long[] heldTimestamps = held.timestamps();
+                        double[] heldValues = held.values();
+                        for (int j = 0; j < held.size(); j++) {
+                            if (heldCoverage.contains(heldTimestamps[j])) {
+                                merged[i - fromIndex].add(heldTimestamps[j], heldValues[j]);
+                            }
+                        }
+                    }
+                }
+            }
+            long[] timestamps = columns.timestamps();
+            double[] values = columns.values();
+            for (int i = 0; i < columns.size(); i++) {
+                long ts = timestamps[i];
+                // Samples outside of the gap (i.e. read-behind/ahead) are already held locally, or not needed
+                if (ts < gapStart || ts >= gapEnd) {
+                    continue;
+                }
+                int index = (int) (Math.floorDiv(ts, bucketWidthNanos) - firstBucket);
+                if (seriesChunks[index] == null || !seriesChunks[index].getCoverage().contains(ts)) {
+                    merged[index - fromIndex].add(ts, values[i]);
+                }
+            }
+            // Unsettled samples are held for this fetch, but not marked as covered so that they get fetched again
+            for (int i = fromIndex; i <= toIndex; i++) {
+                long bucketStart = (firstBucket + i) * bucketWidthNanos;
+                var coverage = seriesChunks[i] != null ? seriesChunks[i].getCoverage() : IntervalCoverage.EMPTY;
+                coverage = coverage.add(Math.max(gapStart, bucketStart), Math.min(coveredUntil, bucketStart + bucketWidthNanos));
+                var bucketColumns = merged[i - fromIndex];
+                if (!bucketColumns.isSorted()) {
+                    bucketColumns.sort();
+                }
+                bucketColumns.trimToSize();
+                seriesChunks[i] = new SeriesChunk(bucketColumns, coverage);
+                if (!coverage.isEmpty()) {
+                    cache.put(new ChunkKey(cacheScope, path, getSeriesKey(info), firstBucket + i), seriesChunks[i]);
+                }
+                // Chunks that hold all samples for a settled bucket can no longer change, and can be persisted
+                long bucketEnd = bucketStart + bucketWidthNanos;
+                if (store != null && bucketEnd <= settled && coverage.gaps(bucketStart, bucketEnd).isEmpty()) {
+                    store.write(getId(), bucketWidthNanos, path, getSeriesKey(info), firstBucket + i, bucketColumns);
+                }
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<TimeSeriesInfo<T>, TimeSeriesProcessor<T>> assemble(long beginNanos,
+                                                                   long endNanos,
+                                                                   List<TimeSeriesInfo<T>> seriesInfo,
+                                                                   Map<String, SeriesChunk[]> chunks) {
+        Map<TimeSeriesInfo<T>, TimeSeriesProcessor<T>> result = new HashMap<>();
+        for (var info : seriesInfo) {
+            var seriesChunks = chunks.get(getSeriesKey(info));
+            var merged = new DoubleTimeSeriesColumns(Arrays.stream(seriesChunks).mapToInt(c -> c.getValue().size()).sum());
+            // Keep one sample on either side of the requested interval, so that boundaries can be interpolated
+            long lastBefore = Long.MIN_VALUE;
+            double lastBeforeValue = Double.NaN;
+            boolean afterAdded = false;
+            for (var chunk : seriesChunks) {
+                var columns = chunk.getValue();
+                merged.setZoneId(columns.getZoneId());
+                for (int i = 0; i < columns.size() && !afterAdded; i++) {
+                    long ts = columns.getTimestamp(i);
+                    if (ts < beginNanos) {
+                        lastBefore = ts;
+                        lastBeforeValue = columns.getValue(i);
+                        continue;
+                    }
+                    if (lastBefore != Long.MIN_VALUE) {
+                        merged.add(lastBefore, lastBeforeValue);
+                        lastBefore = Long.MIN_VALUE;
+                    }
+                    merged.add(ts, columns.getValue(i));
+                    afterAdded = ts > endNanos;
+                }
+            }
+            if (merged.size() > 0) {
+                var proc = new DoubleTimeSeriesProcessor();
+                proc.setColumns(merged);
+                result.put(info, (TimeSeriesProcessor<T>) (TimeSeriesProcessor<?>) proc);
+            }
+        }
+        return result;
+    }
+
+    private String getSeriesKey(TimeSeriesInfo<T> info) {
+        return info.getBinding().getLabel();
+    }
+
+    private static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+
+    /**
+     * The key for a chunk of decoded series in the cache.
+     */
+    private static final class ChunkKey {
+        // Identifies the adapter the chunk was fetched by, since the cache is shared
+        private final long scope;
+        private final String path;
+        private final String series;
+        private final long bucket;
+
+        private ChunkKey(long scope, String path, String series, long bucket) {
+            this.scope = scope;
+            this.path = path;
+            this.series = series;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ChunkKey chunkKey = (ChunkKey) o;
+            return scope == chunkKey.scope && bucket == chunkKey.bucket && path.equals(chunkKey.path) && series.equals(chunkKey.series);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, path, series, bucket);
+        }
+    }
+
+    /**
+     * A chunk of decoded series, covering a single time bucket.
+     */
+    private static final class SeriesChunk implements Cacheable<DoubleTimeSeriesColumns> {
+        // Approximate overhead of the chunk, its key and the columns instances
+        private static final long OVERHEAD = 128;
+        private final DoubleTimeSeriesColumns columns;
+        private final IntervalCoverage coverage;
+
+        private SeriesChunk(DoubleTimeSeriesColumns columns, IntervalCoverage coverage) {
+            this.columns = columns;
+            this.coverage = coverage;
+        }
+
+        @Override
+        public DoubleTimeSeriesColumns getValue() {
+            return columns;
+        }
+
+        /**
+         * Returns the portions of the chunk's time bucket for which all samples are held.
+         *
+         * @return the portions of the chunk's time bucket for which all samples are held.
+         */
+        private IntervalCoverage getCoverage() {
+            return coverage;
+        }
+
+        @Override
+        public long getSize() {
+            return OVERHEAD + (long) columns.size() * (Long.BYTES + Double.BYTES) + coverage.size() * 2L * Long.BYTES;
+        }
+    }
+
+    private static class SharedCacheHolder {
+        private static final SizeBoundCache<ChunkKey, SeriesChunk> instance = new SizeBoundCache<>("Series cache",
+                UserPreferences.getInstance().dataCacheMaxSizeMB.get().longValue() * 1024 * 1024,
+                UserPreferences.getInstance().dataCacheEvictionPolicy.get());
+    }
 }
@@ -20,7 +20,10 @@ import eu.binjr.common.function.CheckedFunction;
 import eu.binjr.common.logging.Logger;
 import eu.binjr.common.logging.Profiler;
 import eu.binjr.core.data.codec.Decoder;
+import eu.binjr.common.text.DoubleParser;
 import eu.binjr.core.data.exceptions.DecodingDataFromAdapterException;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesProcessor;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessorFactory;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
@@ -32,6 +35,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -51,7 +55,9 @@ public class CsvDecoder implements Decoder<Double> {
     private final CheckedFunction<String, Double, DecodingDataFromAdapterException> numberParser;
     private final CheckedFunction<String, ZonedDateTime, DecodingDataFromAdapterException> dateParser;
     private final TimeSeriesProcessorFactory<Double> timeSeriesFactory;
+    private final boolean defaultNumberParser;
     private static final Logger logger = Logger.create(CsvDecoder.class);
+    private static final int INITIAL_COLUMN_CAPACITY = 1024;
 
     /**
      * Initializes a new instance of the {@link CsvDecoder} class using the default number parsing function.
@@ -85,6 +91,7 @@ public class CsvDecoder implements Decoder<Double> {
         this.encoding = encoding;
         this.delimiter = delimiter;
         this.timeSeriesFactory = timeSeriesFactory;
+        this.defaultNumberParser = numberParser == null;
         if (numberParser == null) {
             numberParser = s -> {
                 if (s == null || s.isBlank() || s.equalsIgnoreCase("null")) {
@@ -115,8 +122,19 @@ public class CsvDecoder implements Decoder<Double> {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When the decoder uses the default number parsing function, the stream is tokenized directly from a character
+     * buffer; numeric fields are parsed without creating intermediate strings and appended to primitive columns,
+     * which are then handed over to each series' processor in a single operation.
+     * </p>
+     */
     @Override
     public Map<TimeSeriesInfo<Double>, TimeSeriesProcessor<Double>> decode(InputStream in, List<TimeSeriesInfo<Double>> seriesInfo) throws IOException, DecodingDataFromAdapterException {
+        if (defaultNumberParser) {
+            return decodeToColumns(in, seriesInfo);
+        }
         try (Profiler ignored = Profiler.start("Building time series from csv data", logger::perf)) {
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, encoding))) {
                 CSVFormat csvFormat = CSVFormat.DEFAULT
@@ -143,6 +161,95 @@ public class CsvDecoder implements Decoder<Double> {
         }
     }
 
+    private Map<TimeSeriesInfo<Double>, TimeSeriesProcessor<Double>> decodeToColumns(InputStream in, List<TimeSeriesInfo<Double>> seriesInfo) throws IOException, DecodingDataFromAdapterException {
+        try (Profiler ignored = Profiler.start("Building time series from csv data", logger::perf)) {
+            try (CsvTokenizer tokenizer = new CsvTokenizer(new InputStreamReader(in, encoding), delimiter)) {
+                if (!tokenizer.nextRecord()) {
+                    throw new DecodingDataFromAdapterException("CSV stream does not contains column header");
+                }
+                Map<String, Integer> headerIndexes = new HashMap<>();
+                for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+                    headerIndexes.put(tokenizer.getField(i), i);
+                }
+                int nbSeries = seriesInfo.size();
+                int[] columnIndexes = new int[nbSeries];
+                DoubleTimeSeriesColumns[] columns = new DoubleTimeSeriesColumns[nbSeries];
+                for (int i = 0; i < nbSeries; i++) {
+                    String label = seriesInfo.get(i).getBinding().getLabel();
+                    Integer index = headerIndexes.get(label);
+                    if (index == null) {
+                        throw new DecodingDataFromAdapterException("Cannot find a column named \"" + label + "\" in CSV stream");
+                    }
+                    columnIndexes[i] = index;
+                    columns[i] = new DoubleTimeSeriesColumns(INITIAL_COLUMN_CAPACITY);
+                }
+                long nbPoints = 0;
+                ZoneId zoneId = null;
+                while (tokenizer.nextRecord()) {
+                    ZonedDateTime timeStamp = dateParser.apply(tokenizer.getField(0));
+                    if (zoneId == null) {
+                        zoneId = timeStamp.getZone();
+                    }
+                    long epochNanos = DoubleTimeSeriesColumns.toEpochNanos(timeStamp);
+                    for (int i = 0; i < nbSeries; i++) {
+                        columns[i].add(epochNanos, parseValue(tokenizer, columnIndexes[i]));
+                    }
+                    nbPoints++;
+                }
+                Map<TimeSeriesInfo<Double>, TimeSeriesProcessor<Double>> series = new HashMap<>();
+                if (nbPoints > 0) {
+                    for (int i = 0; i < nbSeries; i++) {
+                        columns[i].setZoneId(zoneId);
+                        TimeSeriesProcessor<Double> processor = timeSeriesFactory.create();
+                        if (processor instanceof DoubleTimeSeriesProcessor) {
+                            ((DoubleTimeSeriesProcessor) processor).setColumns(columns[i]);
+                        } else {
+                            processor.setData(columns[i].toDataList());
+                        }
+                        series.put(seriesInfo.get(i), processor);
+                    }
+                }
+                final long totalPoints = nbPoints;
+                logger.trace(() -> String.format("Built %d series with %d samples each (%d total samples)", nbSeries, totalPoints, nbSeries * totalPoints));
+                return series;
+            }
+        }
+    }
+
+    private static double parseValue(CsvTokenizer tokenizer, int column) throws DecodingDataFromAdapterException {
+        if (column >= tokenizer.getFieldCount()) {
+            throw new DecodingDataFromAdapterException("CSV record only has " + tokenizer.getFieldCount() + " values: cannot access column #" + column);
+        }
+        char[] buffer = tokenizer.getRecordBuffer();
+        int start = tokenizer.getFieldStart(column);
+        int end = tokenizer.getFieldEnd(column);
+        if (isBlank(buffer, start, end) || isNullLiteral(buffer, start, end)) {
+            return Double.NaN;
+        }
+        try {
+            return DoubleParser.parse(buffer, start, end);
+        } catch (NumberFormatException e) {
+            throw new DecodingDataFromAdapterException("Failed to parse value as a number: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isBlank(char[] buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(buffer[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNullLiteral(char[] buffer, int start, int end) {
+        return end - start == 4 &&
+                (buffer[start] == 'n' || buffer[start] == 'N') &&
+                (buffer[start + 1] == 'u' || buffer[start + 1] == 'U') &&
+                (buffer[start + 2] == 'l' || buffer[start + 2] == 'L') &&
+                (buffer[start + 3] == 'l' || buffer[start + 3] == 'L');
+    }
+
     /**
      * Decodes data from the provided stream and invoke the provided {@link Consumer} for each decoded record.
      *
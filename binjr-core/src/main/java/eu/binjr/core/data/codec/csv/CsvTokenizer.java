@@ -0,0 +1,195 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.codec.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A minimal, allocation-free CSV tokenizer that splits a character stream into records and fields.
+ * <p>
+ * It follows the same rules as {@link org.apache.commons.csv.CSVFormat#DEFAULT} (double quote encapsulation with
+ * doubled quotes as escapes, LF, CR or CRLF record separators, empty lines ignored), but instead of producing
+ * {@link String} instances for every field, it copies the unescaped content of the current record into a reusable
+ * character buffer and exposes the boundaries of each field, so that callers can decide which fields to materialize
+ * and how.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+final class CsvTokenizer implements Closeable {
+    private static final int END_OF_STREAM = -1;
+    private static final char QUOTE = '"';
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] readBuffer = new char[READ_BUFFER_SIZE];
+    private int readPosition = 0;
+    private int readLimit = 0;
+    private char[] record = new char[256];
+    private int recordLength = 0;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+
+    /**
+     * Initializes a new instance of the {@link CsvTokenizer} class.
+     *
+     * @param reader    the {@link Reader} to tokenize.
+     * @param delimiter the character that separates fields in a record.
+     */
+    CsvTokenizer(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Advances to the next record in the stream.
+     *
+     * @return true if a record was read, false if the end of the stream was reached.
+     * @throws IOException if an I/O error occurs or if the stream is not a well-formed CSV stream.
+     */
+    boolean nextRecord() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == END_OF_STREAM) {
+            return false;
+        }
+        int fieldStart = 0;
+        while (true) {
+            if (c == QUOTE && recordLength == fieldStart) {
+                while (true) {
+                    c = read();
+                    if (c == END_OF_STREAM) {
+                        throw new IOException("End of stream reached before encapsulated token finished");
+                    }
+                    if (c == QUOTE) {
+                        c = read();
+                        if (c != QUOTE) {
+                            break;
+                        }
+                    }
+                    append((char) c);
+                }
+                if (c != delimiter && c != '\r' && c != '\n' && c != END_OF_STREAM) {
+                    throw new IOException("Invalid character between encapsulated token and delimiter");
+                }
+            }
+            if (c == delimiter) {
+                endField(fieldStart);
+                fieldStart = recordLength;
+            } else if (c == '\r' || c == '\n' || c == END_OF_STREAM) {
+                // A trailing LF after a CR is consumed as an empty line at the start of the next record.
+                endField(fieldStart);
+                return true;
+            } else {
+                append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Returns the number of fields in the current record.
+     *
+     * @return the number of fields in the current record.
+     */
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the buffer holding the unescaped content of the current record.
+     * <p>The content of the buffer is only valid until the next call to {@link #nextRecord()}.</p>
+     *
+     * @return the buffer holding the unescaped content of the current record.
+     */
+    char[] getRecordBuffer() {
+        return record;
+    }
+
+    /**
+     * Returns the index in the record buffer of the first character of the specified field.
+     *
+     * @param field the index of the field.
+     * @return the index in the record buffer of the first character of the specified field.
+     */
+    int getFieldStart(int field) {
+        return fieldStarts[field];
+    }
+
+    /**
+     * Returns the index in the record buffer following the last character of the specified field.
+     *
+     * @param field the index of the field.
+     * @return the index in the record buffer following the last character of the specified field.
+     */
+    int getFieldEnd(int field) {
+        return fieldEnds[field];
+    }
+
+    /**
+     * Returns the content of the specified field as a {@link String}.
+     *
+     * @param field the index of the field.
+     * @return the content of the specified field as a {@link String}.
+     */
+    String getField(int field) {
+        return new String(record, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (readPosition >= readLimit) {
+            readLimit = reader.read(readBuffer, 0, readBuffer.length);
+            readPosition = 0;
+            if (readLimit <= 0) {
+                readLimit = 0;
+                return END_OF_STREAM;
+            }
+        }
+        return readBuffer[readPosition++];
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private void endField(int fieldStart) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = fieldStart;
+        fieldEnds[fieldCount] = recordLength;
+        fieldCount++;
+    }
+}
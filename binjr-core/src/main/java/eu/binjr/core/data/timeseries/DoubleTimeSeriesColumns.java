@@ -0,0 +1,413 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.timeseries;
+
+import javafx.scene.chart.XYChart;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A growable, column oriented store for time series samples of double values, which keeps timestamps as
+ * nanoseconds since the epoch in a {@code long[]} and values in a {@code double[]}, rather than as individual
+ * {@link XYChart.Data} instances.
+ * <p>
+ * <b>Remark:</b> This class is not thread safe; synchronization is left to the caller.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public final class DoubleTimeSeriesColumns {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private long[] timestamps;
+    private double[] values;
+    private int size;
+    private ZoneId zoneId;
+
+    /**
+     * Initializes a new instance of the {@link DoubleTimeSeriesColumns} class.
+     */
+    public DoubleTimeSeriesColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes a new instance of the {@link DoubleTimeSeriesColumns} class with the specified initial capacity.
+     *
+     * @param initialCapacity the initial number of samples the store can hold before having to grow.
+     */
+    public DoubleTimeSeriesColumns(int initialCapacity) {
+        this.timestamps = new long[Math.max(0, initialCapacity)];
+        this.values = new double[Math.max(0, initialCapacity)];
+        this.size = 0;
+    }
+
+    /**
+     * Appends a new sample at the end of the store.
+     *
+     * @param epochNanos the timestamp of the sample, expressed in nanoseconds since the epoch.
+     * @param value      the value of the sample.
+     */
+    public void add(long epochNanos, double value) {
+        ensureCapacity(size + 1);
+        timestamps[size] = epochNanos;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Appends a new sample at the end of the store.
+     *
+     * @param timestamp the timestamp of the sample.
+     * @param value     the value of the sample (null values are stored as NaN).
+     */
+    public void add(ZonedDateTime timestamp, Double value) {
+        if (zoneId == null) {
+            zoneId = timestamp.getZone();
+        }
+        add(toEpochNanos(timestamp), value == null ? Double.NaN : value);
+    }
+
+    /**
+     * Replaces the content of the store with the provided samples.
+     *
+     * @param data the samples to copy into the store.
+     */
+    public void setAll(Collection<XYChart.Data<ZonedDateTime, Double>> data) {
+        clear();
+        ensureCapacity(data.size());
+        for (var sample : data) {
+            add(sample.getXValue(), sample.getYValue());
+        }
+    }
+
+    /**
+     * Replaces the content of the store with a copy of the provided arrays.
+     *
+     * @param timestamps the timestamps of the samples, expressed in nanoseconds since the epoch.
+     * @param values     the values of the samples.
+     * @param length     the number of samples to copy from the provided arrays.
+     */
+    public void setAll(long[] timestamps, double[] values, int length) {
+        clear();
+        ensureCapacity(length);
+        System.arraycopy(timestamps, 0, this.timestamps, 0, length);
+        System.arraycopy(values, 0, this.values, 0, length);
+        size = length;
+    }
+
+    /**
+     * Inserts a new sample at the specified position, shifting the subsequent samples to the right.
+     *
+     * @param index      the position at which to insert the sample.
+     * @param epochNanos the timestamp of the sample, expressed in nanoseconds since the epoch.
+     * @param value      the value of the sample.
+     */
+    public void insert(int index, long epochNanos, double value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        timestamps[index] = epochNanos;
+        values[index] = value;
+        size++;
+    }
+
+    /**
+     * Removes the samples between the specified indexes, shifting the subsequent samples to the left.
+     *
+     * @param fromIndex the index of the first sample to remove (inclusive).
+     * @param toIndex   the index of the last sample to remove (exclusive).
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") out of bounds for length " + size);
+        }
+        System.arraycopy(timestamps, toIndex, timestamps, fromIndex, size - toIndex);
+        System.arraycopy(values, toIndex, values, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+    }
+
+    /**
+     * Discards all samples past the specified size.
+     * <p>
+     * Transforms that compact the store in place write the retained samples at the beginning of the arrays
+     * and then call this method to set the new logical size.
+     * </p>
+     *
+     * @param newSize the new number of samples in the store.
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException("Size " + newSize + " out of bounds for length " + size);
+        }
+        size = newSize;
+    }
+
+    /**
+     * Removes all samples from the store.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns true if the samples in the store are ordered by ascending timestamps, false otherwise.
+     *
+     * @return true if the samples in the store are ordered by ascending timestamps, false otherwise.
+     */
+    public boolean isSorted() {
+        for (int i = 1; i < size; i++) {
+            if (timestamps[i] < timestamps[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the samples in the store by ascending timestamps.
+     * <p>
+     * The sort is stable, and returns immediately if the samples are already ordered.
+     * </p>
+     */
+    public void sort() {
+        if (isSorted()) {
+            return;
+        }
+        long[] tsBuffer = Arrays.copyOf(timestamps, size);
+        double[] valBuffer = Arrays.copyOf(values, size);
+        mergeSort(tsBuffer, valBuffer, timestamps, values, 0, size);
+    }
+
+    private static void mergeSort(long[] srcTs, double[] srcVal, long[] dstTs, double[] dstVal, int from, int to) {
+        int length = to - from;
+        if (length < 8) {
+            // insertion sort on small ranges
+            for (int i = from + 1; i < to; i++) {
+                long ts = dstTs[i];
+                double val = dstVal[i];
+                int j = i - 1;
+                while (j >= from && dstTs[j] > ts) {
+                    dstTs[j + 1] = dstTs[j];
+                    dstVal[j + 1] = dstVal[j];
+                    j--;
+                }
+                dstTs[j + 1] = ts;
+                dstVal[j + 1] = val;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        // Sort both halves into the source buffers, then merge them back into destination.
+        mergeSort(dstTs, dstVal, srcTs, srcVal, from, mid);
+        mergeSort(dstTs, dstVal, srcTs, srcVal, mid, to);
+        if (srcTs[mid - 1] <= srcTs[mid]) {
+            System.arraycopy(srcTs, from, dstTs, from, length);
+            System.arraycopy(srcVal, from, dstVal, from, length);
+            return;
+        }
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            if (q >= to || (p < mid && srcTs[p] <= srcTs[q])) {
+                dstTs[i] = srcTs[p];
+                dstVal[i] = srcVal[p++];
+            } else {
+                dstTs[i] = srcTs[q];
+                dstVal[i] = srcVal[q++];
+            }
+        }
+    }
+
+    /**
+     * Ensures that the store can hold at least the specified number of samples without having to grow.
+     *
+     * @param minCapacity the desired minimum capacity.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > timestamps.length) {
+            int newCapacity = Math.max(minCapacity, timestamps.length + (timestamps.length >> 1) + 1);
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    /**
+     * Releases any excess capacity held by the underlying arrays.
+     */
+    public void trimToSize() {
+        if (size < timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size);
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Returns the number of samples in the store.
+     *
+     * @return the number of samples in the store.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the store contains no samples, false otherwise.
+     *
+     * @return true if the store contains no samples, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the timestamp of the sample at the specified index, in nanoseconds since the epoch.
+     *
+     * @param index the index of the sample.
+     * @return the timestamp of the sample at the specified index, in nanoseconds since the epoch.
+     */
+    public long getTimestamp(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    /**
+     * Returns the value of the sample at the specified index.
+     *
+     * @param index the index of the sample.
+     * @return the value of the sample at the specified index.
+     */
+    public double getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Returns the underlying timestamp array.
+     * <p>
+     * <b>Remark:</b> Only the first {@link #size()} elements are meaningful, and the returned array is the live
+     * backing store, not a copy.
+     * </p>
+     *
+     * @return the underlying timestamp array.
+     */
+    public long[] timestamps() {
+        return timestamps;
+    }
+
+    /**
+     * Returns the underlying value array.
+     * <p>
+     * <b>Remark:</b> Only the first {@link #size()} elements are meaningful, and the returned array is the live
+     * backing store, not a copy.
+     * </p>
+     *
+     * @return the underlying value array.
+     */
+    public double[] values() {
+        return values;
+    }
+
+    /**
+     * Returns the time zone used to materialize timestamps as {@link ZonedDateTime} instances.
+     *
+     * @return the time zone used to materialize timestamps as {@link ZonedDateTime} instances.
+     */
+    public ZoneId getZoneId() {
+        return zoneId == null ? ZoneId.systemDefault() : zoneId;
+    }
+
+    /**
+     * Sets the time zone used to materialize timestamps as {@link ZonedDateTime} instances.
+     *
+     * @param zoneId the time zone used to materialize timestamps as {@link ZonedDateTime} instances.
+     */
+    public void setZoneId(ZoneId zoneId) {
+        this.zoneId = zoneId;
+    }
+
+    /**
+     * Builds a new {@link XYChart.Data} instance for the sample at the specified index.
+     *
+     * @param index the index of the sample.
+     * @return a new {@link XYChart.Data} instance for the sample at the specified index.
+     */
+    public XYChart.Data<ZonedDateTime, Double> getSample(int index) {
+        checkIndex(index);
+        return new XYChart.Data<>(toZonedDateTime(timestamps[index], getZoneId()), values[index]);
+    }
+
+    /**
+     * Builds a new list of {@link XYChart.Data} instances from the content of the store.
+     *
+     * @return a new list of {@link XYChart.Data} instances from the content of the store.
+     */
+    public List<XYChart.Data<ZonedDateTime, Double>> toDataList() {
+        var zone = getZoneId();
+        List<XYChart.Data<ZonedDateTime, Double>> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new XYChart.Data<>(toZonedDateTime(timestamps[i], zone), values[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Converts a {@link ZonedDateTime} into a number of nanoseconds since the epoch.
+     *
+     * @param dateTime the {@link ZonedDateTime} to convert.
+     * @return the number of nanoseconds since the epoch.
+     */
+    public static long toEpochNanos(ZonedDateTime dateTime) {
+        return dateTime.toEpochSecond() * NANOS_PER_SECOND + dateTime.getNano();
+    }
+
+    /**
+     * Converts an {@link Instant} into a number of nanoseconds since the epoch.
+     *
+     * @param instant the {@link Instant} to convert.
+     * @return the number of nanoseconds since the epoch.
+     */
+    public static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    /**
+     * Converts a number of nanoseconds since the epoch into a {@link ZonedDateTime}.
+     *
+     * @param epochNanos the number of nanoseconds since the epoch.
+     * @param zoneId     the time zone of the returned {@link ZonedDateTime}.
+     * @return a {@link ZonedDateTime} instance.
+     */
+    public static ZonedDateTime toZonedDateTime(long epochNanos, ZoneId zoneId) {
+        return ZonedDateTime.ofInstant(
+                Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND)),
+                zoneId);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
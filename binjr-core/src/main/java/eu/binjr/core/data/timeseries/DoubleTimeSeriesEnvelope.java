@@ -0,0 +1,105 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.timeseries;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Holds the range of values covered by each bucket of a down-sampled time series, as the minimum and maximum of the
+ * full resolution samples that were aggregated into it.
+ * <p>
+ * Instances are immutable.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public final class DoubleTimeSeriesEnvelope {
+    private final long[] timestamps;
+    private final double[] lowerValues;
+    private final double[] upperValues;
+    private final ZoneId zoneId;
+
+    /**
+     * Initializes a new instance of the {@link DoubleTimeSeriesEnvelope} class.
+     *
+     * @param timestamps  the timestamps of the buckets, in nanoseconds since the epoch.
+     * @param lowerValues the minimum value in each bucket.
+     * @param upperValues the maximum value in each bucket.
+     * @param size        the number of buckets.
+     * @param zoneId      the time zone used to materialize timestamps as {@link ZonedDateTime} instances.
+     */
+    public DoubleTimeSeriesEnvelope(long[] timestamps, double[] lowerValues, double[] upperValues, int size, ZoneId zoneId) {
+        if (size < 0 || size > timestamps.length || size > lowerValues.length || size > upperValues.length) {
+            throw new IllegalArgumentException("Invalid envelope size: " + size);
+        }
+        this.timestamps = Arrays.copyOf(timestamps, size);
+        this.lowerValues = Arrays.copyOf(lowerValues, size);
+        this.upperValues = Arrays.copyOf(upperValues, size);
+        this.zoneId = zoneId;
+    }
+
+    /**
+     * Returns the number of buckets in the envelope.
+     *
+     * @return the number of buckets in the envelope.
+     */
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * Returns the timestamp of the bucket at the specified index, in nanoseconds since the epoch.
+     *
+     * @param index the index of the bucket.
+     * @return the timestamp of the bucket at the specified index, in nanoseconds since the epoch.
+     */
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Returns the timestamp of the bucket at the specified index, as a {@link ZonedDateTime}.
+     *
+     * @param index the index of the bucket.
+     * @return the timestamp of the bucket at the specified index, as a {@link ZonedDateTime}.
+     */
+    public ZonedDateTime getDateTime(int index) {
+        return DoubleTimeSeriesColumns.toZonedDateTime(timestamps[index], zoneId);
+    }
+
+    /**
+     * Returns the minimum value in the bucket at the specified index.
+     *
+     * @param index the index of the bucket.
+     * @return the minimum value in the bucket at the specified index.
+     */
+    public double getLowerValue(int index) {
+        return lowerValues[index];
+    }
+
+    /**
+     * Returns the maximum value in the bucket at the specified index.
+     *
+     * @param index the index of the bucket.
+     * @return the maximum value in the bucket at the specified index.
+     */
+    public double getUpperValue(int index) {
+        return upperValues[index];
+    }
+}
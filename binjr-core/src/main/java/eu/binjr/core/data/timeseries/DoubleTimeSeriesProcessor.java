@@ -1,5 +1,5 @@
 /*
- *    Copyright 2017-2019 Frederic Thevenet
+ *    Copyright 2017-2020 Frederic Thevenet
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -16,50 +16,260 @@
 
 package eu.binjr.core.data.timeseries;
 
-import eu.binjr.core.data.workspace.TimeSeriesInfo;
+import eu.binjr.core.data.timeseries.transform.ColumnarTimeSeriesTransform;
+import eu.binjr.core.data.timeseries.transform.MinMaxEnvelopeTransform;
+import eu.binjr.core.data.timeseries.transform.TimeSeriesTransform;
+import eu.binjr.core.data.timeseries.transform.TimeSeriesTransformAdapter;
+import eu.binjr.core.preferences.UserPreferences;
 import javafx.scene.chart.XYChart;
 
-import java.util.OptionalDouble;
+import java.time.ZonedDateTime;
+import java.util.Collection;
 
 /**
  * This class provides a full implementation of a {@link TimeSeriesProcessor} of {@link Double} values.
+ * <p>
+ * When created in columnar mode, samples are not held as individual {@link XYChart.Data} instances but in a
+ * {@link DoubleTimeSeriesColumns} store, and {@link XYChart.Data} instances are only built on demand
+ * (e.g. when the final, reduced series is handed over to a chart).
+ * Transforms that implement {@link ColumnarTimeSeriesTransform} are then applied in place onto the columns.
+ * </p>
+ * <p>
+ * Summary statistics are maintained incrementally as samples are added, and are left untouched when transforms are
+ * applied, so that they always reflect the full resolution data rather than the reduced series handed over to a chart.
+ * </p>
+ * <p>
+ * When the samples are reduced by a {@link MinMaxEnvelopeTransform}, the range of values aggregated into each
+ * sample is retained as well, and made available via {@link #getEnvelope()}.
+ * </p>
  *
  * @author Frederic Thevenet
  */
 public class DoubleTimeSeriesProcessor extends TimeSeriesProcessor<Double> {
+    private final DoubleTimeSeriesColumns columns;
+    private final DoubleTimeSeriesStatistics statistics = new DoubleTimeSeriesStatistics();
+    private DoubleTimeSeriesEnvelope envelope;
 
     /**
-     * Initializes a new instance of the {@link DoubleTimeSeriesProcessor} class with the provided binding.
+     * Initializes a new instance of the {@link DoubleTimeSeriesProcessor} class, using the storage mode
+     * defined in the user's preferences.
      */
     public DoubleTimeSeriesProcessor() {
+        this(UserPreferences.getInstance().columnarDataStoreEnabled.get());
+    }
+
+    /**
+     * Initializes a new instance of the {@link DoubleTimeSeriesProcessor} class.
+     *
+     * @param columnar true if samples should be stored in primitive columns, false if they should be stored as a
+     *                 list of {@link XYChart.Data}.
+     */
+    public DoubleTimeSeriesProcessor(boolean columnar) {
         super();
+        this.columns = columnar ? new DoubleTimeSeriesColumns() : null;
+    }
+
+    /**
+     * Returns true if the processor stores its samples in primitive columns, false otherwise.
+     *
+     * @return true if the processor stores its samples in primitive columns, false otherwise.
+     */
+    public boolean isColumnar() {
+        return columns != null;
+    }
+
+    @Override
+    public Collection<XYChart.Data<ZonedDateTime, Double>> getData() {
+        if (!isColumnar()) {
+            return super.getData();
+        }
+        return monitor.read().lock(columns::toDataList);
+    }
+
+    /**
+     * Returns the minimum and maximum values of the samples aggregated into each sample of the reduced series, or null
+     * if the samples were not reduced by a {@link MinMaxEnvelopeTransform}.
+     *
+     * @return the envelope of the reduced series, or null if there is none.
+     */
+    public DoubleTimeSeriesEnvelope getEnvelope() {
+        return monitor.read().lock(() -> envelope);
+    }
+
+    @Override
+    public void setData(Collection<XYChart.Data<ZonedDateTime, Double>> newData) {
+        monitor.write().lock(() -> {
+            if (isColumnar()) {
+                columns.setAll(newData);
+                invalidateTimestampIndex();
+            } else {
+                super.setData(newData);
+            }
+            envelope = null;
+            statistics.reset();
+            for (var sample : newData) {
+                statistics.accept(toPrimitive(sample.getYValue()));
+            }
+        });
+    }
+
+    /**
+     * Returns a copy of the processor's samples, as primitive columns.
+     *
+     * @return a copy of the processor's samples, as primitive columns.
+     */
+    public DoubleTimeSeriesColumns toColumns() {
+        return monitor.read().lock(() -> {
+            var copy = new DoubleTimeSeriesColumns(0);
+            if (isColumnar()) {
+                copy.setAll(columns.timestamps(), columns.values(), columns.size());
+                copy.setZoneId(columns.getZoneId());
+            } else {
+                copy.setAll(data);
+            }
+            return copy;
+        });
+    }
+
+    /**
+     * Replaces the content of the processor's data store with a copy of the specified columns.
+     *
+     * @param newColumns the samples to use as the processor's data.
+     */
+    public void setColumns(DoubleTimeSeriesColumns newColumns) {
+        if (!isColumnar()) {
+            setData(newColumns.toDataList());
+            return;
+        }
+        monitor.write().lock(() -> {
+            columns.setAll(newColumns.timestamps(), newColumns.values(), newColumns.size());
+            columns.setZoneId(newColumns.getZoneId());
+            invalidateTimestampIndex();
+            envelope = null;
+            statistics.reset();
+            double[] values = columns.values();
+            for (int i = 0; i < columns.size(); i++) {
+                statistics.accept(values[i]);
+            }
+        });
+    }
+
+    @Override
+    public XYChart.Data<ZonedDateTime, Double> getSample(int index) {
+        if (!isColumnar()) {
+            return super.getSample(index);
+        }
+        return monitor.read().lock(() -> columns.getSample(index));
+    }
+
+    @Override
+    public int size() {
+        if (!isColumnar()) {
+            return super.size();
+        }
+        return monitor.read().lock(columns::size);
+    }
+
+    @Override
+    public void addSample(XYChart.Data<ZonedDateTime, Double> sample) {
+        if (!isColumnar()) {
+            monitor.write().lock(() -> {
+                super.addSample(sample);
+                statistics.accept(toPrimitive(sample.getYValue()));
+            });
+            return;
+        }
+        addSample(sample.getXValue(), sample.getYValue());
+    }
+
+    @Override
+    public void addSample(ZonedDateTime timestamp, Double value) {
+        if (!isColumnar()) {
+            super.addSample(timestamp, value);
+            return;
+        }
+        monitor.write().lock(() -> {
+            columns.add(timestamp, value);
+            statistics.accept(toPrimitive(value));
+            invalidateTimestampIndex();
+        });
+    }
+
+    @Override
+    protected void unsyncedApplyTransform(TimeSeriesTransform<Double> transform) {
+        if (transform instanceof MinMaxEnvelopeTransform && transform.isEnabled()) {
+            var envelopeTransform = (MinMaxEnvelopeTransform) transform;
+            if (isColumnar()) {
+                envelope = envelopeTransform.reduce(columns);
+            } else {
+                var copy = new DoubleTimeSeriesColumns(data.size());
+                copy.setAll(data);
+                envelope = envelopeTransform.reduce(copy);
+                this.data = copy.toDataList();
+            }
+            invalidateTimestampIndex();
+            return;
+        }
+        if (!isColumnar()) {
+            super.unsyncedApplyTransform(transform);
+            return;
+        }
+        TimeSeriesTransformAdapter.of(transform).transform(columns);
+        invalidateTimestampIndex();
+    }
+
+    @Override
+    protected long[] buildTimestampIndex() {
+        if (!isColumnar()) {
+            return super.buildTimestampIndex();
+        }
+        // The timestamp column is its own index, as long as it is sorted
+        return columns.isSorted() ? columns.timestamps() : UNSORTED_INDEX;
+    }
+
+    @Override
+    protected Double unsyncedGetNearestValueAt(long epochNanos) {
+        if (!isColumnar()) {
+            return super.unsyncedGetNearestValueAt(epochNanos);
+        }
+        if (columns.isEmpty()) {
+            return null;
+        }
+        int size = columns.size();
+        long[] timestamps = columns.timestamps();
+        double[] values = columns.values();
+        var index = getTimestampIndex();
+        if (index != null) {
+            int pos = nearestIndex(index, size, epochNanos);
+            return pos < 0 ? null : values[pos];
+        }
+        for (int i = 0; i < size; i++) {
+            if (epochNanos < timestamps[i]) {
+                if (i == 0) {
+                    return null;
+                }
+                return (epochNanos - timestamps[i - 1]) > (timestamps[i] - epochNanos) ? values[i] : values[i - 1];
+            }
+        }
+        return values[size - 1];
     }
 
     @Override
     public Double computeMinValue() {
-        return this.data.stream()
-                .map(XYChart.Data::getYValue)
-                .filter(d -> d != null && !Double.isNaN(d))
-                .min(Double::compareTo)
-                .orElse(Double.NaN);
+        return statistics.getMin();
     }
 
     @Override
     public Double computeAverageValue() {
-       return this.data.stream()
-               .map(XYChart.Data::getYValue)
-               .filter(d -> d != null && !Double.isNaN(d))
-               .mapToDouble(value -> value)
-               .average()
-               .orElse(Double.NaN);
+        return statistics.getAverage();
     }
 
     @Override
     public Double computeMaxValue() {
-       return this.data.stream()
-               .map(XYChart.Data::getYValue)
-               .filter(d -> d != null && !Double.isNaN(d))
-               .max(Double::compareTo)
-               .orElse(Double.NaN);
+        return statistics.getMax();
+    }
+
+    private static double toPrimitive(Double value) {
+        return value == null ? Double.NaN : value;
     }
 }
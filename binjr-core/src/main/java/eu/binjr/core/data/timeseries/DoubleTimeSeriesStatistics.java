@@ -0,0 +1,127 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.timeseries;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * A state object for collecting summary statistics over the values of a time series, such as min, max, sum and
+ * average, in a single pass.
+ * <p>
+ * NaN values are excluded from all statistics.
+ * </p>
+ * <p>
+ * <b>Remark:</b> This class is not thread safe; synchronization is left to the caller.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public final class DoubleTimeSeriesStatistics implements DoubleConsumer {
+    private long count;
+    private double sum;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Initializes a new, empty instance of the {@link DoubleTimeSeriesStatistics} class.
+     */
+    public DoubleTimeSeriesStatistics() {
+    }
+
+    /**
+     * Records a new value.
+     *
+     * @param value the value to record.
+     */
+    @Override
+    public void accept(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        sum += value;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        count = 0;
+        sum = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+    }
+
+    /**
+     * Returns the number of recorded values, excluding NaN.
+     *
+     * @return the number of recorded values, excluding NaN.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of all recorded values.
+     *
+     * @return the sum of all recorded values.
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the minimum recorded value, or NaN if no value was recorded.
+     *
+     * @return the minimum recorded value, or NaN if no value was recorded.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum recorded value, or NaN if no value was recorded.
+     *
+     * @return the maximum recorded value, or NaN if no value was recorded.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the arithmetic mean of recorded values, or NaN if no value was recorded.
+     *
+     * @return the arithmetic mean of recorded values, or NaN if no value was recorded.
+     */
+    public double getAverage() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, sum=%f, min=%f, average=%f, max=%f}",
+                getClass().getSimpleName(), count, sum, min, getAverage(), max);
+    }
+}
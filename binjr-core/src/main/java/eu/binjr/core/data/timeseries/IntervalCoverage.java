@@ -0,0 +1,190 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of disjoint, half-open time intervals, expressed in nanoseconds since the epoch, which
+ * describes the portions of a time line covered by locally held data.
+ *
+ * @author Frederic Thevenet
+ */
+public final class IntervalCoverage {
+    /**
+     * An empty coverage.
+     */
+    public static final IntervalCoverage EMPTY = new IntervalCoverage(new long[0]);
+    // Sorted, non-overlapping and non-adjacent [start, end) pairs
+    private final long[] bounds;
+
+    private IntervalCoverage(long[] bounds) {
+        this.bounds = bounds;
+    }
+
+    /**
+     * Returns a coverage made of a single interval.
+     *
+     * @param start the start of the interval (inclusive).
+     * @param end   the end of the interval (exclusive).
+     * @return a coverage made of a single interval.
+     */
+    public static IntervalCoverage of(long start, long end) {
+        return EMPTY.add(start, end);
+    }
+
+    /**
+     * Returns a new coverage that is the union of this one and the specified interval.
+     *
+     * @param start the start of the interval (inclusive).
+     * @param end   the end of the interval (exclusive).
+     * @return a new coverage that is the union of this one and the specified interval.
+     */
+    public IntervalCoverage add(long start, long end) {
+        if (start >= end) {
+            return this;
+        }
+        var result = new long[bounds.length + 2];
+        int n = 0;
+        int i = 0;
+        // copy intervals ending before the new one
+        while (i < bounds.length && bounds[i + 1] < start) {
+            result[n++] = bounds[i];
+            result[n++] = bounds[i + 1];
+            i += 2;
+        }
+        // merge intervals overlapping or adjacent to the new one
+        long mergedStart = start;
+        long mergedEnd = end;
+        while (i < bounds.length && bounds[i] <= end) {
+            mergedStart = Math.min(mergedStart, bounds[i]);
+            mergedEnd = Math.max(mergedEnd, bounds[i + 1]);
+            i += 2;
+        }
+        result[n++] = mergedStart;
+        result[n++] = mergedEnd;
+        while (i < bounds.length) {
+            result[n++] = bounds[i++];
+        }
+        return new IntervalCoverage(n == result.length ? result : Arrays.copyOf(result, n));
+    }
+
+    /**
+     * Returns a new coverage that is the union of this one and the specified one.
+     *
+     * @param other the coverage to add.
+     * @return a new coverage that is the union of this one and the specified one.
+     */
+    public IntervalCoverage add(IntervalCoverage other) {
+        var result = this;
+        for (int i = 0; i < other.size(); i++) {
+            result = result.add(other.getStart(i), other.getEnd(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the portions of the specified interval that are not covered.
+     *
+     * @param start the start of the interval (inclusive).
+     * @param end   the end of the interval (exclusive).
+     * @return the portions of the specified interval that are not covered.
+     */
+    public IntervalCoverage gaps(long start, long end) {
+        var gaps = EMPTY;
+        long cursor = start;
+        for (int i = 0; i < bounds.length && cursor < end; i += 2) {
+            if (bounds[i + 1] <= cursor) {
+                continue;
+            }
+            if (bounds[i] > cursor) {
+                gaps = gaps.add(cursor, Math.min(bounds[i], end));
+            }
+            cursor = Math.max(cursor, bounds[i + 1]);
+        }
+        return gaps.add(cursor, end);
+    }
+
+    /**
+     * Returns true if the specified time stamp is covered, false otherwise.
+     *
+     * @param epochNanos the time stamp to test.
+     * @return true if the specified time stamp is covered, false otherwise.
+     */
+    public boolean contains(long epochNanos) {
+        // find the last interval starting at or before the time stamp
+        int low = 0;
+        int high = bounds.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[2 * mid] <= epochNanos) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && epochNanos < bounds[2 * high + 1];
+    }
+
+    /**
+     * Returns true if no interval is covered.
+     *
+     * @return true if no interval is covered.
+     */
+    public boolean isEmpty() {
+        return bounds.length == 0;
+    }
+
+    /**
+     * Returns the number of disjoint intervals in the coverage.
+     *
+     * @return the number of disjoint intervals in the coverage.
+     */
+    public int size() {
+        return bounds.length / 2;
+    }
+
+    /**
+     * Returns the start (inclusive) of the interval at the specified position.
+     *
+     * @param index the position of the interval.
+     * @return the start of the interval at the specified position.
+     */
+    public long getStart(int index) {
+        return bounds[2 * index];
+    }
+
+    /**
+     * Returns the end (exclusive) of the interval at the specified position.
+     *
+     * @param index the position of the interval.
+     * @return the end of the interval at the specified position.
+     */
+    public long getEnd(int index) {
+        return bounds[2 * index + 1];
+    }
+
+    @Override
+    public String toString() {
+        var sb = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            sb.append(i > 0 ? ", " : "").append('[').append(getStart(i)).append(", ").append(getEnd(i)).append(')');
+        }
+        return sb.append(']').toString();
+    }
+}
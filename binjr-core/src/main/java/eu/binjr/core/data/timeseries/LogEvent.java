@@ -18,13 +18,31 @@ package eu.binjr.core.data.timeseries;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class LogEvent {
-    private final String message;
+    private volatile String message;
+    private final Supplier<String> messageLoader;
     private final Map<String, FacetEntry> facets = new HashMap<>();
 
     public LogEvent(String message, FacetEntry... categories) {
+        this(message, null, categories);
+    }
+
+    /**
+     * Initializes a new instance of the {@link LogEvent} class, whose message is only retrieved from the source the
+     * first time it is accessed.
+     *
+     * @param messageLoader a function that retrieves the message from the source.
+     * @param categories    the facets the event belongs to.
+     */
+    public LogEvent(Supplier<String> messageLoader, FacetEntry... categories) {
+        this(null, messageLoader, categories);
+    }
+
+    private LogEvent(String message, Supplier<String> messageLoader, FacetEntry... categories) {
         this.message = message;
+        this.messageLoader = messageLoader;
         if (categories != null) {
             for (var category : categories) {
                 this.facets.put(category.getFacetName(), category);
@@ -33,7 +51,21 @@ public class LogEvent {
     }
 
     public String getMessage() {
-        return message;
+        var msg = message;
+        if (msg == null && messageLoader != null) {
+            msg = messageLoader.get();
+            message = msg;
+        }
+        return msg;
+    }
+
+    /**
+     * Returns true if the message of the event is available without having to retrieve it from the source.
+     *
+     * @return true if the message of the event is available without having to retrieve it from the source.
+     */
+    public boolean isMessageLoaded() {
+        return message != null || messageLoader == null;
     }
 
     public Map<String, FacetEntry> getFacets() {
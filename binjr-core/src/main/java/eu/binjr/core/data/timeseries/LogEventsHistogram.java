@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.timeseries;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The number of log events per interval of time, for each severity.
+ *
+ * @author Frederic Thevenet
+ */
+public class LogEventsHistogram {
+    private final ZonedDateTime start;
+    private final Duration bucketWidth;
+    private final int nbBuckets;
+    private final Map<String, int[]> countsBySeverity;
+
+    /**
+     * Initializes a new instance of the {@link LogEventsHistogram} class.
+     *
+     * @param start            the start of the first bucket.
+     * @param bucketWidth      the width of a bucket.
+     * @param nbBuckets        the number of buckets.
+     * @param countsBySeverity the number of events in each bucket, for each severity.
+     */
+    public LogEventsHistogram(ZonedDateTime start, Duration bucketWidth, int nbBuckets, Map<String, int[]> countsBySeverity) {
+        this.start = start;
+        this.bucketWidth = bucketWidth;
+        this.nbBuckets = nbBuckets;
+        this.countsBySeverity = Collections.unmodifiableMap(countsBySeverity);
+    }
+
+    public ZonedDateTime getStart() {
+        return start;
+    }
+
+    public Duration getBucketWidth() {
+        return bucketWidth;
+    }
+
+    public int getNbBuckets() {
+        return nbBuckets;
+    }
+
+    public Map<String, int[]> getCountsBySeverity() {
+        return countsBySeverity;
+    }
+}
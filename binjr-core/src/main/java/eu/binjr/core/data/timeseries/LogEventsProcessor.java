@@ -41,6 +41,8 @@ public class LogEventsProcessor extends TimeSeriesProcessor<LogEvent> {
     private final Map<String, Collection<FacetEntry>> facetResults = new HashMap<>();
     private int totalHits = 0;
     private int hitsPerPage = 0;
+    private String pageCursor = null;
+    private LogEventsHistogram histogram = null;
 
     @Override
     protected LogEvent computeMinValue() {
@@ -81,4 +83,32 @@ public class LogEventsProcessor extends TimeSeriesProcessor<LogEvent> {
         return hitsPerPage;
     }
 
+    /**
+     * Returns an opaque position in the results, which can be passed along with the parameters of subsequent queries
+     * for other pages of the same results, so that they can be retrieved without going through all preceding pages.
+     *
+     * @return an opaque position in the results, or null if the adapter does not support it.
+     */
+    public String getPageCursor() {
+        return pageCursor;
+    }
+
+    public void setPageCursor(String pageCursor) {
+        this.pageCursor = pageCursor;
+    }
+
+    /**
+     * Returns the number of events matching the query per interval of time and severity, or null if the adapter does
+     * not provide it.
+     *
+     * @return the number of events matching the query per interval of time and severity.
+     */
+    public LogEventsHistogram getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(LogEventsHistogram histogram) {
+        this.histogram = histogram;
+    }
+
 }
@@ -22,12 +22,8 @@ import eu.binjr.core.data.adapters.TimeSeriesBinding;
 import eu.binjr.core.data.timeseries.transform.TimeSeriesTransform;
 import javafx.scene.chart.XYChart;
 
-import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * The base class for time series processor classes, which holds raw data points and provides access to summary properties.
@@ -36,8 +32,13 @@ import java.util.Optional;
  */
 public abstract class TimeSeriesProcessor<T> {
     private static final Logger logger = Logger.create(TimeSeriesProcessor.class);
-    private final ReadWriteLockHelper monitor = new ReadWriteLockHelper();
+    /**
+     * A placeholder for the timestamp index of a processor whose samples are not sorted by time.
+     */
+    protected static final long[] UNSORTED_INDEX = new long[0];
+    protected final ReadWriteLockHelper monitor = new ReadWriteLockHelper();
     protected List<XYChart.Data<ZonedDateTime, T>> data;
+    private volatile long[] timestampIndex;
 
     /**
      * Initializes a new instance of the {@link TimeSeriesProcessor} class with the provided {@link TimeSeriesBinding}.
@@ -86,6 +87,30 @@ public abstract class TimeSeriesProcessor<T> {
         return monitor.read().tryLock(this::unsyncedGetNearestValue, xValue);
     }
 
+    /**
+     * Try to get the nearest values for the specified time stamp from all provided processors at once.
+     *
+     * <p><b>Remark:</b> Processors that are already being accessed by another thread, or for which no value could be
+     * found, are skipped and have no entry in the returned map.</p>
+     *
+     * @param processors the processors to get the values from.
+     * @param xValue     the time stamp to get the values for.
+     * @param <T>        the type of the values.
+     * @return a map of the values nearest to the requested time stamp, keyed by processor.
+     */
+    public static <T> Map<TimeSeriesProcessor<T>, T> tryGetNearestValues(Collection<? extends TimeSeriesProcessor<T>> processors,
+                                                                          ZonedDateTime xValue) {
+        Map<TimeSeriesProcessor<T>, T> values = new HashMap<>();
+        if (xValue == null) {
+            return values;
+        }
+        long x = DoubleTimeSeriesColumns.toEpochNanos(xValue);
+        for (var p : processors) {
+            p.monitor.read().tryLock(p::unsyncedGetNearestValueAt, x).ifPresent(v -> values.put(p, v));
+        }
+        return values;
+    }
+
     /**
      * Get the nearest value for the specified time stamp.
      *
@@ -118,7 +143,10 @@ public abstract class TimeSeriesProcessor<T> {
      * @param newData the list of {@link XYChart.Data} points to use as the {@link TimeSeriesProcessor}' data.
      */
     public void setData(Collection<XYChart.Data<ZonedDateTime, T>> newData) {
-        monitor.write().lock(() -> this.data = new ArrayList<>(newData));
+        monitor.write().lock(() -> {
+            this.data = new ArrayList<>(newData);
+            invalidateTimestampIndex();
+        });
     }
 
     /**
@@ -146,7 +174,10 @@ public abstract class TimeSeriesProcessor<T> {
      * @param sample a new sample to add to the processor's data store
      */
     public void addSample(XYChart.Data<ZonedDateTime, T> sample) {
-        monitor.write().lock(() -> this.data.add(sample));
+        monitor.write().lock(() -> {
+            this.data.add(sample);
+            invalidateTimestampIndex();
+        });
     }
 
     /**
@@ -166,36 +197,144 @@ public abstract class TimeSeriesProcessor<T> {
      */
     @SafeVarargs
     public final void applyTransforms(TimeSeriesTransform<T>... seriesTransforms) {
-        if (!data.isEmpty()) {
+        if (size() > 0) {
             for (var t : seriesTransforms) {
-                setData(monitor.write().lock(() -> t.transform(data)));
+                monitor.write().lock(() -> unsyncedApplyTransform(t));
             }
         } else {
             logger.trace("Don't apply transform on empty data store");
         }
     }
 
+    /**
+     * Applies a single transform onto the data store.
+     * <p><b>Remark:</b> This method is invoked while the write lock is held.</p>
+     *
+     * @param transform the transform to apply.
+     */
+    protected void unsyncedApplyTransform(TimeSeriesTransform<T> transform) {
+        this.data = new ArrayList<>(transform.transform(data));
+        invalidateTimestampIndex();
+    }
+
+    /**
+     * Discards the timestamp index used to look up values by time; it will be rebuilt on the next look up.
+     * <p><b>Remark:</b> This method must be invoked, while the write lock is held, each time the data store is modified.</p>
+     */
+    protected void invalidateTimestampIndex() {
+        this.timestampIndex = null;
+    }
+
+    /**
+     * Returns the timestamps of all samples in the data store, as epoch nanoseconds, or {@link #UNSORTED_INDEX} if
+     * samples are not sorted by time.
+     * <p><b>Remark:</b> This method is invoked while the read lock is held.</p>
+     *
+     * @return the timestamps of all samples in the data store.
+     */
+    protected long[] buildTimestampIndex() {
+        var index = new long[data.size()];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = DoubleTimeSeriesColumns.toEpochNanos(data.get(i).getXValue());
+            if (i > 0 && index[i] < index[i - 1]) {
+                return UNSORTED_INDEX;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the sorted timestamp index for the data store, building it if needed, or null if samples are not sorted
+     * by time.
+     *
+     * @return the sorted timestamp index for the data store, or null if samples are not sorted by time.
+     */
+    protected long[] getTimestampIndex() {
+        var index = timestampIndex;
+        if (index == null) {
+            // Concurrent readers may each build an index, but they all build the same one.
+            index = buildTimestampIndex();
+            timestampIndex = index;
+        }
+        return index == UNSORTED_INDEX ? null : index;
+    }
+
+    /**
+     * Returns the position of the sample nearest to the specified time stamp, in a sorted array of timestamps.
+     * <p>
+     * If the requested time stamp is equidistant from two samples, the first one is returned.
+     * </p>
+     *
+     * @param timestamps a sorted array of timestamps, as epoch nanoseconds.
+     * @param size       the number of valid timestamps in the array.
+     * @param epochNanos the time stamp to look up, as epoch nanoseconds.
+     * @return the position of the nearest sample, or -1 if the time stamp is located before the first sample.
+     */
+    protected static int nearestIndex(long[] timestamps, int size, long epochNanos) {
+        // find the first sample strictly after the requested time stamp
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= epochNanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return -1;
+        }
+        if (low == size) {
+            return size - 1;
+        }
+        return (epochNanos - timestamps[low - 1]) > (timestamps[low] - epochNanos) ? low : low - 1;
+    }
+
     protected abstract T computeMinValue();
 
     protected abstract T computeAverageValue();
 
     protected abstract T computeMaxValue();
 
-    private T unsyncedGetNearestValue(ZonedDateTime xValue) {
+    protected T unsyncedGetNearestValue(ZonedDateTime xValue) {
+        if (xValue == null) {
+            return null;
+        }
+        return unsyncedGetNearestValueAt(DoubleTimeSeriesColumns.toEpochNanos(xValue));
+    }
+
+    /**
+     * Returns the value of the sample nearest to the specified time stamp.
+     * <p><b>Remark:</b> This method is invoked while the read lock is held.</p>
+     *
+     * @param epochNanos the time stamp to get the value for, as epoch nanoseconds.
+     * @return the value for the time position nearest to the one requested.
+     */
+    protected T unsyncedGetNearestValueAt(long epochNanos) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        var index = getTimestampIndex();
+        if (index == null) {
+            return linearScanNearestValue(epochNanos);
+        }
+        int pos = nearestIndex(index, index.length, epochNanos);
+        return pos < 0 ? null : data.get(pos).getYValue();
+    }
+
+    private T linearScanNearestValue(long epochNanos) {
         T value = null;
-        if (xValue != null && data != null) {
-            var previous = new XYChart.Data<ZonedDateTime,T>(xValue,null);
-            for (var sample : data) {
-                value = sample.getYValue();
-                if (xValue.isBefore(sample.getXValue())) {
-                    if (Duration.between(previous.getXValue(), xValue).abs().compareTo(Duration.between(xValue, sample.getXValue()).abs()) > 0) {
-                        return value;
-                    } else {
-                        return previous.getYValue();
-                    }
-                }
-                previous = sample;
+        long previous = epochNanos;
+        T previousValue = null;
+        for (var sample : data) {
+            value = sample.getYValue();
+            long x = DoubleTimeSeriesColumns.toEpochNanos(sample.getXValue());
+            if (epochNanos < x) {
+                return Math.abs(epochNanos - previous) > Math.abs(x - epochNanos) ? value : previousValue;
             }
+            previous = x;
+            previousValue = value;
         }
         return value;
     }
@@ -16,11 +16,9 @@
 
 package eu.binjr.core.data.timeseries.transform;
 
-import javafx.scene.chart.XYChart;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
 
 /**
  * A transform that aligns the first and last timestamps from the series actually retrieved by the adapter with
@@ -32,11 +30,11 @@ import java.util.List;
  *
  * @author Frederic Thevenet
  */
-public class AlignBoundariesTransform extends BaseTimeSeriesTransform<Double> {
+public class AlignBoundariesTransform extends BaseColumnarTimeSeriesTransform {
 
     private double substituteValue = Double.NaN;
-    private final ZonedDateTime startTime;
-    private final ZonedDateTime endTime;
+    private final long startTime;
+    private final long endTime;
 
     /**
      * Base constructor for {@link BaseTimeSeriesTransform} instances.
@@ -47,76 +45,76 @@ public class AlignBoundariesTransform extends BaseTimeSeriesTransform<Double> {
      */
     public AlignBoundariesTransform(ZonedDateTime startTime, ZonedDateTime endTime, boolean chartSupportsNaN) {
         super("AlignBoundariesTransform");
-        this.startTime = startTime;
-        this.endTime = endTime;
+        this.startTime = DoubleTimeSeriesColumns.toEpochNanos(startTime);
+        this.endTime = DoubleTimeSeriesColumns.toEpochNanos(endTime);
         if (!chartSupportsNaN) {
             substituteValue = 0.0;
         }
     }
 
     @Override
-    protected List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
-        if (data.isEmpty()) {
-            return data;
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        if (columns.isEmpty()) {
+            return;
         }
         //Align the lower (earlier) boundary of the series
-        var iterator = data.iterator();
-        XYChart.Data<ZonedDateTime, Double> firstSample = iterator.next();
-        if (firstSample.getXValue().isAfter(startTime)) {
+        long first = columns.getTimestamp(0);
+        if (first > startTime) {
             // if the first available sample is later than the requested start time,
             // add a sample 1ns after last sample with a substitute value then another sample at start time in order to
             // create an abrupt truncation.
-            data.add(0, new XYChart.Data<>(firstSample.getXValue().minus(1, ChronoUnit.NANOS), substituteValue));
-            data.add(0, new XYChart.Data<>(startTime, substituteValue));
-        } else if (firstSample.getXValue().isBefore(startTime)) {
+            columns.insert(0, first - 1, substituteValue);
+            columns.insert(0, startTime, substituteValue);
+        } else if (first < startTime) {
             // remove all samples with timestamps occurring before the requested start time.
-            var previous = firstSample;
-            while (firstSample.getXValue().isBefore(startTime)) {
-                previous = firstSample;
-                iterator.remove();
-                if (iterator.hasNext()) {
-                    firstSample = iterator.next();
-                } else {
-                    break;
-                }
+            long[] timestamps = columns.timestamps();
+            int firstIdx = 0;
+            while (firstIdx < columns.size() - 1 && timestamps[firstIdx] < startTime) {
+                firstIdx++;
             }
+            int previousIdx = timestamps[firstIdx] < startTime ? firstIdx : firstIdx - 1;
             // use the known sample right before start time to interpolate the value of inserted sample
-            var lowerBound = new XYChart.Data<>(startTime, interpolate(previous, firstSample, startTime));
-            data.add(0, lowerBound);
+            double lowerBound = interpolate(columns, previousIdx, firstIdx, startTime);
+            if (previousIdx == firstIdx) {
+                // all samples occur before start time
+                columns.clear();
+                columns.add(startTime, lowerBound);
+            } else {
+                columns.removeRange(0, previousIdx);
+                columns.timestamps()[0] = startTime;
+                columns.values()[0] = lowerBound;
+            }
         }
 
         // Align the higher (later) boundary of the series
-        var lastIterator = data.listIterator(data.size());
-        XYChart.Data<ZonedDateTime, Double> lastSample = lastIterator.previous();
-        if (lastSample.getXValue().isBefore(endTime)) {
-            data.add(new XYChart.Data<>(lastSample.getXValue().plus(1, ChronoUnit.NANOS), substituteValue));
-            data.add(new XYChart.Data<>(endTime, substituteValue));
-        } else if (lastSample.getXValue().isAfter(endTime)) {
-            var next = lastSample;
-            while (lastSample.getXValue().isAfter(endTime)) {
-                next = lastSample;
-                lastIterator.remove();
-                if (lastIterator.hasPrevious()) {
-                    lastSample = lastIterator.previous();
-                } else {
-                    break;
-                }
+        int lastIdx = columns.size() - 1;
+        long last = columns.getTimestamp(lastIdx);
+        if (last < endTime) {
+            columns.add(last + 1, substituteValue);
+            columns.add(endTime, substituteValue);
+        } else if (last > endTime) {
+            long[] timestamps = columns.timestamps();
+            while (lastIdx > 0 && timestamps[lastIdx] > endTime) {
+                lastIdx--;
+            }
+            int nextIdx = timestamps[lastIdx] > endTime ? lastIdx : lastIdx + 1;
+            double upperBound = interpolate(columns, lastIdx, nextIdx, endTime);
+            if (nextIdx == lastIdx) {
+                // all samples occur after end time
+                columns.clear();
+            } else {
+                columns.truncate(lastIdx + 1);
             }
-            var upperBound = new XYChart.Data<>(endTime, interpolate(lastSample, next, endTime));
-            data.add(upperBound);
+            columns.add(endTime, upperBound);
         }
-        return data;
     }
 
-    private Double interpolate(XYChart.Data<ZonedDateTime, Double> val1, XYChart.Data<ZonedDateTime, Double> val2, ZonedDateTime time) {
-        var x3 = (double) time.toInstant().toEpochMilli();
-        var x1 = (double) val1.getXValue().toInstant().toEpochMilli();
-        var y1 = val1.getYValue();
-        var x2 = (double) val2.getXValue().toInstant().toEpochMilli();
-        var y2 = val2.getYValue();
-        if (y1 == null || y2 == null) {
-            return substituteValue;
-        }
-        return (y2 - y1) / (x2 - x1) * (x3 - x1) + y1;
+    private double interpolate(DoubleTimeSeriesColumns columns, int idx1, int idx2, long time) {
+        long origin = columns.getTimestamp(idx1);
+        double x3 = time - origin;
+        double x2 = columns.getTimestamp(idx2) - origin;
+        double y1 = columns.getValue(idx1);
+        double y2 = columns.getValue(idx2);
+        return (y2 - y1) / x2 * x3 + y1;
     }
 }
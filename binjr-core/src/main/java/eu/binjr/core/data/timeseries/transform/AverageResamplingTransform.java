@@ -17,15 +17,10 @@
 package eu.binjr.core.data.timeseries.transform;
 
 import eu.binjr.common.logging.Logger;
-import javafx.scene.chart.XYChart;
-
-import java.time.Duration;
-import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 
 //FIXME: This introduce a right-shift to the series.
-public final class AverageResamplingTransform extends BaseTimeSeriesTransform<Double> {
+public final class AverageResamplingTransform extends BaseColumnarTimeSeriesTransform {
     private static final Logger logger = Logger.create(AverageResamplingTransform.class);
     private final int threshold;
 
@@ -40,34 +35,42 @@ public final class AverageResamplingTransform extends BaseTimeSeriesTransform<Do
     }
 
     @Override
-    protected List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
-        if (threshold > 0 && data.size() > threshold) {
-            List<XYChart.Data<ZonedDateTime, Double>> reduced = new ArrayList<>(threshold);
-            var start = data.get(0).getXValue();
-            var end = data.get(data.size() - 1).getXValue();
-            double stepNanos = (Duration.between(start, end).toNanos()) / (double) (threshold);
-            reduced.add(data.get(0));
-            var nextSampleTime = start.plusNanos((long) Math.floor(stepNanos));
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        if (threshold > 0 && columns.size() > threshold) {
+            int dataLength = columns.size();
+            long[] timestamps = columns.timestamps();
+            double[] values = columns.values();
+            long start = timestamps[0];
+            long end = timestamps[dataLength - 1];
+            long stepNanos = (long) Math.floor((end - start) / (double) (threshold));
+            // The first sample is kept and already in place; since at most one sample is written for each
+            // sample read, the reduced series can be written over the input.
+            int reduced = 1;
+            long nextSampleTime = start + stepNanos;
             double bucketAgg = 0;
             long bucketSize = 0;
-            for (int i = 1; i < data.size() - 1; i++) {
-                if (data.get(i).getXValue().isBefore(nextSampleTime)) {
-                    bucketAgg += data.get(i).getYValue();
+            for (int i = 1; i < dataLength - 1; i++) {
+                double value = values[i];
+                if (timestamps[i] < nextSampleTime) {
+                    bucketAgg += value;
                     bucketSize++;
                 } else {
-                    reduced.add(new XYChart.Data<>(nextSampleTime, bucketAgg / bucketSize));
+                    timestamps[reduced] = nextSampleTime;
+                    values[reduced] = bucketAgg / bucketSize;
+                    reduced++;
                     //initialize next bucket
-                    nextSampleTime = nextSampleTime.plusNanos((long) Math.floor(stepNanos));
-                    bucketAgg = data.get(i).getYValue();
+                    nextSampleTime = nextSampleTime + stepNanos;
+                    bucketAgg = value;
                     bucketSize = 1;
                 }
             }
-            reduced.add(data.get(data.size() - 1));
-            logger.debug(() -> "Series reduced from " + data.size() + " to " + reduced.size() + " samples.");
-            return reduced;
+            timestamps[reduced] = timestamps[dataLength - 1];
+            values[reduced] = values[dataLength - 1];
+            reduced++;
+            columns.truncate(reduced);
+            int reducedSize = reduced;
+            logger.debug(() -> "Series reduced from " + dataLength + " to " + reducedSize + " samples.");
         }
-
-        return data;
     }
 
 }
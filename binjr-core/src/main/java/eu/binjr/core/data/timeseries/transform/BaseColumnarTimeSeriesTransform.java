@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.timeseries.transform;
+
+import eu.binjr.common.logging.Logger;
+import eu.binjr.common.logging.Profiler;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+import javafx.scene.chart.XYChart;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * The base class for time series transformation functions that operate on primitive columns.
+ * <p>
+ * Instances can still be used as a {@link TimeSeriesTransform} on a list of {@link XYChart.Data}, in which case
+ * the list is copied into a {@link DoubleTimeSeriesColumns} store before the transform is applied.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public abstract class BaseColumnarTimeSeriesTransform extends BaseTimeSeriesTransform<Double> implements ColumnarTimeSeriesTransform {
+    private static final Logger logger = Logger.create(BaseColumnarTimeSeriesTransform.class);
+
+    /**
+     * Base constructor for {@link BaseColumnarTimeSeriesTransform} instances.
+     *
+     * @param name the name of the transform function
+     */
+    public BaseColumnarTimeSeriesTransform(String name) {
+        super(name);
+    }
+
+    /**
+     * The actual transform implementation
+     *
+     * @param columns The data on which the transform should be applied.
+     */
+    protected abstract void apply(DoubleTimeSeriesColumns columns);
+
+    @Override
+    public void transform(DoubleTimeSeriesColumns columns) {
+        if (isEnabled()) {
+            try (Profiler ignored = Profiler.start("Applying transform " + getName(), logger::perf)) {
+                apply(columns);
+            }
+        } else {
+            logger.debug(() -> "Transform " + getName() + " is disabled.");
+        }
+    }
+
+    @Override
+    protected List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
+        var columns = new DoubleTimeSeriesColumns(data.size());
+        columns.setAll(data);
+        apply(columns);
+        return columns.toDataList();
+    }
+}
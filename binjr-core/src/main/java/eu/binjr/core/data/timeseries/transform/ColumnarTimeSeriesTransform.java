@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.timeseries.transform;
+
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+
+/**
+ * Defines transform functions that operate in place on time series stored as primitive columns.
+ * <p>
+ * Implementations are expected to modify the content of the provided {@link DoubleTimeSeriesColumns} directly,
+ * without allocating objects on a per sample basis.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public interface ColumnarTimeSeriesTransform {
+    /**
+     * Applies the transform function to the provided series, in place.
+     *
+     * @param columns The data on which the transform should be applied.
+     */
+    void transform(DoubleTimeSeriesColumns columns);
+
+    /**
+     * Gets the name of the transform function
+     *
+     * @return the name of the transform function
+     */
+    String getName();
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+}
@@ -17,18 +17,14 @@
 package eu.binjr.core.data.timeseries.transform;
 
 import eu.binjr.common.logging.Logger;
-import javafx.scene.chart.XYChart;
-
-import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 
 /**
  * A simple {@link BaseTimeSeriesTransform} that operates a linear decimation on the provided series.
  *
  * @author Frederic Thevenet
  */
-public class DecimationTransform extends BaseTimeSeriesTransform<Double> {
+public class DecimationTransform extends BaseColumnarTimeSeriesTransform {
     private final int threshold;
     private static final Logger logger = Logger.create(DecimationTransform.class);
     /**
@@ -42,24 +38,27 @@ public class DecimationTransform extends BaseTimeSeriesTransform<Double> {
     }
 
     @Override
-    public List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
-        if (threshold > 0 && data.size() > threshold) {
-            return decimate(data, threshold);
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        if (threshold > 0 && columns.size() > threshold) {
+            decimate(columns, threshold);
         }
-        return data;
     }
 
-
-    private List<XYChart.Data<ZonedDateTime, Double>> decimate(List<XYChart.Data<ZonedDateTime, Double>> data, int threshold) {
-        int dataLength = data.size();
-        List<XYChart.Data<ZonedDateTime, Double>> sampled = new ArrayList<>(threshold);
+    private void decimate(DoubleTimeSeriesColumns columns, int threshold) {
+        int dataLength = columns.size();
+        long[] timestamps = columns.timestamps();
+        double[] values = columns.values();
         double every = (double) (dataLength - 2) / (threshold - 2);
-        sampled.add(data.get(0)); // Always add the first point
+        // Always keep the first point, which is already in place.
+        // Picked indexes are always greater or equal to the write position, so samples can be compacted in place.
         for (int i = 1; i < threshold - 1; i++) {
-            sampled.add(data.get(Math.min(dataLength - 1, (int) Math.round(i * every))));
+            int picked = Math.min(dataLength - 1, (int) Math.round(i * every));
+            timestamps[i] = timestamps[picked];
+            values[i] = values[picked];
         }
-        sampled.add(data.get(dataLength - 1));
-        logger.debug(() -> "Series reduced from " + data.size() + " to " + sampled.size() + " samples.");
-        return sampled;
+        timestamps[threshold - 1] = timestamps[dataLength - 1];
+        values[threshold - 1] = values[dataLength - 1];
+        columns.truncate(threshold);
+        logger.debug(() -> "Series reduced from " + dataLength + " to " + threshold + " samples.");
     }
 }
\ No newline at end of file
@@ -17,10 +17,10 @@
 package eu.binjr.core.data.timeseries.transform;
 
 import eu.binjr.common.logging.Logger;
-import javafx.scene.chart.XYChart;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 
-import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -29,10 +29,10 @@ import java.util.List;
  *
  * @author Frederic Thevenet
  */
-public class FirstPassLttbTransform extends BaseTimeSeriesTransform<Double> {
+public class FirstPassLttbTransform extends BaseColumnarTimeSeriesTransform {
     protected final int threshold;
-    private final List<Double[]> seriesValues;
-    private ZonedDateTime[] timeStamps;
+    private final List<double[]> seriesValues;
+    private long[] timeStamps;
     private static final Logger logger = Logger.create(FirstPassLttbTransform.class);
 
     /**
@@ -46,27 +46,26 @@ public class FirstPassLttbTransform extends BaseTimeSeriesTransform<Double> {
         seriesValues = new ArrayList<>();
     }
 
-    public List<Double[]> getSeriesValues() {
+    public List<double[]> getSeriesValues() {
         return seriesValues;
     }
 
-    public ZonedDateTime[] getTimeStamps() {
+    public long[] getTimeStamps() {
         return timeStamps;
     }
 
     @Override
-    protected List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
+    protected void apply(DoubleTimeSeriesColumns columns) {
         // collect values for second pass
-        if (threshold > 0 && data.size() > threshold) {
-            var values = data.stream().map(XYChart.Data::getYValue).toArray(Double[]::new);
+        if (threshold > 0 && columns.size() > threshold) {
+            var values = Arrays.copyOf(columns.values(), columns.size());
             synchronized (seriesValues) {
                 seriesValues.add(values);
                 if (timeStamps == null) {
-                    timeStamps = data.stream().map(XYChart.Data::getXValue).toArray(ZonedDateTime[]::new);
+                    timeStamps = Arrays.copyOf(columns.timestamps(), columns.size());
                 }
             }
         }
-        return data;
     }
 
     @Override
@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.timeseries.transform;
+
+import eu.binjr.common.logging.Logger;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The first pass of an {@link M4Transform} shared by several series, which collects the samples of all series so
+ * that the second pass can retain the same timestamps in each of them, as required to stack them.
+ *
+ * @author Frederic Thevenet
+ */
+public class FirstPassM4Transform extends BaseColumnarTimeSeriesTransform {
+    protected final int threshold;
+    private final List<double[]> seriesValues;
+    private long[] timeStamps;
+    private static final Logger logger = Logger.create(FirstPassM4Transform.class);
+
+    /**
+     * Initializes a new instance of the {@link FirstPassM4Transform} class.
+     *
+     * @param threshold the number of columns to divide the series into, i.e. the width of the chart in pixels.
+     */
+    public FirstPassM4Transform(final int threshold) {
+        super("FirstPassM4Transform");
+        this.threshold = threshold;
+        seriesValues = new ArrayList<>();
+    }
+
+    public List<double[]> getSeriesValues() {
+        return seriesValues;
+    }
+
+    public long[] getTimeStamps() {
+        return timeStamps;
+    }
+
+    @Override
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        // collect values for second pass
+        if (threshold > 0 && columns.size() > threshold * M4Transform.SAMPLES_PER_COLUMN) {
+            var values = Arrays.copyOf(columns.values(), columns.size());
+            synchronized (seriesValues) {
+                seriesValues.add(values);
+                if (timeStamps == null) {
+                    timeStamps = Arrays.copyOf(columns.timestamps(), columns.size());
+                }
+            }
+        }
+    }
+
+    @Override
+    public TimeSeriesTransform<Double> getNextPassTransform() {
+        if (timeStamps == null) {
+            logger.debug(() -> "No data collected from first pass: return noOp transform");
+            return new NoOpTransform<>();
+        }
+        int nbSamples = timeStamps.length;
+        for (var b : seriesValues) {
+            if (b.length != nbSamples) {
+                logger.debug(() -> "Collected series data are not coherent: falling back to single pass M4");
+                return new M4Transform(threshold);
+            }
+        }
+        return new SecondPassM4Transform(this, threshold);
+    }
+}
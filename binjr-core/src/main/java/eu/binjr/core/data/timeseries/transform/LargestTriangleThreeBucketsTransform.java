@@ -17,11 +17,7 @@
 package eu.binjr.core.data.timeseries.transform;
 
 import eu.binjr.common.logging.Logger;
-import javafx.scene.chart.XYChart;
-
-import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 
 /**
  * A time series transform that applies the <a href="https://github.com/sveinn-steinarsson/flot-downsample">Largest-Triangle-Three-Buckets algorithm</a>
@@ -29,7 +25,7 @@ import java.util.List;
  *
  * @author Frederic Thevenet
  */
-public class LargestTriangleThreeBucketsTransform extends BaseTimeSeriesTransform<Double> {
+public class LargestTriangleThreeBucketsTransform extends BaseColumnarTimeSeriesTransform {
     protected final int threshold;
     private static final Logger logger = Logger.create(LargestTriangleThreeBucketsTransform.class);
 
@@ -44,30 +40,35 @@ public class LargestTriangleThreeBucketsTransform extends BaseTimeSeriesTransfor
     }
 
     @Override
-    protected List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
-        if (threshold > 0 && data.size() > threshold) {
-            return applyLTTBReduction(data, threshold);
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        if (threshold > 0 && columns.size() > threshold) {
+            applyLTTBReduction(columns, threshold);
         }
-        return data;
     }
 
     /**
      * <p>Method implementing the Largest-Triangle-Three-Buckets algorithm.</p>
      * <p>Adapted from <a href="https://gist.github.com/DanielWJudge/63300889f27c7f50eeb7">DanielWJudge/LargestTriangleThreeBuckets.cs</a></p>
+     * <p>The selected samples are compacted at the beginning of the provided columns, since the index of a selected
+     * sample is never lower than the position it is written to.</p>
      *
-     * @param data      the list of sample to apply the reduction to.
+     * @param columns   the samples to apply the reduction to.
      * @param threshold d the maximum number of samples to keep.
-     * @return a reduced list of samples.
      */
-    private List<XYChart.Data<ZonedDateTime, Double>> applyLTTBReduction(List<XYChart.Data<ZonedDateTime, Double>> data, int threshold) {
-        int dataLength = data.size();
-        List<XYChart.Data<ZonedDateTime, Double>> sampled = new ArrayList<>(threshold);
+    private void applyLTTBReduction(DoubleTimeSeriesColumns columns, int threshold) {
+        int dataLength = columns.size();
+        long[] timestamps = columns.timestamps();
+        double[] values = columns.values();
+        // Use timestamps relative to the first sample to preserve precision when converted to double.
+        long origin = timestamps[0];
         // Bucket size. Leave room for start and end data points
         double every = (double) (dataLength - 2) / (threshold - 2);
         int a = 0;
         int nextA = 0;
-        XYChart.Data<ZonedDateTime, Double> maxAreaPoint = data.get(a);
-        sampled.add(data.get(a)); // Always add the first point
+        int maxAreaPointIdx = a;
+        // Point a (the first point is always kept and is already in place)
+        double pointAx = 0;
+        double pointAy = values[a];
         for (int i = 0; i < threshold - 2; i++) {
             // Calculate point average for next bucket (containing c)
             double avgX = 0;
@@ -77,36 +78,38 @@ public class LargestTriangleThreeBucketsTransform extends BaseTimeSeriesTransfor
             avgRangeEnd = Math.min(avgRangeEnd, dataLength);
             int avgRangeLength = avgRangeEnd - avgRangeStart;
             for (; avgRangeStart < avgRangeEnd; avgRangeStart++) {
-                avgX += data.get(avgRangeStart).getXValue().toInstant().toEpochMilli();
-                avgY += data.get(avgRangeStart).getYValue();
+                avgX += timestamps[avgRangeStart] - origin;
+                avgY += values[avgRangeStart];
             }
             avgX /= avgRangeLength;
             avgY /= avgRangeLength;
             // Get the range for this bucket
             int rangeOffs = (int) (Math.floor((i) * every) + 1);
             int rangeTo = (int) (Math.floor((i + 1) * every) + 1);
-
-            // Point a
-            double pointAx = data.get(a).getXValue().toInstant().toEpochMilli();
-            double pointAy = data.get(a).getYValue();
             double maxArea = -1;
             for (; rangeOffs < rangeTo; rangeOffs++) {
                 // Calculate triangle area over three buckets
-                double area = Math.abs((pointAx - avgX) * (data.get(rangeOffs).getYValue() - pointAy) -
-                        (pointAx - data.get(rangeOffs).getXValue().toInstant().toEpochMilli()) * (avgY - pointAy)
+                double area = Math.abs((pointAx - avgX) * (values[rangeOffs] - pointAy) -
+                        (pointAx - (timestamps[rangeOffs] - origin)) * (avgY - pointAy)
                 ) * 0.5;
                 if (area > maxArea) {
                     maxArea = area;
-                    maxAreaPoint = data.get(rangeOffs);
+                    maxAreaPointIdx = rangeOffs;
                     nextA = rangeOffs; // Next a is this b
                 }
             }
-            sampled.add(maxAreaPoint); // Pick this point from the bucket
             a = nextA; // This a is the next a (chosen b)
+            pointAx = timestamps[a] - origin;
+            pointAy = values[a];
+            // Pick this point from the bucket
+            timestamps[i + 1] = timestamps[maxAreaPointIdx];
+            values[i + 1] = values[maxAreaPointIdx];
         }
-        sampled.add(data.get(dataLength - 1)); // Always add last
-        logger.debug(() -> "Series reduced from " + data.size() + " to " + sampled.size() + " samples.");
-        return sampled;
+        // Always add last
+        timestamps[threshold - 1] = timestamps[dataLength - 1];
+        values[threshold - 1] = values[dataLength - 1];
+        columns.truncate(threshold);
+        logger.debug(() -> "Series reduced from " + dataLength + " to " + threshold + " samples.");
     }
 
 
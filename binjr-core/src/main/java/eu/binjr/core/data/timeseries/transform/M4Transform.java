@@ -0,0 +1,155 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.timeseries.transform;
+
+import eu.binjr.common.logging.Logger;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A time series transform that applies the <a href="https://doi.org/10.14778/2732951.2732953">M4 aggregation</a>
+ * to reduce the number of discreet data points in a series.
+ * <p>
+ * The time interval covered by the series is divided into as many columns as the threshold, and only the first, last,
+ * minimum and maximum samples of each column are kept, along with the first NaN so that gaps remain visible.
+ * Provided the threshold matches the width of the chart in pixels, the reduced series renders identically to the full
+ * one, with no more than four samples per pixel.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public class M4Transform extends BaseColumnarTimeSeriesTransform {
+    /**
+     * The maximum number of samples kept in a column when there is no NaN value in it.
+     */
+    public static final int SAMPLES_PER_COLUMN = 4;
+    protected final int threshold;
+    private static final Logger logger = Logger.create(M4Transform.class);
+
+    /**
+     * Initializes a new instance of the {@link M4Transform} class.
+     *
+     * @param threshold the number of columns to divide the series into, i.e. the width of the chart in pixels.
+     */
+    public M4Transform(final int threshold) {
+        super("M4Transform");
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        if (threshold > 0 && columns.size() > threshold * SAMPLES_PER_COLUMN) {
+            int dataLength = columns.size();
+            long[] timestamps = columns.timestamps();
+            double[] values = columns.values();
+            // Selected indexes are increasing and never lower than the write position: compact samples in place.
+            int[] retained = new int[1];
+            forEachColumnExtremum(timestamps, values, dataLength, threshold, i -> {
+                timestamps[retained[0]] = timestamps[i];
+                values[retained[0]] = values[i];
+                retained[0]++;
+            });
+            columns.truncate(retained[0]);
+            logger.debug(() -> "Series reduced from " + dataLength + " to " + retained[0] + " samples.");
+        }
+    }
+
+    /**
+     * Invokes the provided action, in increasing order, on the index of each sample to keep in order to render the
+     * series over the specified number of columns.
+     * <p>
+     * This runs in a single pass over the samples, which must be sorted by timestamp.
+     * </p>
+     *
+     * @param timestamps the timestamps of the samples.
+     * @param values     the values of the samples.
+     * @param size       the number of samples.
+     * @param nbColumns  the number of columns to divide the time interval covered by the samples into.
+     * @param action     the action to invoke on the index of each sample to keep.
+     */
+    static void forEachColumnExtremum(long[] timestamps, double[] values, int size, int nbColumns, IntConsumer action) {
+        if (size == 0) {
+            return;
+        }
+        long origin = timestamps[0];
+        double span = (double) (timestamps[size - 1] - origin) + 1;
+        int[] selected = new int[SAMPLES_PER_COLUMN + 1];
+        int currentColumn = -1;
+        int first = -1, last = -1, min = -1, max = -1, nan = -1;
+        for (int i = 0; i < size; i++) {
+            int column = (int) ((timestamps[i] - origin) / span * nbColumns);
+            if (column != currentColumn) {
+                flushColumn(selected, first, min, max, nan, last, action);
+                currentColumn = column;
+                first = i;
+                min = -1;
+                max = -1;
+                nan = -1;
+            }
+            last = i;
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                if (nan < 0) {
+                    nan = i;
+                }
+            } else {
+                if (min < 0 || value < values[min]) {
+                    min = i;
+                }
+                if (max < 0 || value > values[max]) {
+                    max = i;
+                }
+            }
+        }
+        flushColumn(selected, first, min, max, nan, last, action);
+    }
+
+    private static void flushColumn(int[] selected, int first, int min, int max, int nan, int last, IntConsumer action) {
+        if (first < 0) {
+            return;
+        }
+        int n = 0;
+        selected[n++] = first;
+        n = insert(selected, n, min);
+        n = insert(selected, n, max);
+        n = insert(selected, n, nan);
+        n = insert(selected, n, last);
+        for (int i = 0; i < n; i++) {
+            action.accept(selected[i]);
+        }
+    }
+
+    /**
+     * Inserts an index into a small sorted array of distinct indexes, unless it is negative or already present.
+     */
+    private static int insert(int[] selected, int n, int index) {
+        if (index < 0) {
+            return n;
+        }
+        int pos = n;
+        while (pos > 0 && selected[pos - 1] > index) {
+            pos--;
+        }
+        if (pos > 0 && selected[pos - 1] == index) {
+            return n;
+        }
+        System.arraycopy(selected, pos, selected, pos + 1, n - pos);
+        selected[pos] = index;
+        return n + 1;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.timeseries.transform;
+
+import eu.binjr.common.logging.Logger;
+import eu.binjr.common.logging.Profiler;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesEnvelope;
+
+/**
+ * A time series transform that reduces a series to the average value of the samples in each of a fixed number of
+ * time buckets, while also computing the minimum and maximum value of each bucket in the same pass, so that the
+ * variance hidden by the reduction can be rendered as an envelope around the series.
+ * <p>
+ * Buckets are evenly spaced over the time interval covered by the series, and each average is positioned halfway
+ * between the first and last samples of its bucket. NaN values are ignored when aggregating a bucket, unless it
+ * only contains NaN values.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public class MinMaxEnvelopeTransform extends BaseColumnarTimeSeriesTransform {
+    private static final Logger logger = Logger.create(MinMaxEnvelopeTransform.class);
+    private final int threshold;
+
+    /**
+     * Initializes a new instance of the {@link MinMaxEnvelopeTransform} class.
+     *
+     * @param threshold the number of buckets to reduce the series to.
+     */
+    public MinMaxEnvelopeTransform(int threshold) {
+        super("MinMaxEnvelopeTransform");
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        reduceWithEnvelope(columns);
+    }
+
+    /**
+     * Reduces the provided series in place to the average of each bucket, and returns the minimum and maximum values
+     * of each bucket.
+     *
+     * @param columns the series to reduce.
+     * @return the envelope of the reduced series, or null if the transform is disabled or if the series has no more
+     * samples than the threshold and was left untouched.
+     */
+    public DoubleTimeSeriesEnvelope reduce(DoubleTimeSeriesColumns columns) {
+        if (!isEnabled()) {
+            logger.debug(() -> "Transform " + getName() + " is disabled.");
+            return null;
+        }
+        try (Profiler ignored = Profiler.start("Applying transform " + getName(), logger::perf)) {
+            return reduceWithEnvelope(columns);
+        }
+    }
+
+    private DoubleTimeSeriesEnvelope reduceWithEnvelope(DoubleTimeSeriesColumns columns) {
+        if (threshold <= 0 || columns.size() <= threshold) {
+            return null;
+        }
+        int dataLength = columns.size();
+        long[] timestamps = columns.timestamps();
+        double[] values = columns.values();
+        double[] lowerValues = new double[threshold];
+        double[] upperValues = new double[threshold];
+        long origin = timestamps[0];
+        double span = (double) (timestamps[dataLength - 1] - origin) + 1;
+        // Since each bucket holds at least one sample, buckets can be written over the input as they are closed.
+        int reduced = 0;
+        int currentBucket = 0;
+        long firstTime = origin;
+        long lastTime = origin;
+        double sum = 0;
+        int count = 0;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (int i = 0; i < dataLength; i++) {
+            int bucket = (int) ((timestamps[i] - origin) / span * threshold);
+            if (bucket != currentBucket) {
+                timestamps[reduced] = firstTime + (lastTime - firstTime) / 2;
+                values[reduced] = count > 0 ? sum / count : Double.NaN;
+                lowerValues[reduced] = min;
+                upperValues[reduced] = max;
+                reduced++;
+                currentBucket = bucket;
+                firstTime = timestamps[i];
+                sum = 0;
+                count = 0;
+                min = Double.NaN;
+                max = Double.NaN;
+            }
+            lastTime = timestamps[i];
+            double value = values[i];
+            if (!Double.isNaN(value)) {
+                sum += value;
+                if (count == 0 || value < min) {
+                    min = value;
+                }
+                if (count == 0 || value > max) {
+                    max = value;
+                }
+                count++;
+            }
+        }
+        timestamps[reduced] = firstTime + (lastTime - firstTime) / 2;
+        values[reduced] = count > 0 ? sum / count : Double.NaN;
+        lowerValues[reduced] = min;
+        upperValues[reduced] = max;
+        reduced++;
+        columns.truncate(reduced);
+        int reducedSize = reduced;
+        logger.debug(() -> "Series reduced from " + dataLength + " to " + reducedSize + " samples.");
+        return new DoubleTimeSeriesEnvelope(columns.timestamps(), lowerValues, upperValues, reduced, columns.getZoneId());
+    }
+}
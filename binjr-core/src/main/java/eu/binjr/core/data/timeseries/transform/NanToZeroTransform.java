@@ -16,13 +16,9 @@
 
 package eu.binjr.core.data.timeseries.transform;
 
-import javafx.scene.chart.XYChart;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 
-import java.time.ZonedDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
-
-public class NanToZeroTransform extends BaseTimeSeriesTransform<Double> {
+public class NanToZeroTransform extends BaseColumnarTimeSeriesTransform {
 
     /**
      * Base constructor for {@link BaseTimeSeriesTransform} instances.
@@ -32,10 +28,13 @@ public class NanToZeroTransform extends BaseTimeSeriesTransform<Double> {
     }
 
     @Override
-    protected List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
-        return data.stream()
-                .map(sample -> sample.getYValue().isNaN() ? new XYChart.Data<>(sample.getXValue(), 0.0) : sample)
-                .collect(Collectors.toList());
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        double[] values = columns.values();
+        for (int i = 0; i < columns.size(); i++) {
+            if (Double.isNaN(values[i])) {
+                values[i] = 0.0;
+            }
+        }
     }
 
 }
@@ -16,17 +16,22 @@
 
 package eu.binjr.core.data.timeseries.transform;
 
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 import javafx.scene.chart.XYChart;
 
 import java.time.ZonedDateTime;
 import java.util.List;
 
-public class NoOpTransform<T> implements TimeSeriesTransform<T> {
+public class NoOpTransform<T> implements TimeSeriesTransform<T>, ColumnarTimeSeriesTransform {
     @Override
     public List<XYChart.Data<ZonedDateTime, T>> transform(List<XYChart.Data<ZonedDateTime, T>> data) {
         return data;
     }
 
+    @Override
+    public void transform(DoubleTimeSeriesColumns columns) {
+    }
+
     @Override
     public String getName() {
         return "NoOpTransform";
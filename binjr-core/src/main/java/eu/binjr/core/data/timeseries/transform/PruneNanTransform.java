@@ -16,13 +16,9 @@
 
 package eu.binjr.core.data.timeseries.transform;
 
-import javafx.scene.chart.XYChart;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 
-import java.time.ZonedDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
-
-public class PruneNanTransform extends BaseTimeSeriesTransform<Double> {
+public class PruneNanTransform extends BaseColumnarTimeSeriesTransform {
 
     /**
      * Base constructor for {@link BaseTimeSeriesTransform} instances.
@@ -32,10 +28,18 @@ public class PruneNanTransform extends BaseTimeSeriesTransform<Double> {
     }
 
     @Override
-    protected List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
-        return data.stream()
-                .filter(sample -> sample != null && sample.getYValue() != null && !sample.getYValue().isNaN())
-                .collect(Collectors.toList());
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        long[] timestamps = columns.timestamps();
+        double[] values = columns.values();
+        int retained = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            if (!Double.isNaN(values[i])) {
+                timestamps[retained] = timestamps[i];
+                values[retained] = values[i];
+                retained++;
+            }
+        }
+        columns.truncate(retained);
     }
 
 }
@@ -17,10 +17,8 @@
 package eu.binjr.core.data.timeseries.transform;
 
 import eu.binjr.common.logging.Logger;
-import javafx.scene.chart.XYChart;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 
-import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,7 +27,7 @@ import java.util.List;
  *
  * @author Frederic Thevenet
  */
-public class SecondPassLttbTransform extends BaseTimeSeriesTransform<Double> {
+public class SecondPassLttbTransform extends BaseColumnarTimeSeriesTransform {
     protected final int threshold;
     private final boolean[] whiteList;
     private static final Logger logger = Logger.create(SecondPassLttbTransform.class);
@@ -48,18 +46,23 @@ public class SecondPassLttbTransform extends BaseTimeSeriesTransform<Double> {
     }
 
     @Override
-    protected List<XYChart.Data<ZonedDateTime, Double>> apply(List<XYChart.Data<ZonedDateTime, Double>> data) {
-        if (threshold > 0 && data.size() > threshold) {
-            var filtered = new ArrayList<XYChart.Data<ZonedDateTime, Double>>();
-            for (int i = 0; i < data.size(); i++) {
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        if (threshold > 0 && columns.size() > threshold) {
+            int dataLength = columns.size();
+            long[] timestamps = columns.timestamps();
+            double[] values = columns.values();
+            int retained = 0;
+            for (int i = 0; i < dataLength; i++) {
                 if (whiteList[i]) {
-                    filtered.add(data.get(i));
+                    timestamps[retained] = timestamps[i];
+                    values[retained] = values[i];
+                    retained++;
                 }
             }
-            logger.debug(() -> "Series reduced from " + data.size() + " to " + filtered.size() + " samples.");
-            return filtered;
+            columns.truncate(retained);
+            int reducedSize = retained;
+            logger.debug(() -> "Series reduced from " + dataLength + " to " + reducedSize + " samples.");
         }
-        return data;
     }
 
 
@@ -69,28 +72,34 @@ public class SecondPassLttbTransform extends BaseTimeSeriesTransform<Double> {
      *
      * @return a white list of samples indexes to retain after a reduction
      */
-    private boolean[] computeWhiteList(ZonedDateTime[] data, List<Double[]> seriesValues, int threshold) {
+    private static boolean[] computeWhiteList(long[] data, List<double[]> seriesValues, int threshold) {
         int dataLength = data.length;
         int nbDim = seriesValues.size();
+        double[][] series = seriesValues.toArray(new double[0][]);
         boolean[] whiteList = new boolean[dataLength];
+        // Use timestamps relative to the first sample to preserve precision when converted to double.
+        long origin = data[0];
         // Bucket size. Leave room for start and end data points
         double every = (double) (dataLength - 2) / (threshold - 2);
         int a = 0;
         int nextA = 0;
         int maxAreaPointIdx = a;
+        double[] avgY = new double[nbDim];
         whiteList[a] = true;// Always add the first point
         for (int i = 0; i < threshold - 2; i++) {
             // Calculate point average for next bucket (containing c)
             double avgX = 0;
-            double[] avgY = new double[nbDim];
+            for (int j = 0; j < nbDim; j++) {
+                avgY[j] = 0;
+            }
             int avgRangeStart = (int) (Math.floor((i + 1) * every) + 1);
             int avgRangeEnd = (int) (Math.floor((i + 2) * every) + 1);
             avgRangeEnd = Math.min(avgRangeEnd, dataLength);
             int avgRangeLength = avgRangeEnd - avgRangeStart;
             for (; avgRangeStart < avgRangeEnd; avgRangeStart++) {
-                avgX += data[avgRangeStart].toInstant().toEpochMilli();
+                avgX += data[avgRangeStart] - origin;
                 for (int j = 0; j < nbDim; j++) {
-                    avgY[j] += seriesValues.get(j)[avgRangeStart];
+                    avgY[j] += series[j][avgRangeStart];
                 }
             }
             avgX /= avgRangeLength;
@@ -102,17 +111,18 @@ public class SecondPassLttbTransform extends BaseTimeSeriesTransform<Double> {
             int rangeTo = (int) (Math.floor((i + 1) * every) + 1);
 
             // Point a
-            double pointAx = data[a].toInstant().toEpochMilli();
+            double pointAx = data[a] - origin;
             double maxArea = -1;//
             for (; rangeOffs < rangeTo; rangeOffs++) {
                 // Calculate triangle area over three buckets
-                double[] area = new double[nbDim];
+                double pointX = data[rangeOffs] - origin;
                 for (int j = 0; j < nbDim; j++) {
-                    area[j] = Math.abs((pointAx - avgX) * (seriesValues.get(j)[rangeOffs] - seriesValues.get(j)[a]) -
-                            (pointAx - data[rangeOffs].toInstant().toEpochMilli()) * (avgY[j] - seriesValues.get(j)[a])
+                    double pointAy = series[j][a];
+                    double area = Math.abs((pointAx - avgX) * (series[j][rangeOffs] - pointAy) -
+                            (pointAx - pointX) * (avgY[j] - pointAy)
                     ) * 0.5;
-                    if (area[j] > maxArea) {
-                        maxArea = area[j];
+                    if (area > maxArea) {
+                        maxArea = area;
                         maxAreaPointIdx = rangeOffs;
                         nextA = rangeOffs; // Next a is this b
                     }
@@ -0,0 +1,93 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.timeseries.transform;
+
+import eu.binjr.common.logging.Logger;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+
+import java.util.List;
+
+/**
+ * The second pass of an {@link M4Transform} shared by several series, which retains the samples at the same
+ * timestamps in each series.
+ * <p>
+ * A sample is retained if it is the first, last, minimum, maximum or first NaN of its column in any of the series, or
+ * in the sum of all series, which is the top of the stack.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public class SecondPassM4Transform extends BaseColumnarTimeSeriesTransform {
+    protected final int threshold;
+    private final boolean[] whiteList;
+    private static final Logger logger = Logger.create(SecondPassM4Transform.class);
+
+    /**
+     * Initializes a new instance of the {@link SecondPassM4Transform} class.
+     *
+     * @param firstPass A reference to the TimeSeriesTransform that was applied as the first pass of the algorithm.
+     * @param threshold the number of columns to divide the series into, i.e. the width of the chart in pixels.
+     */
+    public SecondPassM4Transform(final FirstPassM4Transform firstPass, int threshold) {
+        super("SecondPassM4Transform");
+        this.setEnabled(firstPass.isEnabled());
+        this.threshold = threshold;
+        this.whiteList = computeWhiteList(firstPass.getTimeStamps(), firstPass.getSeriesValues(), threshold);
+    }
+
+    @Override
+    protected void apply(DoubleTimeSeriesColumns columns) {
+        if (threshold > 0 && columns.size() > threshold * M4Transform.SAMPLES_PER_COLUMN) {
+            int dataLength = columns.size();
+            if (dataLength != whiteList.length) {
+                logger.debug(() -> "Series is not coherent with the white list: falling back to single pass M4");
+                new M4Transform(threshold).apply(columns);
+                return;
+            }
+            long[] timestamps = columns.timestamps();
+            double[] values = columns.values();
+            int retained = 0;
+            for (int i = 0; i < dataLength; i++) {
+                if (whiteList[i]) {
+                    timestamps[retained] = timestamps[i];
+                    values[retained] = values[i];
+                    retained++;
+                }
+            }
+            columns.truncate(retained);
+            int reducedSize = retained;
+            logger.debug(() -> "Series reduced from " + dataLength + " to " + reducedSize + " samples.");
+        }
+    }
+
+    private static boolean[] computeWhiteList(long[] timestamps, List<double[]> seriesValues, int threshold) {
+        int dataLength = timestamps.length;
+        boolean[] whiteList = new boolean[dataLength];
+        double[] sum = new double[dataLength];
+        for (var values : seriesValues) {
+            M4Transform.forEachColumnExtremum(timestamps, values, dataLength, threshold, i -> whiteList[i] = true);
+            for (int i = 0; i < dataLength; i++) {
+                if (!Double.isNaN(values[i])) {
+                    sum[i] += values[i];
+                }
+            }
+        }
+        M4Transform.forEachColumnExtremum(timestamps, sum, dataLength, threshold, i -> whiteList[i] = true);
+        logger.debug(() -> "M4 white list computed");
+        return whiteList;
+    }
+}
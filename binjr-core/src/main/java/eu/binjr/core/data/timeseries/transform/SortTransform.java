@@ -16,13 +16,17 @@
 
 package eu.binjr.core.data.timeseries.transform;
 
+import eu.binjr.common.logging.Logger;
+import eu.binjr.common.logging.Profiler;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
 import javafx.scene.chart.XYChart;
 
 import java.time.ZonedDateTime;
 import java.util.Comparator;
 import java.util.List;
 
-public class SortTransform<T> extends BaseTimeSeriesTransform<T> {
+public class SortTransform<T> extends BaseTimeSeriesTransform<T> implements ColumnarTimeSeriesTransform {
+    private static final Logger logger = Logger.create(SortTransform.class);
 
     /**
      * Base constructor for {@link BaseTimeSeriesTransform} instances.
@@ -37,4 +41,13 @@ public class SortTransform<T> extends BaseTimeSeriesTransform<T> {
         return data;
     }
 
+    @Override
+    public void transform(DoubleTimeSeriesColumns columns) {
+        if (isEnabled()) {
+            try (Profiler ignored = Profiler.start("Applying transform " + getName(), logger::perf)) {
+                columns.sort();
+            }
+        }
+    }
+
 }
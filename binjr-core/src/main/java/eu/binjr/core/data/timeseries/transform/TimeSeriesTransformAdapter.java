@@ -0,0 +1,79 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.timeseries.transform;
+
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesColumns;
+
+/**
+ * An adapter that allows a {@link TimeSeriesTransform} that only operates on a list of samples to be applied
+ * onto a {@link DoubleTimeSeriesColumns} store.
+ * <p>
+ * <b>Remark:</b> This requires all samples to be copied to and from a list of {@link javafx.scene.chart.XYChart.Data}
+ * instances, and should only be used for transforms that do not implement {@link ColumnarTimeSeriesTransform}.
+ * </p>
+ *
+ * @author Frederic Thevenet
+ */
+public class TimeSeriesTransformAdapter implements ColumnarTimeSeriesTransform {
+    private final TimeSeriesTransform<Double> transform;
+
+    /**
+     * Initializes a new instance of the {@link TimeSeriesTransformAdapter} class.
+     *
+     * @param transform the {@link TimeSeriesTransform} to adapt.
+     */
+    public TimeSeriesTransformAdapter(TimeSeriesTransform<Double> transform) {
+        this.transform = transform;
+    }
+
+    /**
+     * Returns a {@link ColumnarTimeSeriesTransform} for the provided transform: either the transform itself if it
+     * already implements that interface, or an adapter otherwise.
+     *
+     * @param transform the transform to adapt.
+     * @return a {@link ColumnarTimeSeriesTransform} for the provided transform.
+     */
+    public static ColumnarTimeSeriesTransform of(TimeSeriesTransform<Double> transform) {
+        if (transform instanceof ColumnarTimeSeriesTransform) {
+            return (ColumnarTimeSeriesTransform) transform;
+        }
+        return new TimeSeriesTransformAdapter(transform);
+    }
+
+    @Override
+    public void transform(DoubleTimeSeriesColumns columns) {
+        if (transform.isEnabled()) {
+            columns.setAll(transform.transform(columns.toDataList()));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return transform.getName();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return transform.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        transform.setEnabled(enabled);
+    }
+}
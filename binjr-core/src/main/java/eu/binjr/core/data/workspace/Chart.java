@@ -190,6 +190,25 @@ public class Chart implements Dirtyable, AutoCloseable, Rangeable<Double> {
      */
     public void fetchDataFromSources(ZonedDateTime startTime, ZonedDateTime endTime, boolean bypassCache)
             throws DataAdapterException {
+        fetchDataFromSources(startTime, endTime, bypassCache, userPref.downSamplingThreshold.get().intValue());
+    }
+
+    /**
+     * Fills up the backend for all {@link TimeSeriesInfo} in the chart by querying the relevant data adapters
+     * for the specified time interval, reducing each series to no more than the specified number of samples if
+     * down-sampling is enabled.
+     *
+     * @param startTime             the start of the time interval
+     * @param endTime               the end of the time interval
+     * @param bypassCache           set to true to forcefully bypass any cache on the adapter.
+     * @param downSamplingThreshold the maximum number of samples per series, capped by the user preference.
+     * @throws DataAdapterException if an error occurs while retrieving data from the adapter
+     */
+    public void fetchDataFromSources(ZonedDateTime startTime,
+                                     ZonedDateTime endTime,
+                                     boolean bypassCache,
+                                     int downSamplingThreshold) throws DataAdapterException {
+        int threshold = Math.max(1, Math.min(downSamplingThreshold, userPref.downSamplingThreshold.get().intValue()));
         // prune series from closed adapters
         series.removeIf(seriesInfo -> {
             if (seriesInfo.getBinding().getAdapter().isClosed()) {
@@ -208,8 +227,7 @@ public class Chart implements Dirtyable, AutoCloseable, Rangeable<Double> {
                 .collect(groupingBy(o -> o.getBinding().getAdapter()));
         for (var byAdapterEntry : bindingsByAdapters.entrySet()) {
             // Define the transforms to apply
-            var reduce = userPref.downSamplingAlgorithm.get().instantiateTransform(getChartType(),
-                    userPref.downSamplingThreshold.get().intValue());
+            var reduce = userPref.downSamplingAlgorithm.get().instantiateTransform(getChartType(), threshold);
             reduce.setEnabled(userPref.downSamplingEnabled.get());
             DataAdapter<Double> adapter = (DataAdapter<Double>) byAdapterEntry.getKey();
             SortTransform<Double> sort = new SortTransform<>();
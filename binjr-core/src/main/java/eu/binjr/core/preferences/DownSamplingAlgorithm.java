@@ -32,7 +32,10 @@ public enum DownSamplingAlgorithm {
     DECIMATION("Decimation", (type, threshold) -> new DecimationTransform(threshold)),
     LTTB("Largest Triangle Three Buckets", (type, threshold) -> new LargestTriangleThreeBucketsTransform(threshold)),
     TWO_PASS_LTTB("Two-pass Largest Triangle Three Buckets", (type, threshold)-> new FirstPassLttbTransform(threshold)),
-    AVERAGE("Average resampling", ((type, threshold) -> new AverageResamplingTransform(threshold)));
+    AVERAGE("Average resampling", ((type, threshold) -> new AverageResamplingTransform(threshold))),
+    M4("Min/max per pixel column (M4)", (type, threshold) ->
+            type == ChartType.STACKED ? new FirstPassM4Transform(threshold) : new M4Transform(threshold)),
+    MIN_MAX_ENVELOPE("Average with min/max envelope", (type, threshold) -> new MinMaxEnvelopeTransform(threshold));
 
     private final String name;
     private final BiFunction<ChartType, Integer, TimeSeriesTransform<Double>> factory;
@@ -17,6 +17,7 @@
 package eu.binjr.core.preferences;
 
 import com.google.gson.Gson;
+import eu.binjr.common.cache.EvictionPolicy;
 import eu.binjr.common.logging.Logger;
 import eu.binjr.common.preferences.ObservablePreference;
 import eu.binjr.common.preferences.ObservablePreferenceFactory;
@@ -50,6 +51,11 @@ public class UserPreferences extends ObservablePreferenceFactory {
      */
     public final ObservablePreference<Number> downSamplingThreshold = integerPreference("downSamplingThreshold", 1500);
 
+    /**
+     * True if the series of charts are drawn onto a canvas, false if they are rendered as scene graph nodes.
+     */
+    public final ObservablePreference<Boolean> canvasChartRendering = booleanPreference("canvasChartRendering", false);
+
     /**
      * The username used for authenticated access to the GitHub API.
      */
@@ -209,6 +215,51 @@ public class UserPreferences extends ObservablePreferenceFactory {
      */
     public final ObservablePreference<Boolean> forceNanToZero = booleanPreference("forceNanToZero", true);
 
+    /**
+     * True if time series processors should hold samples in primitive columns rather than as a list of
+     * XYChart.Data instances.
+     */
+    public final ObservablePreference<Boolean> columnarDataStoreEnabled = booleanPreference("columnarDataStoreEnabled", true);
+
+    /**
+     * The maximum amount of memory, in megabytes, used to cache decoded series, shared by all data adapters.
+     */
+    public final ObservablePreference<Number> dataCacheMaxSizeMB = integerPreference("dataCacheMaxSizeMB", 256);
+
+    /**
+     * The policy used to select the entries to evict from the decoded series cache once full.
+     */
+    public final ObservablePreference<EvictionPolicy> dataCacheEvictionPolicy =
+            enumPreference(EvictionPolicy.class, "dataCacheEvictionPolicy", EvictionPolicy.LRU);
+
+    /**
+     * The width, in seconds, of the time buckets decoded series are split into when they are cached.
+     */
+    public final ObservablePreference<Number> dataCacheBucketWidthSec = integerPreference("dataCacheBucketWidthSec", 3600);
+
+    /**
+     * The amount of time, in seconds, before the present time during which samples returned by a source are not
+     * considered final, and are fetched again rather than served from the decoded series cache.
+     */
+    public final ObservablePreference<Number> dataCacheSettleMarginSec = integerPreference("dataCacheSettleMarginSec", 300);
+
+    /**
+     * True if decoded series fetched from remote sources should also be cached on disk, so that they can be reused
+     * across sessions, false otherwise.
+     */
+    public final ObservablePreference<Boolean> diskCacheEnabled = booleanPreference("diskCacheEnabled", false);
+
+    /**
+     * The location of the on-disk cache for decoded series.
+     */
+    public final ObservablePreference<Path> diskCacheLocation =
+            pathPreference("diskCacheLocation", Path.of(System.getProperty("user.home"), ".binjr", "cache"));
+
+    /**
+     * The maximum amount of disk space, in megabytes, used by the on-disk cache for decoded series.
+     */
+    public final ObservablePreference<Number> diskCacheMaxSizeMB = integerPreference("diskCacheMaxSizeMB", 1024);
+
     /**
      * True if a heap dump should be generate on out of memory errors, false otherwise.
      */
@@ -252,6 +303,17 @@ public class UserPreferences extends ObservablePreferenceFactory {
 
     public ObservablePreference<Number> searchFieldInputDelayMs = integerPreference("searchFieldInputDelayMs", 600);
 
+    /**
+     * The minimum amount of time in ms between two refreshes of a log worksheet triggered by changes in its sources.
+     */
+    public ObservablePreference<Number> logRefreshThrottleMs = integerPreference("logRefreshThrottleMs", 1000);
+
+    /**
+     * True if the events of a log worksheet are rendered as they scroll into view, false if the whole page is laid out
+     * as a single text document.
+     */
+    public ObservablePreference<Boolean> logViewVirtualized = booleanPreference("logViewVirtualized", true);
+
     private UserPreferences() {
         super(BINJR_GLOBAL);
     }